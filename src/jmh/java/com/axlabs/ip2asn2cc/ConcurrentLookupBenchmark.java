@@ -0,0 +1,10 @@
+package com.axlabs.ip2asn2cc;
+
+import org.openjdk.jmh.annotations.Threads;
+
+// the same lookups as LookupBenchmark, with one thread per core sharing a
+// single Ip2Asn2Cc instance
+@Threads(Threads.MAX)
+public class ConcurrentLookupBenchmark extends LookupBenchmark {
+
+}
@@ -0,0 +1,29 @@
+package com.axlabs.ip2asn2cc;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.axlabs.ip2asn2cc.model.FilterPolicy;
+
+// the whole construction of an Ip2Asn2Cc instance: reading the fixtures
+// through their URLs, parsing them and building the indexes
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadBenchmark {
+
+    @Benchmark
+    public Ip2Asn2Cc load() throws Exception {
+        return RIRFixtures.load(new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, true, true));
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.axlabs.ip2asn2cc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.axlabs.ip2asn2cc.model.FilterPolicy;
+
+// single lookups against a dataset built from the bundled fixtures; a miss
+// is an address or ASN that isn't registered to any of the filtered countries; with
+// offHeap the indexes are read from the memory-mapped snapshot file, and with a
+// lookupCacheSize the (few, always repeated) addresses are answered by the lookup cache;
+// the lookup benchmarks return the whole record through the record index
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class LookupBenchmark {
+
+    private static final String IPV4_HIT = "77.109.144.219";
+    private static final String IPV4_MISS = "10.1.2.3";
+    private static final String IPV6_HIT = "2001:1620:2777:23::2";
+    private static final String IPV6_MISS = "fe80::1";
+    private static final String ASN_HIT = "13030";
+    private static final String ASN_MISS = "64512";
+
+    @Param({"false", "true"})
+    public boolean offHeap;
+
+    @Param({"0", "65536"})
+    public int lookupCacheSize;
+
+    private Path snapshotPath;
+    private Ip2Asn2Cc ip2Asn2Cc;
+
+    @Setup
+    public void setUp() throws Exception {
+        Config config = new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, false, false)
+                .withLookupCacheSize(this.lookupCacheSize)
+                .withRecordLookup(true);
+        if (this.offHeap) {
+            this.snapshotPath = Files.createTempFile("ip2asn2cc-benchmark-", ".snapshot");
+            Files.delete(this.snapshotPath);
+            config = config.withSnapshotPath(this.snapshotPath).withOffHeapIndex(true);
+        }
+        this.ip2Asn2Cc = RIRFixtures.load(config);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (this.snapshotPath != null) {
+            Files.deleteIfExists(this.snapshotPath);
+        }
+    }
+
+    @Benchmark
+    public boolean checkIPv4Hit() {
+        return this.ip2Asn2Cc.checkIP(IPV4_HIT);
+    }
+
+    @Benchmark
+    public boolean checkIPv4Miss() {
+        return this.ip2Asn2Cc.checkIP(IPV4_MISS);
+    }
+
+    @Benchmark
+    public boolean checkIPv6Hit() {
+        return this.ip2Asn2Cc.checkIP(IPV6_HIT);
+    }
+
+    @Benchmark
+    public boolean checkIPv6Miss() {
+        return this.ip2Asn2Cc.checkIP(IPV6_MISS);
+    }
+
+    @Benchmark
+    public String getRIRCountryCodeIPv4Hit() {
+        return this.ip2Asn2Cc.getRIRCountryCode(IPV4_HIT);
+    }
+
+    @Benchmark
+    public String getRIRCountryCodeIPv4Miss() {
+        return this.ip2Asn2Cc.getRIRCountryCode(IPV4_MISS);
+    }
+
+    @Benchmark
+    public String getRIRCountryCodeIPv6Hit() {
+        return this.ip2Asn2Cc.getRIRCountryCode(IPV6_HIT);
+    }
+
+    @Benchmark
+    public String getRIRCountryCodeIPv6Miss() {
+        return this.ip2Asn2Cc.getRIRCountryCode(IPV6_MISS);
+    }
+
+    @Benchmark
+    public String getRIRCountryCodeIPv4Numeric() {
+        return this.ip2Asn2Cc.getRIRCountryCode(0x4D6D90DB);
+    }
+
+    @Benchmark
+    public String getRIRCountryCodeIPv6Numeric() {
+        return this.ip2Asn2Cc.getRIRCountryCode(0x2001162027770023L, 2L);
+    }
+
+    @Benchmark
+    public LookupResult lookupIPv4Hit() {
+        return this.ip2Asn2Cc.lookup(IPV4_HIT);
+    }
+
+    @Benchmark
+    public LookupResult lookupIPv6Hit() {
+        return this.ip2Asn2Cc.lookup(IPV6_HIT);
+    }
+
+    @Benchmark
+    public boolean checkASNHit() {
+        return this.ip2Asn2Cc.checkASN(ASN_HIT);
+    }
+
+    @Benchmark
+    public boolean checkASNMiss() {
+        return this.ip2Asn2Cc.checkASN(ASN_MISS);
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.axlabs.ip2asn2cc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.List;
+
+import com.axlabs.ip2asn2cc.rir.ClasspathRIRSource;
+import com.axlabs.ip2asn2cc.rir.RIRSource;
+
+// the small delegated files the tests run on (src/test/resources/fixtures/rir, added
+// to the benchmark resources by build.gradle), one per RIR, so nothing has to be
+// downloaded while measuring
+final class RIRFixtures {
+
+    static final List<String> COUNTRY_CODES = List.of("US", "CH", "DE", "BR", "JP", "ZA");
+
+    private static final String DIRECTORY = "/fixtures/rir/";
+
+    private RIRFixtures() {
+    }
+
+    static List<RIRSource> sources() {
+        return ClasspathRIRSource.directory(DIRECTORY);
+    }
+
+    static byte[][] contents() {
+        byte[][] contents = new byte[RIRSource.RIR_FILE_NAMES.size()][];
+        for (int i = 0; i < contents.length; i++) {
+            try (InputStream in = resource(RIRSource.RIR_FILE_NAMES.get(i)).openStream()) {
+                contents[i] = in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return contents;
+    }
+
+    static Ip2Asn2Cc load(Config config) throws Exception {
+        return new Ip2Asn2Cc(COUNTRY_CODES, config.withSources(sources()));
+    }
+
+    private static URL resource(String file) {
+        URL url = RIRFixtures.class.getResource(DIRECTORY + file);
+        if (url == null) {
+            throw new IllegalStateException("Missing benchmark fixture " + file);
+        }
+        return url;
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.axlabs.ip2asn2cc;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.validator.routines.InetAddressValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.axlabs.ip2asn2cc.checker.ASNChecker;
+import com.axlabs.ip2asn2cc.checker.IPv4Checker;
+import com.axlabs.ip2asn2cc.checker.IPv6Checker;
+import com.axlabs.ip2asn2cc.rir.RIRParser;
+
+// parses the bundled fixtures from memory, so only the parser and the index
+// builders are measured and not the I/O
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RIRParserBenchmark {
+
+    private final InetAddressValidator validator = new InetAddressValidator();
+    private byte[][] contents;
+
+    @Setup
+    public void setUp() {
+        this.contents = RIRFixtures.contents();
+    }
+
+    @Benchmark
+    public RIRDataset parse() throws Exception {
+        IPv4Checker ipv4Checker = new IPv4Checker(this.validator);
+        IPv6Checker ipv6Checker = new IPv6Checker(this.validator);
+        ASNChecker asnChecker = new ASNChecker();
+        for (byte[] content : this.contents) {
+            RIRParser parser = new RIRParser(ipv4Checker, ipv6Checker, asnChecker, RIRFixtures.COUNTRY_CODES);
+            parser.parse(Channels.newChannel(new ByteArrayInputStream(content)));
+        }
+        return new RIRDataset(ipv4Checker, ipv6Checker, asnChecker, 0, null);
+    }
+
+}
@@ -1,7 +1,131 @@
 package com.axlabs.ip2asn2cc;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import com.axlabs.ip2asn2cc.metrics.Ip2Asn2CcMetrics;
 import com.axlabs.ip2asn2cc.model.FilterPolicy;
+import com.axlabs.ip2asn2cc.rir.RIRSource;
+
+public record Config(FilterPolicy filterPolicy, Boolean includeIpv4LocalAddresses, Boolean includeIpv6LocalAddresses,
+                     Path snapshotPath, boolean offHeapIndex, Duration loadTimeout, List<RIRSource> sources,
+                     int lookupCacheSize, Ip2Asn2CcMetrics metrics, boolean recordLookup,
+                     Duration retryBackoff, boolean keepParsedFiles) {
+
+    public static final Duration DEFAULT_LOAD_TIMEOUT = Duration.ofMinutes(5);
+    public static final Duration DEFAULT_RETRY_BACKOFF = Duration.ofSeconds(10);
+    public static final int MAX_RETRY_BACKOFF_FACTOR = 64;
+
+    public Config {
+        if (loadTimeout == null) {
+            loadTimeout = DEFAULT_LOAD_TIMEOUT;
+        }
+        if (sources != null) {
+            if (sources.isEmpty()) {
+                throw new IllegalArgumentException("At least one RIR source is needed.");
+            }
+            sources = List.copyOf(sources);
+        }
+        if (lookupCacheSize < 0) {
+            throw new IllegalArgumentException("The lookup cache size can't be negative.");
+        }
+        if (metrics == null) {
+            metrics = Ip2Asn2CcMetrics.NOOP;
+        }
+        if (retryBackoff == null) {
+            retryBackoff = DEFAULT_RETRY_BACKOFF;
+        }
+        if (retryBackoff.isNegative() || retryBackoff.isZero()) {
+            throw new IllegalArgumentException("The retry backoff must be positive.");
+        }
+    }
+
+    // the options beyond the filter policy and the local addresses are set with the with*
+    // methods below, so adding one doesn't need another constructor
+    public Config(FilterPolicy filterPolicy, Boolean includeIpv4LocalAddresses, Boolean includeIpv6LocalAddresses) {
+        this(filterPolicy, includeIpv4LocalAddresses, includeIpv6LocalAddresses, null, false, null, null, 0, null,
+                false, null, false);
+    }
+
+    // when set, the dataset is loaded from this file on startup if it's valid, and the
+    // file is rewritten after every download so the next startup doesn't need the network
+    public Config withSnapshotPath(Path snapshotPath) {
+        return new Config(filterPolicy, includeIpv4LocalAddresses, includeIpv6LocalAddresses, snapshotPath,
+                offHeapIndex, loadTimeout, sources, lookupCacheSize, metrics, recordLookup, retryBackoff,
+                keepParsedFiles);
+    }
+
+    // when set (together with a snapshot path), the lookups read the indexes straight from
+    // the memory-mapped snapshot file instead of copying them to the heap, so processes on
+    // the same host using the same file share one copy of the data in the page cache
+    public Config withOffHeapIndex(boolean offHeapIndex) {
+        return new Config(filterPolicy, includeIpv4LocalAddresses, includeIpv6LocalAddresses, snapshotPath,
+                offHeapIndex, loadTimeout, sources, lookupCacheSize, metrics, recordLookup, retryBackoff,
+                keepParsedFiles);
+    }
+
+    // the longest a whole load (download, parse and index build) may take before it's
+    // abandoned with a RIRLoadTimeoutException
+    public Config withLoadTimeout(Duration loadTimeout) {
+        return new Config(filterPolicy, includeIpv4LocalAddresses, includeIpv6LocalAddresses, snapshotPath,
+                offHeapIndex, loadTimeout, sources, lookupCacheSize, metrics, recordLookup, retryBackoff,
+                keepParsedFiles);
+    }
+
+    // where the RIR files are read from, e.g. a local or HTTP mirror; by default (null)
+    // they're downloaded from the FTP servers of the registries
+    public Config withSources(List<RIRSource> sources) {
+        return new Config(filterPolicy, includeIpv4LocalAddresses, includeIpv6LocalAddresses, snapshotPath,
+                offHeapIndex, loadTimeout, sources, lookupCacheSize, metrics, recordLookup, retryBackoff,
+                keepParsedFiles);
+    }
+
+    // the amount of addresses whose lookup result is kept in a cache in front of the indexes,
+    // which pays off when a small set of addresses makes most of the lookups; 0 (the default)
+    // disables the cache
+    public Config withLookupCacheSize(int lookupCacheSize) {
+        return new Config(filterPolicy, includeIpv4LocalAddresses, includeIpv6LocalAddresses, snapshotPath,
+                offHeapIndex, loadTimeout, sources, lookupCacheSize, metrics, recordLookup, retryBackoff,
+                keepParsedFiles);
+    }
+
+    // where the lookups, the loads and the loaded datasets are reported to, e.g. JmxMetrics or
+    // MicrometerMetrics; by default (null) nothing is measured
+    public Config withMetrics(Ip2Asn2CcMetrics metrics) {
+        return new Config(filterPolicy, includeIpv4LocalAddresses, includeIpv6LocalAddresses, snapshotPath,
+                offHeapIndex, loadTimeout, sources, lookupCacheSize, metrics, recordLookup, retryBackoff,
+                keepParsedFiles);
+    }
+
+    // when set, the records of the RIR files are kept with an index of their own, so
+    // Ip2Asn2Cc.lookup can return the registry, status, date and range of an address;
+    // they take a few times the memory of the country indexes. The snapshot file doesn't
+    // hold the records, so they're always downloaded on startup
+    public Config withRecordLookup(boolean recordLookup) {
+        return new Config(filterPolicy, includeIpv4LocalAddresses, includeIpv6LocalAddresses, snapshotPath,
+                offHeapIndex, loadTimeout, sources, lookupCacheSize, metrics, recordLookup, retryBackoff,
+                keepParsedFiles);
+    }
+
+    // how long an instance created with Ip2Asn2Cc.createAsync waits before it retries the
+    // RIR files that failed to load; the wait doubles after every failed retry, up to
+    // MAX_RETRY_BACKOFF_FACTOR times this
+    public Config withRetryBackoff(Duration retryBackoff) {
+        return new Config(filterPolicy, includeIpv4LocalAddresses, includeIpv6LocalAddresses, snapshotPath,
+                offHeapIndex, loadTimeout, sources, lookupCacheSize, metrics, recordLookup, retryBackoff,
+                keepParsedFiles);
+    }
 
-public record Config(FilterPolicy filterPolicy, Boolean includeIpv4LocalAddresses, Boolean includeIpv6LocalAddresses) {
+    // when set, the records parsed from every RIR file are kept between the loads, so a
+    // reload only downloads the files that changed; otherwise only the versions of the
+    // files are kept, and the unchanged files are downloaded again whenever another one
+    // changed. The records take about as much heap as the indexes built from them, so
+    // they're never kept with the off-heap index
+    public Config withKeepParsedFiles(boolean keepParsedFiles) {
+        return new Config(filterPolicy, includeIpv4LocalAddresses, includeIpv6LocalAddresses, snapshotPath,
+                offHeapIndex, loadTimeout, sources, lookupCacheSize, metrics, recordLookup, retryBackoff,
+                keepParsedFiles);
+    }
 
 }
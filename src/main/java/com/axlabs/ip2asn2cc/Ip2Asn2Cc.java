@@ -1,57 +1,56 @@
 package com.axlabs.ip2asn2cc;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
+import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.validator.routines.InetAddressValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.axlabs.ip2asn2cc.checker.ASNChecker;
-import com.axlabs.ip2asn2cc.checker.IPv4Checker;
-import com.axlabs.ip2asn2cc.checker.IPv6Checker;
+import com.axlabs.ip2asn2cc.checker.IPv6PrefixTrie;
+import com.axlabs.ip2asn2cc.checker.RangeIndex;
 import com.axlabs.ip2asn2cc.exception.RIRNotDownloadedException;
+import com.axlabs.ip2asn2cc.metrics.Ip2Asn2CcMetrics;
+import com.axlabs.ip2asn2cc.metrics.LookupType;
+import com.axlabs.ip2asn2cc.model.CountryCodes;
+import com.axlabs.ip2asn2cc.model.CountryFilter;
 import com.axlabs.ip2asn2cc.model.FilterPolicy;
-import com.axlabs.ip2asn2cc.model.IPv4Subnet;
-import com.axlabs.ip2asn2cc.model.IPv6Subnet;
-import com.axlabs.ip2asn2cc.rir.RIRDownloader;
-import com.axlabs.ip2asn2cc.rir.RIRParser;
-
-import static java.util.Optional.ofNullable;
+import com.axlabs.ip2asn2cc.model.IPAddressParser;
+import com.googlecode.ipv6.IPv6Address;
 
 public class Ip2Asn2Cc {
 
     private static final Logger LOG = LoggerFactory.getLogger(Ip2Asn2Cc.class);
 
-    // The following RIR DBs have the format described here:
-    // https://www.apnic.net/about-APNIC/corporate-documents/documents/resource-guidelines/rir-statistics-exchange-format
-    private static final String ARIN_RIR_DB_URL = "ftp://ftp.arin.net/pub/stats/arin/delegated-arin-extended-latest";
-    private static final String RIPE_RIR_DB_URL = "ftp://ftp.ripe.net/ripe/stats/delegated-ripencc-latest";
-    private static final String AFRINIC_RIR_DB_URL = "ftp://ftp.afrinic.net/pub/stats/afrinic/delegated-afrinic-latest";
-    private static final String APNIC_RIR_DB_URL = "ftp://ftp.apnic.net/pub/stats/apnic/delegated-apnic-latest";
-    private static final String LACNIC_RIR_DB_URL = "ftp://ftp.lacnic.net/pub/stats/lacnic/delegated-lacnic-latest";
-
-    private static final List<String> listAllRIR = Arrays.asList(
-            ARIN_RIR_DB_URL, RIPE_RIR_DB_URL,
-            AFRINIC_RIR_DB_URL, APNIC_RIR_DB_URL,
-            LACNIC_RIR_DB_URL);
-
-    private final InetAddressValidator validator;
+    // scratch space for the parsed ipv6 addresses, so the lookups don't allocate
+    private static final ThreadLocal<long[]> PARSED_IPV6_ADDRESS = ThreadLocal.withInitial(() -> new long[2]);
+    private static final ThreadLocal<LookupResult> LOOKUP_RESULT = ThreadLocal.withInitial(LookupResult::new);
+    // createAsync loads on a thread of its own by default, one that never keeps the JVM alive
+    private static final Executor LOADER_EXECUTOR = runnable -> {
+        Thread thread = new Thread(runnable, "ip2asn2cc-loader");
+        thread.setDaemon(true);
+        thread.start();
+    };
+    // times the retries of the missing RIR sources of every instance, which then load on
+    // the loader threads; its single daemon thread only lives while retries are pending
+    private static final ScheduledThreadPoolExecutor RETRY_SCHEDULER = newRetryScheduler();
 
-    private final IPv4Checker ipv4Checker;
-    private final IPv6Checker ipv6Checker;
-    private final ASNChecker asnChecker;
-
-    private final List<File> listDownloadedFiles = Collections.synchronizedList(new ArrayList<>());
     private final Config config;
+    private final RIRLoader loader;
+    private final Object reloadLock = new Object();
+    private final LookupCache cache;
+    private final Ip2Asn2CcMetrics metrics;
+    // the lookups are only timed when someone is interested in the times
+    private final boolean timed;
+    private volatile RIRDataset dataset;
+    // completes once the dataset has the records of every RIR source
+    private final CompletableFuture<Void> fullyLoaded = new CompletableFuture<>();
 
     public Ip2Asn2Cc(List<String> listCountryCodeRules) throws RIRNotDownloadedException {
         this(listCountryCodeRules, FilterPolicy.INCLUDE_COUNTRY_CODES, true, true);
@@ -63,115 +62,611 @@ public class Ip2Asn2Cc {
 
     public Ip2Asn2Cc(List<String> listCountryCodeRules, FilterPolicy filterPolicy,
                      Boolean includeIpv4LocalAddresses, Boolean includeIpv6LocalAddresses) throws RIRNotDownloadedException {
+        this(listCountryCodeRules, new Config(filterPolicy, includeIpv4LocalAddresses, includeIpv6LocalAddresses));
+    }
+
+    // loads the records of every country once, so the same instance (and memory) can serve
+    // any number of CountryFilter rules, e.g. one per tenant, through the filter overloads
+    public Ip2Asn2Cc(Config config) throws RIRNotDownloadedException {
+        this(CountryCodes.all(), config);
+    }
+
+    public Ip2Asn2Cc(List<String> listCountryCodeRules, Config config) throws RIRNotDownloadedException {
+        this(new RIRLoader(listCountryCodeRules, config), config);
+    }
+
+    Ip2Asn2Cc(RIRLoader loader, Config config) throws RIRNotDownloadedException {
+        this(loader, config, loader.loadInitial());
+    }
+
+    private Ip2Asn2Cc(RIRLoader loader, Config config, RIRDataset dataset) {
+        this.config = config;
+        this.loader = loader;
+        this.cache = config.lookupCacheSize() > 0 ? new LookupCache(config.lookupCacheSize()) : null;
+        this.metrics = config.metrics();
+        this.timed = this.metrics != Ip2Asn2CcMetrics.NOOP;
+        this.dataset = dataset;
+        recordDataset(dataset);
+        if (dataset.isComplete()) {
+            this.fullyLoaded.complete(null);
+        } else {
+            scheduleRetry(config.retryBackoff().toNanos());
+        }
+    }
+
+    // creates an instance without blocking the calling thread, e.g. an event loop: the RIR
+    // files are loaded on a daemon thread, or on the given executor. The instance doesn't
+    // need all of them, it's returned as soon as at least one RIR file is loaded and serves
+    // the lookups with what it has (any address of the missing registries is unknown) while
+    // it retries the missing files in the background, backing off after every failure (see
+    // Config.withRetryBackoff). The future only fails when none of the RIR files could be loaded
+    public static CompletableFuture<Ip2Asn2Cc> createAsync(Config config) {
+        return createAsync(CountryCodes.all(), config);
+    }
+
+    public static CompletableFuture<Ip2Asn2Cc> createAsync(List<String> listCountryCodeRules, Config config) {
+        return createAsync(listCountryCodeRules, config, LOADER_EXECUTOR);
+    }
+
+    public static CompletableFuture<Ip2Asn2Cc> createAsync(List<String> listCountryCodeRules, Config config,
+                                                           Executor executor) {
+        RIRLoader loader = new RIRLoader(listCountryCodeRules, config);
+        CompletableFuture<Ip2Asn2Cc> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(new Ip2Asn2Cc(loader, config, loader.loadInitial(true)));
+            } catch (RIRNotDownloadedException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    // the lookups don't lock: the dataset is immutable once published, and every
+    // call reads the reference once so it works on a single consistent dataset
+    public String getRIRCountryCode(String ipAddress) {
+        long ipv4Address = IPAddressParser.parseIPv4(ipAddress);
+        if (ipv4Address >= 0) {
+            return getRIRCountryCode((int) ipv4Address);
+        }
+        long[] ipv6Address = PARSED_IPV6_ADDRESS.get();
+        if (IPAddressParser.parseIPv6(ipAddress, ipv6Address)) {
+            return getRIRCountryCode(ipv6Address[0], ipv6Address[1]);
+        }
+        return CountryCodes.UNKNOWN;
+    }
+
+    public String getRIRCountryCode(InetAddress ipAddress) {
+        return ipAddress == null ? CountryCodes.UNKNOWN : getRIRCountryCode(ipAddress.getAddress());
+    }
+
+    // the address in network byte order: 4 bytes for ipv4, 16 bytes for ipv6
+    public String getRIRCountryCode(byte[] ipAddress) {
+        if (checkAddressLength(ipAddress) == 4) {
+            return getRIRCountryCode(toInt(ipAddress));
+        }
+        return getRIRCountryCode(toLong(ipAddress, 0), toLong(ipAddress, 8));
+    }
+
+    // the ipv4 address as its unsigned 32 bits
+    public String getRIRCountryCode(int ipv4Address) {
+        return CountryCodes.toCode(getCountryId(ipv4Address));
+    }
+
+    // the ipv6 address as its high and low 64 bits
+    public String getRIRCountryCode(long ipv6High, long ipv6Low) {
+        return CountryCodes.toCode(getCountryId(ipv6High, ipv6Low));
+    }
+
+    public boolean checkIP(String ipAddress) {
+        long ipv4Address = IPAddressParser.parseIPv4(ipAddress);
+        if (ipv4Address >= 0) {
+            return checkIP((int) ipv4Address);
+        }
+        long[] ipv6Address = PARSED_IPV6_ADDRESS.get();
+        return IPAddressParser.parseIPv6(ipAddress, ipv6Address) && checkIP(ipv6Address[0], ipv6Address[1]);
+    }
+
+    public boolean checkIP(InetAddress ipAddress) {
+        return ipAddress != null && checkIP(ipAddress.getAddress());
+    }
+
+    public boolean checkIP(byte[] ipAddress) {
+        if (checkAddressLength(ipAddress) == 4) {
+            return checkIP(toInt(ipAddress));
+        }
+        return checkIP(toLong(ipAddress, 0), toLong(ipAddress, 8));
+    }
+
+    public boolean checkIP(int ipv4Address) {
+        return applyFilterPolicy(getCountryId(ipv4Address) != CountryCodes.UNKNOWN_ID);
+    }
+
+    public boolean checkIP(long ipv6High, long ipv6Low) {
+        return applyFilterPolicy(getCountryId(ipv6High, ipv6Low) != CountryCodes.UNKNOWN_ID);
+    }
+
+    // the filter overloads test the country of the address against the given filter instead
+    // of the configured rules; only the countries that were loaded can be told apart, any
+    // other country is seen as unknown
+    public boolean checkIP(String ipAddress, CountryFilter filter) {
+        long ipv4Address = IPAddressParser.parseIPv4(ipAddress);
+        if (ipv4Address >= 0) {
+            return checkIP((int) ipv4Address, filter);
+        }
+        long[] ipv6Address = PARSED_IPV6_ADDRESS.get();
+        return IPAddressParser.parseIPv6(ipAddress, ipv6Address) && checkIP(ipv6Address[0], ipv6Address[1], filter);
+    }
+
+    public boolean checkIP(InetAddress ipAddress, CountryFilter filter) {
+        return ipAddress != null && checkIP(ipAddress.getAddress(), filter);
+    }
+
+    public boolean checkIP(byte[] ipAddress, CountryFilter filter) {
+        if (checkAddressLength(ipAddress) == 4) {
+            return checkIP(toInt(ipAddress), filter);
+        }
+        return checkIP(toLong(ipAddress, 0), toLong(ipAddress, 8), filter);
+    }
+
+    public boolean checkIP(int ipv4Address, CountryFilter filter) {
+        return filter.test(getCountryId(ipv4Address));
+    }
+
+    public boolean checkIP(long ipv6High, long ipv6Low, CountryFilter filter) {
+        return filter.test(getCountryId(ipv6High, ipv6Low));
+    }
+
+    public boolean checkASN(String asn) {
+        if (asn == null) {
+            return false;
+        }
+        long start = startTiming();
+        boolean matches = this.dataset.getAsnChecker().checkIfMatches(asn);
+        stopTiming(LookupType.ASN, start);
+        return applyFilterPolicy(matches);
+    }
+
+    public boolean checkASN(long asn) {
+        long start = startTiming();
+        boolean matches = this.dataset.getAsnChecker().checkIfMatches(asn);
+        stopTiming(LookupType.ASN, start);
+        return applyFilterPolicy(matches);
+    }
+
+    public boolean checkASN(String asn, CountryFilter filter) {
+        long number = IPAddressParser.parseUnsigned(asn);
+        return number >= 0 && checkASN(number, filter);
+    }
+
+    public boolean checkASN(long asn, CountryFilter filter) {
+        if (asn < 0 || asn > 0xFFFFFFFFL) {
+            return false;
+        }
+        long start = startTiming();
+        short countryId = this.dataset.getAsnChecker().getIndex().getCountryId((int) asn);
+        stopTiming(LookupType.ASN, start);
+        return filter.test(countryId);
+    }
+
+    public String getASNCountryCode(String asn) {
+        long start = startTiming();
+        String countryCode = this.dataset.getAsnChecker().getCountryCode(asn);
+        stopTiming(LookupType.ASN, start);
+        return countryCode;
+    }
+
+    public String getASNCountryCode(long asn) {
+        long start = startTiming();
+        String countryCode = this.dataset.getAsnChecker().getCountryCode(asn);
+        stopTiming(LookupType.ASN, start);
+        return countryCode;
+    }
+
+    // the record an address belongs to: its country, registry, status, date and the range
+    // or prefix it was registered with, all from a single probe of the record index, which
+    // has to be enabled with Config.withRecordLookup. The result is a view owned by the
+    // calling thread that its next lookup overwrites, so looking up doesn't allocate; copy
+    // what has to outlive it, or pass a LookupResult of your own to the other overloads
+    public LookupResult lookup(String ipAddress) {
+        LookupResult result = LOOKUP_RESULT.get();
+        lookup(ipAddress, result);
+        return result;
+    }
+
+    public boolean lookup(String ipAddress, LookupResult result) {
+        long ipv4Address = IPAddressParser.parseIPv4(ipAddress);
+        if (ipv4Address >= 0) {
+            return lookup((int) ipv4Address, result);
+        }
+        long[] ipv6Address = PARSED_IPV6_ADDRESS.get();
+        if (IPAddressParser.parseIPv6(ipAddress, ipv6Address)) {
+            return lookup(ipv6Address[0], ipv6Address[1], result);
+        }
+        result.setNotFound(null);
+        return false;
+    }
+
+    public boolean lookup(int ipv4Address, LookupResult result) {
+        RIRRecordIndex index = getRecordIndex();
+        long start = startTiming();
+        boolean found = index.lookUpIPv4(ipv4Address, result);
+        stopTiming(LookupType.IPV4, start);
+        return found;
+    }
+
+    public boolean lookup(long ipv6High, long ipv6Low, LookupResult result) {
+        RIRRecordIndex index = getRecordIndex();
+        long start = startTiming();
+        boolean found = index.lookUpIPv6(ipv6High, ipv6Low, result);
+        stopTiming(LookupType.IPV6, start);
+        return found;
+    }
 
-        this.config = new Config(filterPolicy, includeIpv4LocalAddresses, includeIpv6LocalAddresses);
-        this.validator = new InetAddressValidator();
-        this.ipv4Checker = new IPv4Checker(this.validator);
-        this.ipv6Checker = new IPv6Checker(this.validator);
-        this.asnChecker = new ASNChecker();
-        downloadListUrl();
-        parseAllCountryCodes(listCountryCodeRules);
-        deleteFiles();
+    public LookupResult lookupASN(String asn) {
+        LookupResult result = LOOKUP_RESULT.get();
+        lookupASN(IPAddressParser.parseUnsigned(asn), result);
+        return result;
     }
 
-    public synchronized String getRIRCountryCode(String ipAddress) {
-        debugAction(ipAddress);
+    public boolean lookupASN(long asn, LookupResult result) {
+        RIRRecordIndex index = getRecordIndex();
+        if (asn < 0 || asn > 0xFFFFFFFFL) {
+            result.setNotFound(LookupType.ASN);
+            return false;
+        }
+        long start = startTiming();
+        boolean found = index.lookUpASN((int) asn, result);
+        stopTiming(LookupType.ASN, start);
+        return found;
+    }
 
-        return ofNullable(ipAddress)
-                .filter(validator::isValid)
-                .map(address -> this.ipv4Checker.checkIfIsInRange(address) ? ipv4Checker.getCountryCodeInRange(ipAddress) : ipv6Checker.getCountryCodeInRange(address))
-                .orElse("Unknown");
+    // batch lookups: the results are written to the given arrays at the same positions as
+    // the addresses, and every batch is resolved against a single dataset
+    public void getRIRCountryCodes(String[] ipAddresses, String[] countryCodes) {
+        checkLength(ipAddresses.length, countryCodes.length);
+        Arrays.fill(countryCodes, 0, ipAddresses.length, CountryCodes.UNKNOWN);
+        lookUp(this.dataset, ipAddresses, (i, found, countryId) -> countryCodes[i] = CountryCodes.toCode(countryId));
     }
 
-    public synchronized boolean checkIP(String ipAddress) {
-        debugAction(ipAddress);
+    public void getRIRCountryCodes(int[] ipv4Addresses, String[] countryCodes) {
+        checkLength(ipv4Addresses.length, countryCodes.length);
+        lookUpIPv4(this.dataset, ipv4Addresses, (i, found, countryId) -> countryCodes[i] = CountryCodes.toCode(countryId));
+    }
 
-        return ofNullable(ipAddress)
-                .filter(validator::isValid)
-                .map(address -> this.ipv4Checker.checkIfIsInRange(address) || this.ipv6Checker.checkIfIsInRange(address))
-                .map(checkResult -> (this.config.filterPolicy() == FilterPolicy.INCLUDE_COUNTRY_CODES) == checkResult)
-                .orElse(false);
+    // the ipv6 addresses are given as pairs of their high and low 64 bits
+    public void getRIRCountryCodes(long[] ipv6Addresses, String[] countryCodes) {
+        checkPairs(ipv6Addresses, countryCodes.length);
+        lookUpIPv6(this.dataset, ipv6Addresses, (i, found, countryId) -> countryCodes[i] = CountryCodes.toCode(countryId));
     }
 
-    public synchronized boolean checkASN(String asn) {
-        debugAction(asn);
+    public void checkIPs(String[] ipAddresses, boolean[] results) {
+        checkLength(ipAddresses.length, results.length);
+        Arrays.fill(results, 0, ipAddresses.length, false);
+        lookUp(this.dataset, ipAddresses, (i, found, countryId) -> results[i] = applyFilterPolicy(found));
+    }
 
-        return ofNullable(asn).map(this.asnChecker::checkIfMatches)
-                .map(checkResult -> (this.config.filterPolicy() == FilterPolicy.INCLUDE_COUNTRY_CODES) == checkResult)
-                .orElse(false);
+    public void checkIPs(int[] ipv4Addresses, boolean[] results) {
+        checkLength(ipv4Addresses.length, results.length);
+        lookUpIPv4(this.dataset, ipv4Addresses, (i, found, countryId) -> results[i] = applyFilterPolicy(found));
     }
 
-    private void parseAllCountryCodes(List<String> listCountryCode) {
+    public void checkIPs(long[] ipv6Addresses, boolean[] results) {
+        checkPairs(ipv6Addresses, results.length);
+        lookUpIPv6(this.dataset, ipv6Addresses, (i, found, countryId) -> results[i] = applyFilterPolicy(found));
+    }
 
-        ExecutorService parserPool = Executors.newFixedThreadPool(6);
-        this.listDownloadedFiles.forEach(file -> {
-            parserPool.submit(new RIRParser(this.ipv4Checker, this.ipv6Checker, this.asnChecker, file, listCountryCode));
+    public void checkIPs(String[] ipAddresses, CountryFilter filter, boolean[] results) {
+        checkLength(ipAddresses.length, results.length);
+        Arrays.fill(results, 0, ipAddresses.length, false);
+        lookUp(this.dataset, ipAddresses, (i, found, countryId) -> results[i] = filter.test(countryId));
+    }
+
+    public void checkIPs(int[] ipv4Addresses, CountryFilter filter, boolean[] results) {
+        checkLength(ipv4Addresses.length, results.length);
+        lookUpIPv4(this.dataset, ipv4Addresses, (i, found, countryId) -> results[i] = filter.test(countryId));
+    }
+
+    public void checkIPs(long[] ipv6Addresses, CountryFilter filter, boolean[] results) {
+        checkPairs(ipv6Addresses, results.length);
+        lookUpIPv6(this.dataset, ipv6Addresses, (i, found, countryId) -> results[i] = filter.test(countryId));
+    }
+
+    // the addresses the configured rules (or the given filter) let through, as the fewest CIDR
+    // blocks that cover exactly them, in ascending order, e.g. to fill ipset or nftables sets:
+    // for an exclude policy that's the complement of the excluded countries, including all
+    // the addresses that aren't registered. The whole address space is walked once, straight
+    // from the lookup indexes of the current dataset
+    public void forEachIPv4Cidr(RangeIndex.CidrConsumer consumer) {
+        this.dataset.getIpv4Checker().getIndex().forEachCidr(
+                countryId -> applyFilterPolicy(countryId != CountryCodes.UNKNOWN_ID), consumer);
+    }
+
+    public void forEachIPv4Cidr(CountryFilter filter, RangeIndex.CidrConsumer consumer) {
+        this.dataset.getIpv4Checker().getIndex().forEachCidr(countryId -> filter.test((short) countryId), consumer);
+    }
+
+    public void forEachIPv6Cidr(IPv6PrefixTrie.CidrConsumer consumer) {
+        this.dataset.getIpv6Checker().getTrie().forEachCidr(
+                countryId -> applyFilterPolicy(countryId != CountryCodes.UNKNOWN_ID), consumer);
+    }
+
+    public void forEachIPv6Cidr(CountryFilter filter, IPv6PrefixTrie.CidrConsumer consumer) {
+        this.dataset.getIpv6Checker().getTrie().forEachCidr(countryId -> filter.test((short) countryId), consumer);
+    }
+
+    // the same blocks as text, e.g. "8.8.8.0/24" and "2001:1620::/32"
+    public List<String> getIPv4Cidrs() {
+        List<String> cidrs = new ArrayList<>();
+        forEachIPv4Cidr((start, length) -> cidrs.add(toIPv4Cidr(start, length)));
+        return cidrs;
+    }
+
+    public List<String> getIPv4Cidrs(CountryFilter filter) {
+        List<String> cidrs = new ArrayList<>();
+        forEachIPv4Cidr(filter, (start, length) -> cidrs.add(toIPv4Cidr(start, length)));
+        return cidrs;
+    }
+
+    public List<String> getIPv6Cidrs() {
+        List<String> cidrs = new ArrayList<>();
+        forEachIPv6Cidr((high, low, length) -> cidrs.add(IPv6Address.fromLongs(high, low) + "/" + length));
+        return cidrs;
+    }
+
+    public List<String> getIPv6Cidrs(CountryFilter filter) {
+        List<String> cidrs = new ArrayList<>();
+        forEachIPv6Cidr(filter, (high, low, length) -> cidrs.add(IPv6Address.fromLongs(high, low) + "/" + length));
+        return cidrs;
+    }
+
+    // how well the lookup cache (see Config.withLookupCacheSize) does so far
+    public LookupCacheStats getLookupCacheStats() {
+        return this.cache != null ? this.cache.getStats() : LookupCacheStats.DISABLED;
+    }
+
+    // the RIR sources the lookups don't have the records of yet, see createAsync
+    public Set<String> getMissingRIRSources() {
+        return this.dataset.getMissingSources();
+    }
+
+    // completes (with this instance) once the records of every RIR source are loaded, which
+    // is right away unless the instance was created with createAsync and some RIR files failed
+    public CompletableFuture<Ip2Asn2Cc> whenFullyLoaded() {
+        return this.fullyLoaded.thenApply(ignored -> this);
+    }
+
+    RIRDataset getDataset() {
+        return this.dataset;
+    }
+
+    // builds a complete new dataset off the lookup path and only then swaps it in,
+    // so lookups never block and never see a partially built index
+    void reload() throws RIRNotDownloadedException {
+        synchronized (this.reloadLock) {
+            publish(this.loader.load());
+        }
+    }
+
+    private void publish(RIRDataset reloaded) {
+        this.dataset = reloaded;
+        recordDataset(reloaded);
+        LOG.debug("Reloaded RIR dataset, generation {}", reloaded.getGeneration());
+        if (reloaded.isComplete()) {
+            this.fullyLoaded.complete(null);
+        }
+    }
+
+    private void scheduleRetry(long backoffNanos) {
+        RETRY_SCHEDULER.schedule(() -> LOADER_EXECUTOR.execute(() -> retryMissingSources(backoffNanos)),
+                backoffNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void retryMissingSources(long backoffNanos) {
+        synchronized (this.reloadLock) {
+            if (this.dataset.isComplete()) {
+                // a reload got them in the meantime
+                return;
+            }
+            try {
+                // the RIR files loaded already aren't downloaded again unless they changed
+                publish(this.loader.load(true));
+            } catch (RIRNotDownloadedException | RuntimeException e) {
+                LOG.error("Unable to load the missing RIR files {}.", this.dataset.getMissingSources(), e);
+            }
+            if (!this.dataset.isComplete()) {
+                long nextBackoffNanos = Math.min(2 * backoffNanos,
+                        Config.MAX_RETRY_BACKOFF_FACTOR * this.config.retryBackoff().toNanos());
+                LOG.warn("Still missing the RIR files {}, retrying in {} ms.", this.dataset.getMissingSources(),
+                        TimeUnit.NANOSECONDS.toMillis(nextBackoffNanos));
+                scheduleRetry(nextBackoffNanos);
+            }
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor newRetryScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "ip2asn2cc-retry");
+            thread.setDaemon(true);
+            return thread;
         });
+        scheduler.setKeepAliveTime(1, TimeUnit.MINUTES);
+        scheduler.allowCoreThreadTimeOut(true);
+        return scheduler;
+    }
+
+    private RIRRecordIndex getRecordIndex() {
+        RIRRecordIndex index = this.dataset.getRecordIndex();
+        if (index == null) {
+            throw new IllegalStateException("The record lookups have to be enabled with Config.withRecordLookup.");
+        }
+        return index;
+    }
+
+    private void recordDataset(RIRDataset data) {
+        RangeIndex ipv4Index = data.getIpv4Checker().getIndex();
+        IPv6PrefixTrie ipv6Trie = data.getIpv6Checker().getTrie();
+        RangeIndex asnIndex = data.getAsnChecker().getIndex();
+        this.metrics.recordDataset(data.getGeneration(), data.getLoadedAt(), ipv4Index.size(), ipv6Trie.size(),
+                asnIndex.size(), (long) ipv4Index.serializedSize() + ipv6Trie.serializedSize() + asnIndex.serializedSize());
+    }
+
+    private long startTiming() {
+        return this.timed ? System.nanoTime() : 0;
+    }
+
+    private void stopTiming(LookupType type, long start) {
+        if (this.timed) {
+            this.metrics.recordLookup(type, System.nanoTime() - start);
+        }
+    }
+
+    private void stopTiming(LookupType type, int count, long start) {
+        if (this.timed && count > 0) {
+            this.metrics.recordLookups(type, count, System.nanoTime() - start);
+        }
+    }
 
-        parserPool.shutdown();
+    // the single address lookups go through the cache when there's one; the results are
+    // cached per dataset generation, so a reload makes all the cached results stale
+    private short getCountryId(int ipv4Address) {
+        long start = startTiming();
+        short countryId = findCountryId(ipv4Address);
+        stopTiming(LookupType.IPV4, start);
+        return countryId;
+    }
+
+    private short getCountryId(long ipv6High, long ipv6Low) {
+        long start = startTiming();
+        short countryId = findCountryId(ipv6High, ipv6Low);
+        stopTiming(LookupType.IPV6, start);
+        return countryId;
+    }
 
-        try {
-            parserPool.awaitTermination(5, TimeUnit.MINUTES);
-        } catch (InterruptedException e) {
-            LOG.error("The pool to parse the RIR files was interrupted before termination.", e);
-            Thread.currentThread().interrupt();
+    private short findCountryId(int ipv4Address) {
+        RIRDataset data = this.dataset;
+        if (this.cache == null) {
+            return data.getIpv4Checker().getIndex().getCountryId(ipv4Address);
         }
+        int cached = this.cache.get(data.getGeneration(), true, 0, ipv4Address);
+        if (cached != LookupCache.NOT_CACHED) {
+            return (short) cached;
+        }
+        short countryId = data.getIpv4Checker().getIndex().getCountryId(ipv4Address);
+        this.cache.put(data.getGeneration(), true, 0, ipv4Address, countryId);
+        return countryId;
+    }
 
-        if (this.config.includeIpv4LocalAddresses()) {
-            // add local addresses as well:
-            // 127.0.0.0/8 defined in https://tools.ietf.org/html/rfc3330
-            IPv4Subnet localhostIPv4 = new IPv4Subnet("127.0.0.0", 16777214, "US");
-            ipv4Checker.addSubnet(localhostIPv4);
+    private short findCountryId(long ipv6High, long ipv6Low) {
+        RIRDataset data = this.dataset;
+        if (this.cache == null) {
+            return data.getIpv6Checker().getTrie().getCountryId(ipv6High, ipv6Low);
         }
+        int cached = this.cache.get(data.getGeneration(), false, ipv6High, ipv6Low);
+        if (cached != LookupCache.NOT_CACHED) {
+            return (short) cached;
+        }
+        short countryId = data.getIpv6Checker().getTrie().getCountryId(ipv6High, ipv6Low);
+        this.cache.put(data.getGeneration(), false, ipv6High, ipv6Low, countryId);
+        return countryId;
+    }
 
-        if (this.config.includeIpv6LocalAddresses()) {
-            // ::1/128 defined in https://tools.ietf.org/html/rfc4291
-            IPv6Subnet localhostIPv6 = new IPv6Subnet("0:0:0:0:0:0:0:1", 128, "US");
-            ipv6Checker.addSubnet(localhostIPv6);
+    private void lookUp(RIRDataset data, String[] ipAddresses, BatchResult result) {
+        // split the addresses by family, so each index gets one sorted batch;
+        // invalid addresses are skipped and keep the result the caller filled in
+        int[] ipv4Addresses = new int[ipAddresses.length];
+        int[] ipv4Positions = new int[ipAddresses.length];
+        long[] ipv6Addresses = new long[ipAddresses.length * 2];
+        int[] ipv6Positions = new int[ipAddresses.length];
+        long[] ipv6Address = new long[2];
+        int ipv4Count = 0;
+        int ipv6Count = 0;
+        for (int i = 0; i < ipAddresses.length; i++) {
+            long ipv4Address = IPAddressParser.parseIPv4(ipAddresses[i]);
+            if (ipv4Address >= 0) {
+                ipv4Addresses[ipv4Count] = (int) ipv4Address;
+                ipv4Positions[ipv4Count++] = i;
+            } else if (IPAddressParser.parseIPv6(ipAddresses[i], ipv6Address)) {
+                ipv6Addresses[2 * ipv6Count] = ipv6Address[0];
+                ipv6Addresses[2 * ipv6Count + 1] = ipv6Address[1];
+                ipv6Positions[ipv6Count++] = i;
+            }
         }
+        lookUpIPv4(data, Arrays.copyOf(ipv4Addresses, ipv4Count),
+                (i, found, countryId) -> result.set(ipv4Positions[i], found, countryId));
+        lookUpIPv6(data, Arrays.copyOf(ipv6Addresses, ipv6Count * 2),
+                (i, found, countryId) -> result.set(ipv6Positions[i], found, countryId));
+    }
 
-        LOG.debug("Parsed all RIR files");
+    private void lookUpIPv4(RIRDataset data, int[] ipv4Addresses, BatchResult result) {
+        long start = startTiming();
+        RangeIndex index = data.getIpv4Checker().getIndex();
+        int[] indexes = new int[ipv4Addresses.length];
+        index.indexesOf(ipv4Addresses, indexes);
+        for (int i = 0; i < indexes.length; i++) {
+            int found = indexes[i];
+            result.set(i, found >= 0, found >= 0 ? index.getCountryIdAt(found) : CountryCodes.UNKNOWN_ID);
+        }
+        stopTiming(LookupType.IPV4, ipv4Addresses.length, start);
     }
 
-    private void downloadListUrl() throws RIRNotDownloadedException {
-        ExecutorService downloadRIRPool = Executors.newFixedThreadPool(6);
+    private void lookUpIPv6(RIRDataset data, long[] ipv6Addresses, BatchResult result) {
+        long start = startTiming();
+        IPv6PrefixTrie trie = data.getIpv6Checker().getTrie();
+        int[] indexes = new int[ipv6Addresses.length / 2];
+        trie.indexesOf(ipv6Addresses, indexes);
+        for (int i = 0; i < indexes.length; i++) {
+            int found = indexes[i];
+            result.set(i, found >= 0, found >= 0 ? trie.getCountryIdAt(found) : CountryCodes.UNKNOWN_ID);
+        }
+        stopTiming(LookupType.IPV6, ipv6Addresses.length / 2, start);
+    }
 
-        for (String urlString : listAllRIR) {
-            downloadRIRPool.submit(new RIRDownloader(this.listDownloadedFiles, urlString));
+    private static int checkAddressLength(byte[] ipAddress) {
+        if (ipAddress.length != 4 && ipAddress.length != 16) {
+            throw new IllegalArgumentException("An IP address has either 4 or 16 bytes, not " + ipAddress.length + ".");
         }
+        return ipAddress.length;
+    }
 
-        downloadRIRPool.shutdown();
+    private static int toInt(byte[] bytes) {
+        return (bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | (bytes[3] & 0xFF);
+    }
 
-        try {
-            downloadRIRPool.awaitTermination(5, TimeUnit.MINUTES);
-        } catch (InterruptedException e) {
-            LOG.error("The pool to download the RIR files was interrupted before termination.", e);
-            Thread.currentThread().interrupt();
+    private static long toLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
         }
+        return value;
+    }
 
-        if (this.listDownloadedFiles.size() != listAllRIR.size()) {
-            throw new RIRNotDownloadedException("Just " + this.listDownloadedFiles.size() +
-                    " RIR databases were downloaded out of " + listAllRIR.size() + ".");
+    private static void checkLength(int addresses, int results) {
+        if (results < addresses) {
+            throw new IllegalArgumentException("The results array is shorter than the amount of addresses.");
         }
     }
 
-    private void deleteFiles() {
-        try {
-            this.listDownloadedFiles.forEach(f -> {
-                try {
-                    Files.delete(f.toPath());
-                } catch (IOException e) {
-                    LOG.error("Unable to delete file {}", f.getAbsolutePath(), f);
-                }
-            });
-            LOG.debug("Deleted temp files.");
-        } catch (Exception e) {
-            LOG.error("Problem deleting temp files.");
+    // the ipv6 addresses come as high/low pairs, so an odd length means a half address
+    private static void checkPairs(long[] ipv6Addresses, int results) {
+        if ((ipv6Addresses.length & 1) != 0) {
+            throw new IllegalArgumentException("The ipv6 addresses must be pairs of high and low bits.");
         }
+        checkLength(ipv6Addresses.length / 2, results);
+    }
+
+    private static String toIPv4Cidr(int start, int length) {
+        return LookupResult.toIPv4String(start & 0xFFFFFFFFL) + "/" + length;
+    }
+
+    private boolean applyFilterPolicy(boolean checkResult) {
+        return (this.config.filterPolicy() == FilterPolicy.INCLUDE_COUNTRY_CODES) == checkResult;
     }
 
-    private void debugAction(String action) {
-        LOG.debug("Check for: {}", action);
+    private interface BatchResult {
+
+        void set(int position, boolean found, short countryId);
+
     }
 
 }
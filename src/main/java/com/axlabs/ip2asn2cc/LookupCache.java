@@ -0,0 +1,115 @@
+package com.axlabs.ip2asn2cc;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+final class LookupCache {
+
+    static final int NOT_CACHED = Integer.MIN_VALUE;
+
+    // the cache is set-associative: an address can only be stored in the WAYS slots of the
+    // set its hash points to, so a lookup reads at most WAYS slots and never locks. When a
+    // set is full, the clock (second chance) algorithm picks the entry to evict: every hit
+    // marks its entry, and the hand of the set clears the marks until it finds an entry
+    // that wasn't hit since the hand passed it the last time.
+    private static final int WAYS = 8;
+
+    private final AtomicReferenceArray<Entry> table;
+    // updated without synchronization: a lost update only moves the hand less far
+    private final int[] hands;
+    private final int setMask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    LookupCache(int capacity) {
+        int sets = Integer.highestOneBit(Math.max((capacity + WAYS - 1) / WAYS, 1));
+        if (sets * WAYS < capacity) {
+            sets <<= 1;
+        }
+        this.table = new AtomicReferenceArray<>(sets * WAYS);
+        this.hands = new int[sets];
+        this.setMask = sets - 1;
+    }
+
+    // the country id cached for the address, or NOT_CACHED; entries of any other dataset
+    // generation than the given one are never returned, so a reload invalidates them all
+    int get(long generation, boolean ipv4, long high, long low) {
+        int base = setOf(ipv4, high, low) * WAYS;
+        for (int i = 0; i < WAYS; i++) {
+            Entry entry = this.table.get(base + i);
+            if (entry != null && entry.matches(generation, ipv4, high, low)) {
+                if (!entry.referenced) {
+                    entry.referenced = true;
+                }
+                this.hits.increment();
+                return entry.countryId;
+            }
+        }
+        this.misses.increment();
+        return NOT_CACHED;
+    }
+
+    void put(long generation, boolean ipv4, long high, long low, short countryId) {
+        int set = setOf(ipv4, high, low);
+        int base = set * WAYS;
+        // a free slot, or one of an older generation, doesn't need an eviction
+        for (int i = 0; i < WAYS; i++) {
+            Entry current = this.table.get(base + i);
+            if (current != null && current.matches(generation, ipv4, high, low)) {
+                return;
+            }
+            if ((current == null || current.generation != generation)
+                    && this.table.compareAndSet(base + i, current, new Entry(generation, ipv4, high, low, countryId))) {
+                return;
+            }
+        }
+        int hand = this.hands[set];
+        for (int n = 0; n < 2 * WAYS; n++) {
+            int way = (hand + n) & (WAYS - 1);
+            Entry current = this.table.get(base + way);
+            if (current.referenced) {
+                current.referenced = false;
+            } else if (this.table.compareAndSet(base + way, current, new Entry(generation, ipv4, high, low, countryId))) {
+                this.hands[set] = (way + 1) & (WAYS - 1);
+                this.evictions.increment();
+                return;
+            }
+        }
+        // every slot changed under our feet, the address simply isn't cached this time
+    }
+
+    LookupCacheStats getStats() {
+        return new LookupCacheStats(this.table.length(), this.hits.sum(), this.misses.sum(), this.evictions.sum());
+    }
+
+    private int setOf(boolean ipv4, long high, long low) {
+        long hash = (high * 0x9E3779B97F4A7C15L) ^ low ^ (ipv4 ? 0x5DEECE66DL : 0);
+        hash *= 0xC2B2AE3D27D4EB4FL;
+        return (int) (hash ^ (hash >>> 32)) & this.setMask;
+    }
+
+    private static final class Entry {
+
+        private final long generation;
+        private final boolean ipv4;
+        private final long high;
+        private final long low;
+        private final short countryId;
+        private volatile boolean referenced;
+
+        private Entry(long generation, boolean ipv4, long high, long low, short countryId) {
+            this.generation = generation;
+            this.ipv4 = ipv4;
+            this.high = high;
+            this.low = low;
+            this.countryId = countryId;
+        }
+
+        private boolean matches(long generation, boolean ipv4, long high, long low) {
+            return this.low == low && this.high == high && this.ipv4 == ipv4 && this.generation == generation;
+        }
+
+    }
+
+}
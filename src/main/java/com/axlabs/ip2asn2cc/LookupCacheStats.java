@@ -0,0 +1,47 @@
+package com.axlabs.ip2asn2cc;
+
+public final class LookupCacheStats {
+
+    static final LookupCacheStats DISABLED = new LookupCacheStats(0, 0, 0, 0);
+
+    private final int capacity;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    LookupCacheStats(int capacity, long hits, long misses, long evictions) {
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    // the amount of addresses the cache can hold, 0 when it's disabled
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "LookupCacheStats{capacity=" + capacity + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + "}";
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.axlabs.ip2asn2cc;
+
+import com.axlabs.ip2asn2cc.metrics.LookupType;
+import com.axlabs.ip2asn2cc.model.CountryCodes;
+import com.axlabs.ip2asn2cc.model.RecordStatus;
+import com.axlabs.ip2asn2cc.model.Registry;
+import com.googlecode.ipv6.IPv6Address;
+
+public final class LookupResult {
+
+    // a mutable view of the record a lookup matched, filled in place by every lookup so
+    // that looking up doesn't allocate: one instance can be reused for any amount of
+    // lookups, but it's not thread safe and only holds the result of the last one
+    private LookupType type;
+    private boolean found;
+    private short countryId = CountryCodes.UNKNOWN_ID;
+    private byte registry = Registry.UNKNOWN_ID;
+    private byte status = RecordStatus.UNKNOWN_ID;
+    private int date;
+    private long rangeStart;
+    private long rangeEnd;
+    private long prefixHigh;
+    private long prefixLow;
+    private int prefixLength;
+
+    // what was looked up, null when the address wasn't valid
+    public LookupType getType() {
+        return type;
+    }
+
+    public boolean isFound() {
+        return found;
+    }
+
+    public short getCountryId() {
+        return countryId;
+    }
+
+    public String getCountryCode() {
+        return CountryCodes.toCode(countryId);
+    }
+
+    // null when the record isn't from a RIR file, e.g. a local address
+    public Registry getRegistry() {
+        return Registry.fromId(registry);
+    }
+
+    public RecordStatus getStatus() {
+        return RecordStatus.fromId(status);
+    }
+
+    // the date of the record as yyyymmdd, 0 when it has none
+    public int getDate() {
+        return date;
+    }
+
+    // the first and last address (or ASN) of the matched ipv4 or asn record, as unsigned values
+    public long getRangeStart() {
+        return rangeStart;
+    }
+
+    public long getRangeEnd() {
+        return rangeEnd;
+    }
+
+    // the prefix of the matched ipv6 record
+    public long getPrefixHigh() {
+        return prefixHigh;
+    }
+
+    public long getPrefixLow() {
+        return prefixLow;
+    }
+
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    void setNotFound(LookupType type) {
+        this.type = type;
+        this.found = false;
+        this.countryId = CountryCodes.UNKNOWN_ID;
+        this.registry = Registry.UNKNOWN_ID;
+        this.status = RecordStatus.UNKNOWN_ID;
+        this.date = 0;
+        this.rangeStart = 0;
+        this.rangeEnd = 0;
+        this.prefixHigh = 0;
+        this.prefixLow = 0;
+        this.prefixLength = 0;
+    }
+
+    void setRange(LookupType type, short countryId, byte registry, byte status, int date, int start, int end) {
+        setNotFound(type);
+        this.found = true;
+        this.countryId = countryId;
+        this.registry = registry;
+        this.status = status;
+        this.date = date;
+        this.rangeStart = start & 0xFFFFFFFFL;
+        this.rangeEnd = end & 0xFFFFFFFFL;
+    }
+
+    void setPrefix(short countryId, byte registry, byte status, int date, long high, long low, int length) {
+        setNotFound(LookupType.IPV6);
+        this.found = true;
+        this.countryId = countryId;
+        this.registry = registry;
+        this.status = status;
+        this.date = date;
+        this.prefixHigh = high;
+        this.prefixLow = low;
+        this.prefixLength = length;
+    }
+
+    @Override
+    public String toString() {
+        if (!found) {
+            return "LookupResult{type=" + type + ", found=false}";
+        }
+        String match;
+        if (type == LookupType.IPV6) {
+            match = "prefix=" + IPv6Address.fromLongs(prefixHigh, prefixLow) + "/" + prefixLength;
+        } else if (type == LookupType.IPV4) {
+            match = "range=" + toIPv4String(rangeStart) + "-" + toIPv4String(rangeEnd);
+        } else {
+            match = "range=" + rangeStart + "-" + rangeEnd;
+        }
+        return "LookupResult{type=" + type + ", country=" + getCountryCode() + ", registry=" + getRegistry()
+                + ", status=" + getStatus() + ", date=" + date + ", " + match + "}";
+    }
+
+    static String toIPv4String(long address) {
+        return (address >>> 24) + "." + ((address >>> 16) & 0xFF) + "." + ((address >>> 8) & 0xFF) + "." + (address & 0xFF);
+    }
+
+}
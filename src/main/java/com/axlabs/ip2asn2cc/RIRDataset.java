@@ -0,0 +1,99 @@
+package com.axlabs.ip2asn2cc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.axlabs.ip2asn2cc.checker.ASNChecker;
+import com.axlabs.ip2asn2cc.checker.IPv4Checker;
+import com.axlabs.ip2asn2cc.checker.IPv6Checker;
+
+public final class RIRDataset {
+
+    // the parsed RIR data with all the indexes already built: it's never modified after
+    // construction, so it can be shared between any amount of threads without locking
+    private final IPv4Checker ipv4Checker;
+    private final IPv6Checker ipv6Checker;
+    private final ASNChecker asnChecker;
+    private final long generation;
+    private final Instant loadedAt;
+    private final Map<String, Duration> stageTimings;
+    // null unless the record lookups are enabled, see Config.withRecordLookup
+    private final RIRRecordIndex recordIndex;
+    // the RIR sources that couldn't be loaded into this dataset, see Ip2Asn2Cc.createAsync
+    private final Set<String> missingSources;
+
+    public RIRDataset(IPv4Checker ipv4Checker, IPv6Checker ipv6Checker, ASNChecker asnChecker,
+                      long generation, Instant loadedAt) {
+        this(ipv4Checker, ipv6Checker, asnChecker, generation, loadedAt, Map.of());
+    }
+
+    public RIRDataset(IPv4Checker ipv4Checker, IPv6Checker ipv6Checker, ASNChecker asnChecker,
+                      long generation, Instant loadedAt, Map<String, Duration> stageTimings) {
+        this(ipv4Checker, ipv6Checker, asnChecker, generation, loadedAt, stageTimings, null);
+    }
+
+    RIRDataset(IPv4Checker ipv4Checker, IPv6Checker ipv6Checker, ASNChecker asnChecker,
+               long generation, Instant loadedAt, Map<String, Duration> stageTimings, RIRRecordIndex recordIndex) {
+        this(ipv4Checker, ipv6Checker, asnChecker, generation, loadedAt, stageTimings, recordIndex, Set.of());
+    }
+
+    RIRDataset(IPv4Checker ipv4Checker, IPv6Checker ipv6Checker, ASNChecker asnChecker,
+               long generation, Instant loadedAt, Map<String, Duration> stageTimings, RIRRecordIndex recordIndex,
+               Set<String> missingSources) {
+        ipv4Checker.buildIndex();
+        ipv6Checker.buildIndex();
+        asnChecker.buildIndex();
+        this.ipv4Checker = ipv4Checker;
+        this.ipv6Checker = ipv6Checker;
+        this.asnChecker = asnChecker;
+        this.generation = generation;
+        this.loadedAt = loadedAt;
+        this.stageTimings = Collections.unmodifiableMap(new LinkedHashMap<>(stageTimings));
+        this.recordIndex = recordIndex;
+        this.missingSources = Collections.unmodifiableSet(new LinkedHashSet<>(missingSources));
+    }
+
+    public IPv4Checker getIpv4Checker() {
+        return ipv4Checker;
+    }
+
+    public IPv6Checker getIpv6Checker() {
+        return ipv6Checker;
+    }
+
+    public ASNChecker getAsnChecker() {
+        return asnChecker;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    // how long each stage of the load that produced this dataset took, by stage name
+    public Map<String, Duration> getStageTimings() {
+        return stageTimings;
+    }
+
+    // the names of the RIR sources whose records aren't in this dataset, empty when it's complete
+    public Set<String> getMissingSources() {
+        return missingSources;
+    }
+
+    public boolean isComplete() {
+        return missingSources.isEmpty();
+    }
+
+    RIRRecordIndex getRecordIndex() {
+        return recordIndex;
+    }
+
+}
@@ -0,0 +1,514 @@
+package com.axlabs.ip2asn2cc;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.validator.routines.InetAddressValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.axlabs.ip2asn2cc.checker.ASNChecker;
+import com.axlabs.ip2asn2cc.checker.IPv4Checker;
+import com.axlabs.ip2asn2cc.checker.IPv6Checker;
+import com.axlabs.ip2asn2cc.exception.RIRLoadTimeoutException;
+import com.axlabs.ip2asn2cc.exception.RIRNotDownloadedException;
+import com.axlabs.ip2asn2cc.model.CountryCodes;
+import com.axlabs.ip2asn2cc.model.IPv4Subnet;
+import com.axlabs.ip2asn2cc.model.IPv6Subnet;
+import com.axlabs.ip2asn2cc.model.RecordStatus;
+import com.axlabs.ip2asn2cc.model.Registry;
+import com.axlabs.ip2asn2cc.rir.RIRDownloader;
+import com.axlabs.ip2asn2cc.rir.RIRFileVersion;
+import com.axlabs.ip2asn2cc.rir.RIRRecords;
+import com.axlabs.ip2asn2cc.rir.RIRSource;
+import com.axlabs.ip2asn2cc.rir.UrlRIRSource;
+
+class RIRLoader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RIRLoader.class);
+
+    // The following RIR DBs have the format described here:
+    // https://www.apnic.net/about-APNIC/corporate-documents/documents/resource-guidelines/rir-statistics-exchange-format
+    private static final String ARIN_RIR_DB_URL = "ftp://ftp.arin.net/pub/stats/arin/delegated-arin-extended-latest";
+    private static final String RIPE_RIR_DB_URL = "ftp://ftp.ripe.net/ripe/stats/delegated-ripencc-latest";
+    private static final String AFRINIC_RIR_DB_URL = "ftp://ftp.afrinic.net/pub/stats/afrinic/delegated-afrinic-latest";
+    private static final String APNIC_RIR_DB_URL = "ftp://ftp.apnic.net/pub/stats/apnic/delegated-apnic-latest";
+    private static final String LACNIC_RIR_DB_URL = "ftp://ftp.lacnic.net/pub/stats/lacnic/delegated-lacnic-latest";
+
+    private static final List<RIRSource> listAllRIR = Arrays.asList(
+            new UrlRIRSource(ARIN_RIR_DB_URL), new UrlRIRSource(RIPE_RIR_DB_URL),
+            new UrlRIRSource(AFRINIC_RIR_DB_URL), new UrlRIRSource(APNIC_RIR_DB_URL),
+            new UrlRIRSource(LACNIC_RIR_DB_URL));
+
+    private final InetAddressValidator validator = new InetAddressValidator();
+    private final AtomicLong generation = new AtomicLong();
+    private final List<String> listCountryCodeRules;
+    private final Config config;
+    private final List<RIRSource> listRIRSources;
+    // the version of every RIR file of the last load, so the next load can skip the unchanged
+    // ones, and their parsed records when Config.keepParsedFiles is set (null otherwise)
+    private volatile Map<String, LoadedRIRFile> loadedFiles = Map.of();
+    private volatile RIRDataset lastDataset;
+
+    // the RIR files are read from the sources in the config, or from the FTP servers
+    // of the registries when there are none
+    RIRLoader(List<String> listCountryCodeRules, Config config) {
+        this.listCountryCodeRules = List.copyOf(listCountryCodeRules);
+        this.config = config;
+        this.listRIRSources = config.sources() != null ? config.sources() : listAllRIR;
+    }
+
+    // on startup the snapshot file is preferred, the RIR files are only downloaded
+    // when there's no usable snapshot, or when the record lookups need the records
+    // that the snapshot doesn't have
+    RIRDataset loadInitial() throws RIRNotDownloadedException {
+        return loadInitial(false);
+    }
+
+    RIRDataset loadInitial(boolean partial) throws RIRNotDownloadedException {
+        Path snapshotPath = this.config.snapshotPath();
+        if (snapshotPath != null && Files.isRegularFile(snapshotPath) && !this.config.recordLookup()) {
+            try {
+                RIRDataset dataset = RIRSnapshotFile.read(snapshotPath, this.listCountryCodeRules, this.config,
+                        this::nextGeneration);
+                LOG.debug("Loaded RIR snapshot ({}) created at {}", snapshotPath, dataset.getLoadedAt());
+                return dataset;
+            } catch (IOException e) {
+                LOG.warn("Unable to load the RIR snapshot ({}), downloading the RIR files instead.", snapshotPath, e);
+            }
+        }
+        return partial ? load(true) : load();
+    }
+
+    RIRDataset load() throws RIRNotDownloadedException {
+        return load(false);
+    }
+
+    // downloads and parses the RIR files into a new dataset, without touching any dataset
+    // that is currently being used for lookups; when none of the RIR files changed since
+    // the last load, the dataset of that load is returned as is. A partial load doesn't
+    // fail when some of the RIR files fail: it keeps what the last load got from them, or
+    // leaves them out of the dataset (see RIRDataset.getMissingSources) when there's nothing
+    RIRDataset load(boolean partial) throws RIRNotDownloadedException {
+        RIRDataset dataset = downloadAndParseAll(partial);
+        if (dataset == null) {
+            LOG.info("None of the RIR files changed, keeping generation {}.", this.lastDataset.getGeneration());
+            return this.lastDataset;
+        }
+        if (saveSnapshot(dataset) && this.config.offHeapIndex()) {
+            // swap the freshly parsed heap indexes for the mapped file just written
+            try {
+                RIRDataset mapped = RIRSnapshotFile.read(this.config.snapshotPath(), this.listCountryCodeRules,
+                        this.config, dataset::getGeneration);
+                dataset = new RIRDataset(mapped.getIpv4Checker(), mapped.getIpv6Checker(), mapped.getAsnChecker(),
+                        mapped.getGeneration(), mapped.getLoadedAt(), dataset.getStageTimings(),
+                        dataset.getRecordIndex());
+            } catch (IOException e) {
+                LOG.error("Unable to map the RIR snapshot ({}), keeping the index on the heap.",
+                        this.config.snapshotPath(), e);
+            }
+        }
+        this.lastDataset = dataset;
+        return dataset;
+    }
+
+    long nextGeneration() {
+        return this.generation.incrementAndGet();
+    }
+
+    private boolean saveSnapshot(RIRDataset dataset) {
+        Path snapshotPath = this.config.snapshotPath();
+        if (snapshotPath == null) {
+            if (this.config.offHeapIndex()) {
+                LOG.warn("The off-heap index needs a snapshot path, keeping the index on the heap.");
+            }
+            return false;
+        }
+        if (!dataset.isComplete()) {
+            // the next startup would take the snapshot for the whole data
+            LOG.warn("Not saving the RIR snapshot ({}) without {}.", snapshotPath, dataset.getMissingSources());
+            return false;
+        }
+        try {
+            RIRSnapshotFile.write(snapshotPath, dataset, this.listCountryCodeRules, this.config);
+            LOG.debug("Saved RIR snapshot ({})", snapshotPath);
+            return true;
+        } catch (IOException e) {
+            LOG.error("Unable to save the RIR snapshot ({}).", snapshotPath, e);
+            return false;
+        }
+    }
+
+    // the load is a pipeline: every RIR file is downloaded on its own thread and cut into
+    // chunks that are parsed in parallel on a fork/join pool while the download goes on;
+    // the chunks are then merged into the checkers and the indexes are built in parallel.
+    // All the stages share one deadline, and the load fails as soon as any of them fails
+    // (a partial load only fails when none of the RIR files could be loaded).
+    // Returns null when none of the RIR files changed since the last load.
+    private RIRDataset downloadAndParseAll(boolean partial) throws RIRNotDownloadedException {
+        long loadStart = System.nanoTime();
+        long deadline = loadStart + this.config.loadTimeout().toNanos();
+        Map<String, Duration> stageTimings = new LinkedHashMap<>();
+        ForkJoinPool parsePool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        ExecutorService downloadPool = Executors.newFixedThreadPool(this.listRIRSources.size(), runnable -> {
+            Thread thread = new Thread(runnable, "ip2asn2cc-download");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<String, LoadedRIRFile> previousFiles = this.loadedFiles;
+            List<String> names = new ArrayList<>();
+            List<CompletableFuture<LoadedRIRFile>> downloads = new ArrayList<>();
+            for (RIRSource source : this.listRIRSources) {
+                LoadedRIRFile previous = previousFiles.get(source.getName());
+                names.add(source.getName());
+                downloads.add(submit(source, () -> downloadIfChanged(source, previous, parsePool), downloadPool));
+            }
+            List<LoadedRIRFile> downloaded = partial ? awaitAvailable(names, downloads, deadline)
+                    : awaitAll("download and parse", names, downloads, deadline);
+
+            List<RIRSource> fileSources = new ArrayList<>();
+            List<LoadedRIRFile> files = new ArrayList<>();
+            Set<String> missingSources = new LinkedHashSet<>();
+            int changedFiles = 0;
+            for (int i = 0; i < downloaded.size(); i++) {
+                LoadedRIRFile previous = previousFiles.get(names.get(i));
+                LoadedRIRFile file = downloaded.get(i);
+                if (file == null && previous != null && previous.records() != null) {
+                    file = previous;
+                }
+                if (file == null) {
+                    missingSources.add(names.get(i));
+                    continue;
+                }
+                fileSources.add(this.listRIRSources.get(i));
+                files.add(file);
+                if (file != previous) {
+                    changedFiles++;
+                }
+            }
+            if (files.isEmpty()) {
+                throw new RIRNotDownloadedException("None of the RIR files could be loaded: " + missingSources);
+            }
+            if (changedFiles == 0 && this.lastDataset != null
+                    && missingSources.equals(this.lastDataset.getMissingSources())) {
+                return null;
+            }
+            rereadUnchangedFiles(fileSources, files, missingSources, partial, parsePool, downloadPool, deadline);
+            if (files.isEmpty()) {
+                throw new RIRNotDownloadedException("None of the RIR files could be loaded: " + missingSources);
+            }
+            recordStage(stageTimings, "download and parse", loadStart);
+
+            // every family is merged by a single thread of its own, adding the chunks in file
+            // order a whole column at a time, so the merge never contends and scales with the
+            // families rather than being bound to one thread
+            long mergeStart = System.nanoTime();
+            IPv4Checker ipv4Checker = new IPv4Checker(this.validator);
+            IPv6Checker ipv6Checker = new IPv6Checker(this.validator);
+            ASNChecker asnChecker = new ASNChecker();
+            RIRRecords allRecords = this.config.recordLookup() ? new RIRRecords() : null;
+            List<RIRRecords> chunks = new ArrayList<>();
+            Map<String, LoadedRIRFile> nextFiles = new HashMap<>();
+            boolean keepRecords = this.config.keepParsedFiles() && !this.config.offHeapIndex();
+            for (int i = 0; i < files.size(); i++) {
+                LoadedRIRFile file = files.get(i);
+                chunks.addAll(file.records());
+                nextFiles.put(fileSources.get(i).getName(), keepRecords ? file : new LoadedRIRFile(file.version(), null));
+            }
+            List<String> families = new ArrayList<>(List.of("ipv4", "ipv6", "asn"));
+            List<CompletableFuture<Void>> merges = new ArrayList<>(List.of(
+                    CompletableFuture.runAsync(() -> chunks.forEach(records -> records.addIPv4To(ipv4Checker)), parsePool),
+                    CompletableFuture.runAsync(() -> chunks.forEach(records -> records.addIPv6To(ipv6Checker)), parsePool),
+                    CompletableFuture.runAsync(() -> chunks.forEach(records -> records.addASNTo(asnChecker)), parsePool)));
+            if (allRecords != null) {
+                families.add("records");
+                merges.add(CompletableFuture.runAsync(() -> chunks.forEach(allRecords::addAll), parsePool));
+            }
+            awaitAll("merge", families, merges, deadline);
+            addLocalAddresses(ipv4Checker, ipv6Checker, allRecords);
+            recordStage(stageTimings, "merge", mergeStart);
+
+            long buildStart = System.nanoTime();
+            List<String> indexes = new ArrayList<>(List.of("ipv4", "ipv6", "asn"));
+            List<CompletableFuture<Void>> builds = new ArrayList<>(List.of(
+                    CompletableFuture.runAsync(ipv4Checker::buildIndex, parsePool),
+                    CompletableFuture.runAsync(ipv6Checker::buildIndex, parsePool),
+                    CompletableFuture.runAsync(asnChecker::buildIndex, parsePool)));
+            AtomicReference<RIRRecordIndex> recordIndex = new AtomicReference<>();
+            if (allRecords != null) {
+                allRecords.trim();
+                indexes.add("records");
+                builds.add(CompletableFuture.runAsync(() -> recordIndex.set(RIRRecordIndex.build(allRecords)), parsePool));
+            }
+            awaitAll("index build", indexes, builds, deadline);
+            recordStage(stageTimings, "index build", buildStart);
+
+            if (missingSources.isEmpty()) {
+                LOG.info("Loaded all RIR files in {} ms: {}",
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart), stageTimings);
+            } else {
+                LOG.warn("Loaded the RIR files without {} in {} ms: {}", missingSources,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart), stageTimings);
+            }
+            this.loadedFiles = nextFiles;
+            return new RIRDataset(ipv4Checker, ipv6Checker, asnChecker, nextGeneration(), Instant.now(), stageTimings,
+                    recordIndex.get(), missingSources);
+        } finally {
+            downloadPool.shutdownNow();
+            parsePool.shutdownNow();
+        }
+    }
+
+    private void recordStage(Map<String, Duration> stageTimings, String stage, long start) {
+        long nanos = System.nanoTime() - start;
+        stageTimings.put(stage, Duration.ofNanos(nanos));
+        this.config.metrics().recordLoadStage(stage, nanos);
+    }
+
+    // the local addresses are records without a registry, status or date
+    private void addLocalAddresses(IPv4Checker ipv4Checker, IPv6Checker ipv6Checker, RIRRecords records) {
+        if (this.config.includeIpv4LocalAddresses()) {
+            // add local addresses as well:
+            // 127.0.0.0/8 defined in https://tools.ietf.org/html/rfc3330
+            IPv4Subnet localhostIPv4 = new IPv4Subnet("127.0.0.0", 16777216, "US");
+            ipv4Checker.addSubnet(localhostIPv4);
+            if (records != null) {
+                records.addIPv4Range(0x7F000000, 0x7FFFFFFF, CountryCodes.toId("US"), Registry.UNKNOWN_ID,
+                        RecordStatus.UNKNOWN_ID, 0);
+            }
+        }
+
+        if (this.config.includeIpv6LocalAddresses()) {
+            // ::1/128 defined in https://tools.ietf.org/html/rfc4291
+            IPv6Subnet localhostIPv6 = new IPv6Subnet("0:0:0:0:0:0:0:1", 128, "US");
+            ipv6Checker.addSubnet(localhostIPv6);
+            if (records != null) {
+                records.addIPv6Prefix(0, 1, 128, CountryCodes.toId("US"), Registry.UNKNOWN_ID,
+                        RecordStatus.UNKNOWN_ID, 0);
+            }
+        }
+    }
+
+    // the unchanged files whose records weren't kept are downloaded again once another file
+    // changed, since the new dataset needs all of them; a partial load leaves out the ones
+    // that fail
+    private void rereadUnchangedFiles(List<RIRSource> fileSources, List<LoadedRIRFile> files,
+                                      Set<String> missingSources, boolean partial, Executor parseExecutor,
+                                      ExecutorService downloadPool, long deadline) throws RIRNotDownloadedException {
+        List<Integer> positions = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<CompletableFuture<LoadedRIRFile>> downloads = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            if (files.get(i).records() == null) {
+                RIRSource source = fileSources.get(i);
+                RIRFileVersion version = files.get(i).version();
+                positions.add(i);
+                names.add(source.getName());
+                downloads.add(submit(source, () -> download(source, version, parseExecutor), downloadPool));
+            }
+        }
+        if (downloads.isEmpty()) {
+            return;
+        }
+        List<LoadedRIRFile> reread = partial ? awaitAvailable(names, downloads, deadline)
+                : awaitAll("download and parse", names, downloads, deadline);
+        for (int i = reread.size() - 1; i >= 0; i--) {
+            int position = positions.get(i);
+            if (reread.get(i) != null) {
+                // keeps the version the unchanged file was checked against
+                files.set(position, new LoadedRIRFile(files.get(position).version(), reread.get(i).records()));
+            } else {
+                missingSources.add(names.get(i));
+                files.remove(position);
+                fileSources.remove(position);
+            }
+        }
+    }
+
+    // the registries publish new files every day, but a file often doesn't change at all,
+    // so it's only downloaded and parsed again when its version isn't the one loaded last
+    // time; otherwise the previous file (with or without its records) is returned
+    private LoadedRIRFile downloadIfChanged(RIRSource source, LoadedRIRFile previous, Executor parseExecutor)
+            throws IOException {
+        RIRFileVersion availableVersion = source.fetchVersion();
+        if (previous != null && availableVersion.isSameFile(previous.version())) {
+            LOG.debug("Unchanged RIR file: {}", source.getName());
+            return previous;
+        }
+        return download(source, availableVersion, parseExecutor);
+    }
+
+    private LoadedRIRFile download(RIRSource source, RIRFileVersion availableVersion, Executor parseExecutor)
+            throws IOException {
+        RIRDownloader downloader = new RIRDownloader(source, this.listCountryCodeRules, parseExecutor);
+        List<RIRRecords> records = downloader.download(availableVersion);
+        LOG.debug("Downloaded {} ({} bytes, {} chunks) in {} ms", source.getName(), downloader.getBytes(),
+                downloader.getChunks(), TimeUnit.NANOSECONDS.toMillis(downloader.getDownloadNanos()));
+        this.config.metrics().recordRIRFile(source.getName(), downloader.getBytes(), downloader.getDownloadNanos(),
+                downloader.getParseNanos());
+        return new LoadedRIRFile(downloader.getVersion(), records);
+    }
+
+    // runs a download of the source, bounded by the timeout of the source if it has one
+    private static <T> CompletableFuture<T> submit(RIRSource source, Callable<T> task, ExecutorService executor) {
+        CompletableFuture<T> download = submit(task, executor);
+        if (source.getTimeout() != null) {
+            download = download.orTimeout(source.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return download;
+    }
+
+    private static <T> CompletableFuture<T> submit(Callable<T> task, ExecutorService executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    // waits until all the tasks of a stage are done, the first one fails or the deadline passes
+    static <T> List<T> awaitAll(String stage, List<String> names, List<CompletableFuture<T>> tasks,
+                                        long deadline) throws RIRNotDownloadedException {
+        CompletableFuture<Object> firstFailure = new CompletableFuture<>();
+        for (CompletableFuture<T> task : tasks) {
+            task.whenComplete((result, e) -> {
+                if (e != null) {
+                    firstFailure.completeExceptionally(e);
+                }
+            });
+        }
+        try {
+            CompletableFuture.anyOf(CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])), firstFailure)
+                    .get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            List<String> pending = new ArrayList<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                if (!tasks.get(i).isDone()) {
+                    pending.add(names.get(i));
+                }
+            }
+            throw new RIRLoadTimeoutException("The " + stage + " stage of the RIR load didn't finish in time, still pending: "
+                    + pending);
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e.getCause());
+            if (isTimeout(cause)) {
+                // a source ran into its own timeout; the tasks that failed for another reason
+                // keep their own cause as a suppressed exception
+                List<String> timedOut = new ArrayList<>();
+                List<Throwable> otherFailures = new ArrayList<>();
+                for (int i = 0; i < tasks.size(); i++) {
+                    Throwable failure = failureOf(tasks.get(i));
+                    if (failure == null) {
+                        continue;
+                    }
+                    if (isTimeout(failure)) {
+                        timedOut.add(names.get(i));
+                    } else {
+                        otherFailures.add(failure);
+                    }
+                }
+                RIRLoadTimeoutException timeout = new RIRLoadTimeoutException("The " + stage
+                        + " stage of the RIR load didn't finish in time, timed out: " + timedOut);
+                otherFailures.forEach(timeout::addSuppressed);
+                throw timeout;
+            }
+            throw new RIRNotDownloadedException("The " + stage + " stage of the RIR load failed: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RIRNotDownloadedException("The RIR load was interrupted during the " + stage + " stage.", e);
+        }
+        List<T> results = new ArrayList<>(tasks.size());
+        for (CompletableFuture<T> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    // waits until all the downloads are done or the deadline passes, and returns the file of
+    // every download that succeeded in time, null for the others
+    private static List<LoadedRIRFile> awaitAvailable(List<String> names, List<CompletableFuture<LoadedRIRFile>> downloads,
+                                                      long deadline) throws RIRNotDownloadedException {
+        try {
+            CompletableFuture.allOf(downloads.toArray(new CompletableFuture<?>[0]))
+                    .get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // the downloads that failed or are still pending are left out below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RIRNotDownloadedException("The RIR load was interrupted during the download and parse stage.", e);
+        }
+        List<LoadedRIRFile> files = new ArrayList<>(downloads.size());
+        for (int i = 0; i < downloads.size(); i++) {
+            LoadedRIRFile file = null;
+            if (!downloads.get(i).isDone()) {
+                LOG.warn("The RIR file {} didn't load in time.", names.get(i));
+            } else {
+                try {
+                    file = downloads.get(i).join();
+                } catch (CompletionException e) {
+                    LOG.warn("Unable to load the RIR file {}.", names.get(i), e.getCause());
+                }
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    // the cause a task failed with, or null when it hasn't failed (yet)
+    private static Throwable failureOf(CompletableFuture<?> task) {
+        if (!task.isCompletedExceptionally()) {
+            return null;
+        }
+        try {
+            task.join();
+            return null;
+        } catch (CompletionException | CancellationException e) {
+            return unwrap(e);
+        }
+    }
+
+    private static boolean isTimeout(Throwable cause) {
+        return cause instanceof TimeoutException || cause instanceof SocketTimeoutException
+                || cause instanceof HttpTimeoutException;
+    }
+
+    // the records are null when they weren't kept
+    private record LoadedRIRFile(RIRFileVersion version, List<RIRRecords> records) {
+    }
+
+}
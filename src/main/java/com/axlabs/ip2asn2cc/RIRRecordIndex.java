@@ -0,0 +1,165 @@
+package com.axlabs.ip2asn2cc;
+
+import java.util.Arrays;
+
+import com.axlabs.ip2asn2cc.checker.IPv6PrefixTrie;
+import com.axlabs.ip2asn2cc.checker.RangeIndex;
+import com.axlabs.ip2asn2cc.metrics.LookupType;
+import com.axlabs.ip2asn2cc.rir.RIRRecords;
+
+final class RIRRecordIndex {
+
+    // the records themselves (see RIRRecords) with an index that leads from an address
+    // straight to the record it belongs to. Unlike the country indexes, which merge the
+    // adjacent ranges of a country, every record keeps its own ranges here; overlaps are
+    // resolved the same way though, so a lookup always matches the record whose country
+    // the country indexes return
+    private final RIRRecords records;
+    private final RecordRanges ipv4Ranges;
+    private final IPv6PrefixTrie ipv6Trie;
+    // the ipv6 record of every trie node, -1 for the nodes without a prefix
+    private final int[] ipv6NodeRecords;
+    private final RecordRanges asnRanges;
+
+    private RIRRecordIndex(RIRRecords records, RecordRanges ipv4Ranges, IPv6PrefixTrie ipv6Trie,
+                           int[] ipv6NodeRecords, RecordRanges asnRanges) {
+        this.records = records;
+        this.ipv4Ranges = ipv4Ranges;
+        this.ipv6Trie = ipv6Trie;
+        this.ipv6NodeRecords = ipv6NodeRecords;
+        this.asnRanges = asnRanges;
+    }
+
+    static RIRRecordIndex build(RIRRecords records) {
+        RangeIndex.Builder ipv4Builder = RangeIndex.builder();
+        for (int i = 0; i < records.getIPv4Count(); i++) {
+            ipv4Builder.add(records.getIPv4Start(i), records.getIPv4End(i), records.getIPv4CountryId(i));
+        }
+        RecordRanges ipv4Ranges = new RecordRanges(records.getIPv4Count());
+        ipv4Builder.resolve(ipv4Ranges::add);
+
+        IPv6PrefixTrie.Builder ipv6Builder = IPv6PrefixTrie.builder();
+        for (int i = 0; i < records.getIPv6Count(); i++) {
+            ipv6Builder.add(records.getIPv6High(i), records.getIPv6Low(i), records.getIPv6Length(i),
+                    records.getIPv6CountryId(i));
+        }
+        IPv6PrefixTrie ipv6Trie = ipv6Builder.build();
+        int[] ipv6NodeRecords = new int[ipv6Trie.nodes()];
+        Arrays.fill(ipv6NodeRecords, -1);
+        // the trie keeps the first of the same prefixes, and so does this
+        for (int i = 0; i < records.getIPv6Count(); i++) {
+            int node = ipv6Trie.nodeOf(records.getIPv6High(i), records.getIPv6Low(i), records.getIPv6Length(i));
+            if (ipv6NodeRecords[node] < 0) {
+                ipv6NodeRecords[node] = i;
+            }
+        }
+
+        RangeIndex.Builder asnBuilder = RangeIndex.builder();
+        for (int i = 0; i < records.getASNCount(); i++) {
+            asnBuilder.add(records.getASNStart(i), records.getASNEnd(i), records.getASNCountryId(i));
+        }
+        RecordRanges asnRanges = new RecordRanges(records.getASNCount());
+        asnBuilder.resolve(asnRanges::add);
+
+        return new RIRRecordIndex(records, ipv4Ranges.trim(), ipv6Trie, ipv6NodeRecords, asnRanges.trim());
+    }
+
+    boolean lookUpIPv4(int address, LookupResult result) {
+        int record = this.ipv4Ranges.recordOf(address);
+        if (record < 0) {
+            result.setNotFound(LookupType.IPV4);
+            return false;
+        }
+        result.setRange(LookupType.IPV4, this.records.getIPv4CountryId(record), this.records.getIPv4Registry(record),
+                this.records.getIPv4Status(record), this.records.getIPv4Date(record),
+                this.records.getIPv4Start(record), this.records.getIPv4End(record));
+        return true;
+    }
+
+    boolean lookUpIPv6(long high, long low, LookupResult result) {
+        int node = this.ipv6Trie.indexOf(high, low);
+        if (node < 0) {
+            result.setNotFound(LookupType.IPV6);
+            return false;
+        }
+        int record = this.ipv6NodeRecords[node];
+        result.setPrefix(this.records.getIPv6CountryId(record), this.records.getIPv6Registry(record),
+                this.records.getIPv6Status(record), this.records.getIPv6Date(record),
+                this.records.getIPv6High(record), this.records.getIPv6Low(record), this.records.getIPv6Length(record));
+        return true;
+    }
+
+    boolean lookUpASN(int asn, LookupResult result) {
+        int record = this.asnRanges.recordOf(asn);
+        if (record < 0) {
+            result.setNotFound(LookupType.ASN);
+            return false;
+        }
+        result.setRange(LookupType.ASN, this.records.getASNCountryId(record), this.records.getASNRegistry(record),
+                this.records.getASNStatus(record), this.records.getASNDate(record),
+                this.records.getASNStart(record), this.records.getASNEnd(record));
+        return true;
+    }
+
+    // sorted, non-overlapping [start, end] ranges of unsigned 32-bit values, each with the
+    // record it belongs to; the pieces of a record that another record splits are merged
+    // back wherever they're adjacent again
+    private static final class RecordRanges {
+
+        private int[] starts;
+        private int[] ends;
+        private int[] records;
+        private int count;
+
+        private RecordRanges(int capacity) {
+            this.starts = new int[Math.max(capacity, 16)];
+            this.ends = new int[this.starts.length];
+            this.records = new int[this.starts.length];
+        }
+
+        private void add(int start, int end, int record) {
+            if (this.count > 0 && this.records[this.count - 1] == record
+                    && this.ends[this.count - 1] != -1 && this.ends[this.count - 1] + 1 == start) {
+                this.ends[this.count - 1] = end;
+                return;
+            }
+            if (this.count == this.starts.length) {
+                int capacity = this.count * 2;
+                this.starts = Arrays.copyOf(this.starts, capacity);
+                this.ends = Arrays.copyOf(this.ends, capacity);
+                this.records = Arrays.copyOf(this.records, capacity);
+            }
+            this.starts[this.count] = start;
+            this.ends[this.count] = end;
+            this.records[this.count] = record;
+            this.count++;
+        }
+
+        private RecordRanges trim() {
+            this.starts = Arrays.copyOf(this.starts, this.count);
+            this.ends = Arrays.copyOf(this.ends, this.count);
+            this.records = Arrays.copyOf(this.records, this.count);
+            return this;
+        }
+
+        private int recordOf(int value) {
+            // find the last range starting at or before the value
+            int low = 0;
+            int high = this.count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (Integer.compareUnsigned(this.starts[mid], value) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            if (high >= 0 && Integer.compareUnsigned(value, this.ends[high]) <= 0) {
+                return this.records[high];
+            }
+            return -1;
+        }
+
+    }
+
+}
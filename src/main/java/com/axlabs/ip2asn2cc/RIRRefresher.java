@@ -0,0 +1,61 @@
+package com.axlabs.ip2asn2cc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.axlabs.ip2asn2cc.exception.RIRNotDownloadedException;
+
+public class RIRRefresher implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RIRRefresher.class);
+
+    private final Ip2Asn2Cc ip2Asn2Cc;
+    private final ScheduledExecutorService scheduler;
+
+    public RIRRefresher(Ip2Asn2Cc ip2Asn2Cc, Duration period) {
+        if (period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("The refresh period must be positive.");
+        }
+        this.ip2Asn2Cc = ip2Asn2Cc;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ip2asn2cc-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = period.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::refreshInBackground, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void refresh() throws RIRNotDownloadedException {
+        this.ip2Asn2Cc.reload();
+    }
+
+    public long getGeneration() {
+        return this.ip2Asn2Cc.getDataset().getGeneration();
+    }
+
+    public Instant getLoadedAt() {
+        return this.ip2Asn2Cc.getDataset().getLoadedAt();
+    }
+
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+    }
+
+    private void refreshInBackground() {
+        try {
+            refresh();
+        } catch (RIRNotDownloadedException | RuntimeException e) {
+            // keep serving the current dataset, the next run tries again
+            LOG.error("Unable to refresh the RIR data, keeping generation {}.", getGeneration(), e);
+        }
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.axlabs.ip2asn2cc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+import org.apache.commons.validator.routines.InetAddressValidator;
+
+import com.axlabs.ip2asn2cc.checker.ASNChecker;
+import com.axlabs.ip2asn2cc.checker.IPv4Checker;
+import com.axlabs.ip2asn2cc.checker.IPv6Checker;
+import com.axlabs.ip2asn2cc.checker.IPv6PrefixTrie;
+import com.axlabs.ip2asn2cc.checker.RangeIndex;
+import com.axlabs.ip2asn2cc.model.CountryCodes;
+
+final class RIRSnapshotFile {
+
+    // file layout, every section aligned to 8 bytes:
+    // * header: magic, version, creation time, local address flags and the country code rules
+    // * ipv4 range index, ipv6 prefix trie and asn range index
+    // * CRC32 of everything before it
+    private static final int MAGIC = 0x49324343;
+    private static final int VERSION = 2;
+
+    private static final int FLAG_IPV4_LOCAL_ADDRESSES = 1;
+    private static final int FLAG_IPV6_LOCAL_ADDRESSES = 2;
+
+    private RIRSnapshotFile() {
+    }
+
+    static void write(Path path, RIRDataset dataset, List<String> listCountryCodeRules, Config config) throws IOException {
+        short[] countryIds = toCountryIds(listCountryCodeRules);
+        RangeIndex ipv4Index = dataset.getIpv4Checker().getIndex();
+        IPv6PrefixTrie ipv6Trie = dataset.getIpv6Checker().getTrie();
+        RangeIndex asnIndex = dataset.getAsnChecker().getIndex();
+
+        int size = align(24 + countryIds.length * 2) + align(ipv4Index.serializedSize())
+                + align(ipv6Trie.serializedSize()) + align(asnIndex.serializedSize()) + 8;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(dataset.getLoadedAt().toEpochMilli());
+        buffer.putInt(flags(config));
+        buffer.putInt(countryIds.length);
+        for (short countryId : countryIds) {
+            buffer.putShort(countryId);
+        }
+        pad(buffer);
+        ipv4Index.writeTo(buffer);
+        pad(buffer);
+        ipv6Trie.writeTo(buffer);
+        pad(buffer);
+        asnIndex.writeTo(buffer);
+        pad(buffer);
+        buffer.putLong(checksum(buffer, buffer.position()));
+        buffer.flip();
+
+        // write next to the target and move it over, so a reader never sees a partial file
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tempFile = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    static RIRDataset read(Path path, List<String> listCountryCodeRules, Config config,
+                           LongSupplier generation) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE || channel.size() < 32) {
+                throw new IOException("Invalid RIR snapshot size: " + channel.size());
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        int checksumPosition = buffer.limit() - 8;
+        if (buffer.getLong(checksumPosition) != checksum(buffer, checksumPosition)) {
+            throw new IOException("The RIR snapshot is corrupted (checksum mismatch).");
+        }
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a RIR snapshot file.");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported RIR snapshot version: " + version);
+        }
+        Instant createdAt = Instant.ofEpochMilli(buffer.getLong());
+        if (buffer.getInt() != flags(config)) {
+            throw new IOException("The RIR snapshot was written with other local address options.");
+        }
+        int countryCount = buffer.getInt();
+        if (countryCount < 0 || countryCount > CountryCodes.SIZE) {
+            throw new IOException("Invalid amount of country codes: " + countryCount);
+        }
+        short[] countryIds = new short[countryCount];
+        for (int i = 0; i < countryCount; i++) {
+            countryIds[i] = buffer.getShort();
+        }
+        if (!Arrays.equals(countryIds, toCountryIds(listCountryCodeRules))) {
+            throw new IOException("The RIR snapshot was written for other country codes.");
+        }
+        // off-heap, the indexes keep reading from the mapping, which stays valid even
+        // after the file is replaced or deleted
+        boolean offHeap = config.offHeapIndex();
+        skipPadding(buffer);
+        RangeIndex ipv4Index = offHeap ? RangeIndex.wrap(buffer) : RangeIndex.readFrom(buffer);
+        skipPadding(buffer);
+        IPv6PrefixTrie ipv6Trie = offHeap ? IPv6PrefixTrie.wrap(buffer) : IPv6PrefixTrie.readFrom(buffer);
+        skipPadding(buffer);
+        RangeIndex asnIndex = offHeap ? RangeIndex.wrap(buffer) : RangeIndex.readFrom(buffer);
+
+        InetAddressValidator validator = new InetAddressValidator();
+        return new RIRDataset(new IPv4Checker(validator, ipv4Index), new IPv6Checker(validator, ipv6Trie),
+                new ASNChecker(asnIndex), generation.getAsLong(), createdAt);
+    }
+
+    private static short[] toCountryIds(List<String> listCountryCodeRules) {
+        int[] ids = listCountryCodeRules.stream()
+                .mapToInt(CountryCodes::toId)
+                .distinct()
+                .sorted()
+                .toArray();
+        short[] countryIds = new short[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            countryIds[i] = (short) ids[i];
+        }
+        return countryIds;
+    }
+
+    private static int flags(Config config) {
+        return (Boolean.TRUE.equals(config.includeIpv4LocalAddresses()) ? FLAG_IPV4_LOCAL_ADDRESSES : 0)
+                | (Boolean.TRUE.equals(config.includeIpv6LocalAddresses()) ? FLAG_IPV6_LOCAL_ADDRESSES : 0);
+    }
+
+    private static long checksum(ByteBuffer buffer, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer content = buffer.duplicate();
+        content.position(0).limit(length);
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+
+    private static void pad(ByteBuffer buffer) {
+        while ((buffer.position() & 7) != 0) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    private static void skipPadding(ByteBuffer buffer) {
+        buffer.position(align(buffer.position()));
+    }
+
+}
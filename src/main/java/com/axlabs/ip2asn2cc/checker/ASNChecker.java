@@ -1,21 +1,91 @@
 package com.axlabs.ip2asn2cc.checker;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
+import com.axlabs.ip2asn2cc.model.CountryCodes;
+import com.axlabs.ip2asn2cc.model.IPAddressParser;
 
 public class ASNChecker implements ASNCheckerInterface {
 
-    private final Set<String> asns = Collections.synchronizedSet(new HashSet<>());
+    // ASNs are unsigned 32-bit numbers, kept as blocks of consecutive ASNs in the same
+    // sorted range index used for ipv4. The ranges are added and the index is built by one
+    // thread at a time, e.g. the merge of a RIRLoader, which hands the checker over once
+    // it's done; only the lookups run concurrently, on the published index. The builder is
+    // dropped with the build, so a built checker only keeps the index and takes no more ranges
+    private RangeIndex.Builder indexBuilder = RangeIndex.builder();
+    private boolean modified;
+    private volatile RangeIndex index = RangeIndex.EMPTY;
+
+    public ASNChecker() {
+    }
+
+    public ASNChecker(RangeIndex index) {
+        this.indexBuilder = null;
+        this.index = index;
+    }
 
     @Override
     public boolean checkIfMatches(String asn) {
-        return this.asns.contains(asn);
+        return checkIfMatches(IPAddressParser.parseUnsigned(asn));
+    }
+
+    @Override
+    public boolean checkIfMatches(long asn) {
+        return asn >= 0 && asn <= 0xFFFFFFFFL && this.index.contains((int) asn);
+    }
+
+    @Override
+    public String getCountryCode(String asn) {
+        return getCountryCode(IPAddressParser.parseUnsigned(asn));
+    }
+
+    @Override
+    public String getCountryCode(long asn) {
+        if (asn < 0 || asn > 0xFFFFFFFFL) {
+            return CountryCodes.UNKNOWN;
+        }
+        return CountryCodes.toCode(this.index.getCountryId((int) asn));
     }
 
     @Override
     public void addASN(String asn) {
-        this.asns.add(asn);
+        long number = IPAddressParser.parseUnsigned(asn);
+        if (number >= 0) {
+            addRange((int) number, (int) number, CountryCodes.UNKNOWN_ID);
+        }
+    }
+
+    @Override
+    public void addRange(int start, int end, short countryId) {
+        builder().add(start, end, countryId);
+        this.modified = true;
+    }
+
+    @Override
+    public void addRanges(int[] ranges, short[] countryIds, int count) {
+        builder().addAll(ranges, countryIds, count);
+        this.modified = this.modified || count > 0;
+    }
+
+    @Override
+    public void buildIndex() {
+        if (this.indexBuilder == null) {
+            return;
+        }
+        if (this.modified) {
+            this.index = this.indexBuilder.build();
+            this.modified = false;
+        }
+        this.indexBuilder = null;
+    }
+
+    private RangeIndex.Builder builder() {
+        if (this.indexBuilder == null) {
+            throw new IllegalStateException("The index of the checker is already built.");
+        }
+        return this.indexBuilder;
+    }
+
+    public RangeIndex getIndex() {
+        return this.index;
     }
 
 }
@@ -4,6 +4,23 @@ public interface ASNCheckerInterface {
 
     boolean checkIfMatches(String asn);
 
+    boolean checkIfMatches(long asn);
+
+    String getCountryCode(String asn);
+
+    String getCountryCode(long asn);
+
     void addASN(String asn);
 
+    void addRange(int start, int end, short countryId);
+
+    // count ranges given as start/end pairs at once, e.g. a whole chunk of parsed records
+    default void addRanges(int[] ranges, short[] countryIds, int count) {
+        for (int i = 0; i < count; i++) {
+            addRange(ranges[2 * i], ranges[2 * i + 1], countryIds[i]);
+        }
+    }
+
+    void buildIndex();
+
 }
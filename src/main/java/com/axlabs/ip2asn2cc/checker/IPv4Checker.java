@@ -1,57 +1,101 @@
 package com.axlabs.ip2asn2cc.checker;
 
+import com.axlabs.ip2asn2cc.model.CountryCodes;
+import com.axlabs.ip2asn2cc.model.IPAddressParser;
 import com.axlabs.ip2asn2cc.model.IPv4Subnet;
-import org.apache.commons.net.util.SubnetUtils;
 import org.apache.commons.validator.routines.InetAddressValidator;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-
 public class IPv4Checker implements IPv4CheckerInterface {
 
     private final InetAddressValidator validator;
-    private final Map<IPv4Subnet, IPv4Subnet> ipv4Subnets = Collections.synchronizedMap(new HashMap<>());
+    // the ranges are added and the index is built by one thread at a time, e.g. the merge
+    // of a RIRLoader, which hands the checker over once it's done; only the lookups run
+    // concurrently, on the published index. The builder is dropped with the build, so a
+    // built checker only keeps the index and takes no more ranges
+    private RangeIndex.Builder indexBuilder = RangeIndex.builder();
+    private boolean modified;
+    private volatile RangeIndex index = RangeIndex.EMPTY;
 
     public IPv4Checker(InetAddressValidator validator) {
         this.validator = validator;
     }
 
+    public IPv4Checker(InetAddressValidator validator, RangeIndex index) {
+        this.validator = validator;
+        this.indexBuilder = null;
+        this.index = index;
+    }
+
     @Override
     public boolean checkIfIsInRange(String ipAddress) {
-        // if it's valid, check if the ipAddress is ipv4
-        if (this.validator.isValidInet4Address(ipAddress)) {
-            // if it's ipv4, check if it's in ANY ipv4 subnet range
-            for (IPv4Subnet ipv4Subnet : ipv4Subnets.keySet()) {
-                SubnetUtils subnetUtils = new SubnetUtils(ipv4Subnet.getCIDR());
-                subnetUtils.setInclusiveHostCount(true);
-                if (subnetUtils.getInfo().isInRange(ipAddress)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        long address = IPAddressParser.parseIPv4(ipAddress);
+        return address >= 0 && checkIfIsInRange((int) address);
+    }
+
+    @Override
+    public boolean checkIfIsInRange(int ipAddress) {
+        return this.index.contains(ipAddress);
     }
 
     @Override
     public String getCountryCodeInRange(String ipAddress) {
-        // if it's valid, check if the ipAddress is ipv4
-        if (this.validator.isValidInet4Address(ipAddress)) {
-            // if it's ipv4, check if it's in ANY ipv4 subnet range
-            for (IPv4Subnet ipv4Subnet : ipv4Subnets.keySet()) {
-                SubnetUtils subnetUtils = new SubnetUtils(ipv4Subnet.getCIDR());
-                subnetUtils.setInclusiveHostCount(true);
-                if (subnetUtils.getInfo().isInRange(ipAddress)) {
-                    return ipv4Subnet.getCountryCode();
-                }
-            }
+        long address = IPAddressParser.parseIPv4(ipAddress);
+        if (address < 0) {
+            return CountryCodes.UNKNOWN;
+        }
+        return getCountryCodeInRange((int) address);
+    }
+
+    @Override
+    public String getCountryCodeInRange(int ipAddress) {
+        return CountryCodes.toCode(this.index.getCountryId(ipAddress));
+    }
+
+    @Override
+    public void addSubnet(IPv4Subnet ipv4Subnet) {
+        Integer amountOfAddresses = ipv4Subnet.getAmountOfAddresses();
+        if (!this.validator.isValidInet4Address(ipv4Subnet.getAddress())
+                || amountOfAddresses == null || amountOfAddresses <= 0) {
+            return;
         }
-        return "Unknown";
+        long start = IPAddressParser.parseIPv4(ipv4Subnet.getAddress());
+        long end = Math.min(start + amountOfAddresses - 1, 0xFFFFFFFFL);
+        addRange((int) start, (int) end, CountryCodes.toId(ipv4Subnet.getCountryCode()));
+    }
+
+    @Override
+    public void addRange(int start, int end, short countryId) {
+        builder().add(start, end, countryId);
+        this.modified = true;
+    }
+
+    @Override
+    public void addRanges(int[] ranges, short[] countryIds, int count) {
+        builder().addAll(ranges, countryIds, count);
+        this.modified = this.modified || count > 0;
     }
 
     @Override
-    public synchronized void addSubnet(IPv4Subnet ipv4Subnet) {
-        this.ipv4Subnets.put(ipv4Subnet, ipv4Subnet);
+    public void buildIndex() {
+        if (this.indexBuilder == null) {
+            return;
+        }
+        if (this.modified) {
+            this.index = this.indexBuilder.build();
+            this.modified = false;
+        }
+        this.indexBuilder = null;
+    }
+
+    private RangeIndex.Builder builder() {
+        if (this.indexBuilder == null) {
+            throw new IllegalStateException("The index of the checker is already built.");
+        }
+        return this.indexBuilder;
+    }
+
+    public RangeIndex getIndex() {
+        return this.index;
     }
 
 }
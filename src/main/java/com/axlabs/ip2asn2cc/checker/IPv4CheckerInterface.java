@@ -6,8 +6,24 @@ public interface IPv4CheckerInterface {
 
     String getCountryCodeInRange(String ipAddress);
 
+    // the address as its unsigned 32 bits
+    String getCountryCodeInRange(int ipAddress);
+
     boolean checkIfIsInRange(String ipAddress);
 
+    boolean checkIfIsInRange(int ipAddress);
+
     void addSubnet(IPv4Subnet ipSubnet);
 
+    void addRange(int start, int end, short countryId);
+
+    // count ranges given as start/end pairs at once, e.g. a whole chunk of parsed records
+    default void addRanges(int[] ranges, short[] countryIds, int count) {
+        for (int i = 0; i < count; i++) {
+            addRange(ranges[2 * i], ranges[2 * i + 1], countryIds[i]);
+        }
+    }
+
+    void buildIndex();
+
 }
@@ -1,65 +1,100 @@
 package com.axlabs.ip2asn2cc.checker;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-
 import org.apache.commons.validator.routines.InetAddressValidator;
 
+import com.axlabs.ip2asn2cc.model.CountryCodes;
+import com.axlabs.ip2asn2cc.model.IPAddressParser;
 import com.axlabs.ip2asn2cc.model.IPv6Subnet;
 import com.googlecode.ipv6.IPv6Address;
-import com.googlecode.ipv6.IPv6AddressRange;
-import com.googlecode.ipv6.IPv6Network;
-import com.googlecode.ipv6.IPv6NetworkMask;
 
 public class IPv6Checker implements IPv6CheckerInterface {
 
+    // scratch space for the parsed high and low bits, so the lookups don't allocate
+    private static final ThreadLocal<long[]> PARSED_ADDRESS = ThreadLocal.withInitial(() -> new long[2]);
+
     private final InetAddressValidator validator;
-    private final Map<IPv6Subnet, IPv6Subnet> ipv6Subnets = Collections.synchronizedMap(new HashMap<>());
+    // the prefixes are added and the index is built by one thread at a time, e.g. the merge
+    // of a RIRLoader, which hands the checker over once it's done; only the lookups run
+    // concurrently, on the published trie. The builder (and its tree of nodes) is dropped
+    // with the build, so a built checker only keeps the flat trie and takes no more prefixes
+    private IPv6PrefixTrie.Builder trieBuilder = IPv6PrefixTrie.builder();
+    private boolean modified;
+    private volatile IPv6PrefixTrie trie = IPv6PrefixTrie.EMPTY;
 
     public IPv6Checker(InetAddressValidator validator) {
         this.validator = validator;
     }
 
+    public IPv6Checker(InetAddressValidator validator, IPv6PrefixTrie trie) {
+        this.validator = validator;
+        this.trieBuilder = null;
+        this.trie = trie;
+    }
+
     @Override
     public String getCountryCodeInRange(String ipAddress) {
-        // if it's valid, check if the ipAddress is ipv6
-        if (validator.isValidInet6Address(ipAddress)) {
-            // if it's ipv6, check if it's in ANY ipv6 subnet range
-            for (IPv6Subnet ipv6Subnet : ipv6Subnets.keySet()) {
-                IPv6Address ipv6AddressFromClient = IPv6Address.fromString(ipAddress);
-                IPv6Address ipv6AddressFromEntry = IPv6Address.fromString(ipv6Subnet.getAddress());
-                IPv6NetworkMask ipv6NetworkMask = IPv6NetworkMask.fromPrefixLength(ipv6Subnet.getNetworkMask());
-                IPv6AddressRange range = IPv6Network.fromAddressAndMask(ipv6AddressFromEntry, ipv6NetworkMask);
-                if (range.contains(ipv6AddressFromClient)) {
-                    return ipv6Subnet.getCountryCode();
-                }
-            }
+        long[] address = PARSED_ADDRESS.get();
+        if (IPAddressParser.parseIPv6(ipAddress, address)) {
+            return getCountryCodeInRange(address[0], address[1]);
         }
-        return "Unknown";
+        return CountryCodes.UNKNOWN;
+    }
+
+    @Override
+    public String getCountryCodeInRange(long high, long low) {
+        return CountryCodes.toCode(this.trie.getCountryId(high, low));
     }
 
     @Override
     public boolean checkIfIsInRange(String ipAddress) {
-        // if it's valid, check if the ipAddress is ipv6
-        if (validator.isValidInet6Address(ipAddress)) {
-            // if it's ipv6, check if it's in ANY ipv6 subnet range
-            for (IPv6Subnet ipv6Subnet : ipv6Subnets.keySet()) {
-                IPv6Address ipv6AddressFromClient = IPv6Address.fromString(ipAddress);
-                IPv6Address ipv6AddressFromEntry = IPv6Address.fromString(ipv6Subnet.getAddress());
-                IPv6NetworkMask ipv6NetworkMask = IPv6NetworkMask.fromPrefixLength(ipv6Subnet.getNetworkMask());
-                IPv6AddressRange range = IPv6Network.fromAddressAndMask(ipv6AddressFromEntry, ipv6NetworkMask);
-                if (range.contains(ipv6AddressFromClient)) {
-                    return true;
-                }
-            }
+        long[] address = PARSED_ADDRESS.get();
+        return IPAddressParser.parseIPv6(ipAddress, address) && checkIfIsInRange(address[0], address[1]);
+    }
+
+    @Override
+    public boolean checkIfIsInRange(long high, long low) {
+        return this.trie.contains(high, low);
+    }
+
+    @Override
+    public void addSubnet(IPv6Subnet ipv6Subnet) {
+        Integer networkMask = ipv6Subnet.getNetworkMask();
+        if (!this.validator.isValidInet6Address(ipv6Subnet.getAddress())
+                || networkMask == null || networkMask < 0 || networkMask > 128) {
+            return;
         }
-        return false;
+        IPv6Address ipv6Address = IPv6Address.fromString(ipv6Subnet.getAddress());
+        addPrefix(ipv6Address.getHighBits(), ipv6Address.getLowBits(), networkMask,
+                CountryCodes.toId(ipv6Subnet.getCountryCode()));
+    }
+
+    @Override
+    public void addPrefix(long high, long low, int length, short countryId) {
+        builder().add(high, low, length, countryId);
+        this.modified = true;
     }
 
     @Override
-    public synchronized void addSubnet(IPv6Subnet ipv6Subnet) {
-        this.ipv6Subnets.put(ipv6Subnet, ipv6Subnet);
+    public void buildIndex() {
+        if (this.trieBuilder == null) {
+            return;
+        }
+        if (this.modified) {
+            this.trie = this.trieBuilder.build();
+            this.modified = false;
+        }
+        this.trieBuilder = null;
+    }
+
+    private IPv6PrefixTrie.Builder builder() {
+        if (this.trieBuilder == null) {
+            throw new IllegalStateException("The index of the checker is already built.");
+        }
+        return this.trieBuilder;
+    }
+
+    public IPv6PrefixTrie getTrie() {
+        return this.trie;
     }
 
 }
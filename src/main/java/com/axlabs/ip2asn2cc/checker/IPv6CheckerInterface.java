@@ -6,8 +6,24 @@ public interface IPv6CheckerInterface {
 
     String getCountryCodeInRange(String ipAddress);
 
+    // the address as its high and low 64 bits
+    String getCountryCodeInRange(long high, long low);
+
     boolean checkIfIsInRange(String ipAddress);
 
+    boolean checkIfIsInRange(long high, long low);
+
     void addSubnet(IPv6Subnet ipSubnet);
 
+    void addPrefix(long high, long low, int length, short countryId);
+
+    // count prefixes given as high/low pairs at once, e.g. a whole chunk of parsed records
+    default void addPrefixes(long[] prefixes, byte[] lengths, short[] countryIds, int count) {
+        for (int i = 0; i < count; i++) {
+            addPrefix(prefixes[2 * i], prefixes[2 * i + 1], lengths[i] & 0xFF, countryIds[i]);
+        }
+    }
+
+    void buildIndex();
+
 }
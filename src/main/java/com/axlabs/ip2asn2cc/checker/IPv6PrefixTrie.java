@@ -0,0 +1,581 @@
+package com.axlabs.ip2asn2cc.checker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+import com.axlabs.ip2asn2cc.model.CountryCodes;
+
+public abstract class IPv6PrefixTrie {
+
+    // path-compressed binary trie over the 128 address bits, stored as parallel arrays:
+    // each node holds a prefix (high/low 64 bits and length) and two children,
+    // selected by the first address bit after the node prefix; like RangeIndex the
+    // arrays are either on the heap or read in place from a (memory-mapped) buffer
+    private static final short NO_VALUE = Short.MIN_VALUE;
+
+    public static final IPv6PrefixTrie EMPTY = builder().build();
+
+    private static final int SORTED_BATCH_THRESHOLD = 32;
+
+    private final int size;
+
+    private IPv6PrefixTrie(int size) {
+        this.size = size;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // reads a trie written by writeTo into arrays on the heap: the node and prefix counts
+    // followed by the node arrays, widest first so every array stays aligned
+    public static IPv6PrefixTrie readFrom(ByteBuffer buffer) throws IOException {
+        int nodes = buffer.getInt();
+        int size = buffer.getInt();
+        checkSize(buffer, nodes, size);
+        long[] prefixHighs = new long[nodes];
+        long[] prefixLows = new long[nodes];
+        int[] children = new int[nodes * 2];
+        short[] countryIds = new short[nodes];
+        byte[] prefixLengths = new byte[nodes];
+        buffer.asLongBuffer().get(prefixHighs);
+        buffer.position(buffer.position() + nodes * 8);
+        buffer.asLongBuffer().get(prefixLows);
+        buffer.position(buffer.position() + nodes * 8);
+        buffer.asIntBuffer().get(children);
+        buffer.position(buffer.position() + nodes * 8);
+        buffer.asShortBuffer().get(countryIds);
+        buffer.position(buffer.position() + nodes * 2);
+        buffer.get(prefixLengths);
+        checkChildren(IntBuffer.wrap(children), nodes);
+        return new HeapIPv6PrefixTrie(prefixHighs, prefixLows, prefixLengths, children, countryIds, size);
+    }
+
+    // uses a trie written by writeTo in place, without copying it (see RangeIndex.wrap)
+    public static IPv6PrefixTrie wrap(ByteBuffer buffer) throws IOException {
+        int nodes = buffer.getInt();
+        int size = buffer.getInt();
+        checkSize(buffer, nodes, size);
+        LongBuffer prefixHighs = buffer.slice(buffer.position(), nodes * 8).asLongBuffer();
+        buffer.position(buffer.position() + nodes * 8);
+        LongBuffer prefixLows = buffer.slice(buffer.position(), nodes * 8).asLongBuffer();
+        buffer.position(buffer.position() + nodes * 8);
+        IntBuffer children = buffer.slice(buffer.position(), nodes * 8).asIntBuffer();
+        buffer.position(buffer.position() + nodes * 8);
+        ShortBuffer countryIds = buffer.slice(buffer.position(), nodes * 2).asShortBuffer();
+        buffer.position(buffer.position() + nodes * 2);
+        ByteBuffer prefixLengths = buffer.slice(buffer.position(), nodes);
+        buffer.position(buffer.position() + nodes);
+        checkChildren(children, nodes);
+        return new MappedIPv6PrefixTrie(prefixHighs, prefixLows, prefixLengths, children, countryIds, nodes, size);
+    }
+
+    private static void checkSize(ByteBuffer buffer, int nodes, int size) throws IOException {
+        if (nodes < 1 || size < 0 || size > nodes || (long) nodes * 27 > buffer.remaining()) {
+            throw new IOException("Invalid IPv6 trie size: " + nodes);
+        }
+    }
+
+    private static void checkChildren(IntBuffer children, int nodes) throws IOException {
+        for (int i = 0; i < nodes * 2; i++) {
+            int child = children.get(i);
+            if (child < -1 || child >= nodes) {
+                throw new IOException("Invalid IPv6 trie node: " + child);
+            }
+        }
+    }
+
+    public int serializedSize() {
+        return 8 + nodes() * 27;
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        int nodes = nodes();
+        buffer.putInt(nodes);
+        buffer.putInt(this.size);
+        LongBuffer prefixHighs = buffer.asLongBuffer();
+        for (int node = 0; node < nodes; node++) {
+            prefixHighs.put(prefixHighAt(node));
+        }
+        buffer.position(buffer.position() + nodes * 8);
+        LongBuffer prefixLows = buffer.asLongBuffer();
+        for (int node = 0; node < nodes; node++) {
+            prefixLows.put(prefixLowAt(node));
+        }
+        buffer.position(buffer.position() + nodes * 8);
+        IntBuffer children = buffer.asIntBuffer();
+        for (int i = 0; i < nodes * 2; i++) {
+            children.put(childAt(i));
+        }
+        buffer.position(buffer.position() + nodes * 8);
+        ShortBuffer countryIds = buffer.asShortBuffer();
+        for (int node = 0; node < nodes; node++) {
+            countryIds.put(getCountryIdAt(node));
+        }
+        buffer.position(buffer.position() + nodes * 2);
+        for (int node = 0; node < nodes; node++) {
+            buffer.put((byte) prefixLengthAt(node));
+        }
+    }
+
+    public abstract short getCountryIdAt(int index);
+
+    // the node indexes (as returned by indexOf) are in [0, nodes())
+    public abstract int nodes();
+
+    abstract long prefixHighAt(int node);
+
+    abstract long prefixLowAt(int node);
+
+    abstract int prefixLengthAt(int node);
+
+    // children[2 * node + bit]
+    abstract int childAt(int index);
+
+    // amount of prefixes stored in the trie
+    public int size() {
+        return this.size;
+    }
+
+    // returns the node of the longest prefix containing the address, or -1
+    public int indexOf(long high, long low) {
+        int match = -1;
+        int node = 0;
+        while (node >= 0) {
+            int length = prefixLengthAt(node);
+            if (!matches(high, low, prefixHighAt(node), prefixLowAt(node), length)) {
+                break;
+            }
+            if (getCountryIdAt(node) != NO_VALUE) {
+                match = node;
+            }
+            if (length == 128) {
+                break;
+            }
+            node = childAt((node << 1) | bitAt(high, low, length));
+        }
+        return match;
+    }
+
+    // returns the node holding exactly the given prefix, or -1 when it wasn't added
+    public int nodeOf(long high, long low, int length) {
+        high &= highMask(length);
+        low &= lowMask(length);
+        int node = 0;
+        while (node >= 0) {
+            int nodeLength = prefixLengthAt(node);
+            if (nodeLength > length || !matches(high, low, prefixHighAt(node), prefixLowAt(node), nodeLength)) {
+                return -1;
+            }
+            if (nodeLength == length) {
+                return getCountryIdAt(node) != NO_VALUE ? node : -1;
+            }
+            node = childAt((node << 1) | bitAt(high, low, nodeLength));
+        }
+        return -1;
+    }
+
+    // looks up many addresses given as high/low pairs: they're grouped by their first
+    // 32 bits first, so consecutive walks go through the same nodes
+    public void indexesOf(long[] highAndLows, int[] indexes) {
+        int count = highAndLows.length / 2;
+        if (indexes.length < count) {
+            throw new IllegalArgumentException("The indexes array is shorter than the amount of addresses.");
+        }
+        if (count < SORTED_BATCH_THRESHOLD) {
+            for (int i = 0; i < count; i++) {
+                indexes[i] = indexOf(highAndLows[2 * i], highAndLows[2 * i + 1]);
+            }
+            return;
+        }
+
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = (((highAndLows[2 * i] >>> 32) ^ 0x80000000L) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        for (long entry : order) {
+            int i = (int) entry;
+            indexes[i] = indexOf(highAndLows[2 * i], highAndLows[2 * i + 1]);
+        }
+    }
+
+    public boolean contains(long high, long low) {
+        return indexOf(high, low) >= 0;
+    }
+
+    public short getCountryId(long high, long low) {
+        int node = indexOf(high, low);
+        return node >= 0 ? getCountryIdAt(node) : CountryCodes.UNKNOWN_ID;
+    }
+
+    // walks the fewest CIDR blocks that cover exactly the addresses whose country id (the one
+    // of their longest matching prefix, unknown when there's none) passes the predicate, in
+    // ascending order: a depth-first walk yields the blocks every node keeps for its own
+    // country besides its children, and adjacent sibling blocks are merged on the way
+    public void forEachCidr(IntPredicate countries, CidrConsumer consumer) {
+        CidrStack blocks = new CidrStack(consumer);
+        walk(0, CountryCodes.UNKNOWN_ID, countries, blocks);
+        blocks.flush();
+    }
+
+    private void walk(int node, short inherited, IntPredicate countries, CidrStack blocks) {
+        short countryId = getCountryIdAt(node) != NO_VALUE ? getCountryIdAt(node) : inherited;
+        boolean matches = countries.test(countryId);
+        int length = prefixLengthAt(node);
+        if (length == 128) {
+            if (matches) {
+                blocks.push(prefixHighAt(node), prefixLowAt(node), 128);
+            }
+            return;
+        }
+        for (int bit = 0; bit < 2; bit++) {
+            long high = prefixHighAt(node);
+            long low = prefixLowAt(node);
+            if (bit == 1) {
+                high |= length < 64 ? 1L << (63 - length) : 0;
+                low |= length >= 64 ? 1L << (127 - length) : 0;
+            }
+            int child = childAt((node << 1) | bit);
+            if (child < 0) {
+                if (matches) {
+                    blocks.push(high, low, length + 1);
+                }
+                continue;
+            }
+            // the half of the node down to the child is covered by the siblings of the
+            // path: the ones left of the path before the child, the others after it
+            long childHigh = prefixHighAt(child);
+            long childLow = prefixLowAt(child);
+            int childLength = prefixLengthAt(child);
+            if (matches) {
+                for (int position = length + 1; position < childLength; position++) {
+                    if (bitAt(childHigh, childLow, position) == 1) {
+                        blocks.push(siblingHigh(childHigh, position), siblingLow(childLow, position), position + 1);
+                    }
+                }
+            }
+            walk(child, countryId, countries, blocks);
+            if (matches) {
+                for (int position = childLength - 1; position > length; position--) {
+                    if (bitAt(childHigh, childLow, position) == 0) {
+                        blocks.push(siblingHigh(childHigh, position), siblingLow(childLow, position), position + 1);
+                    }
+                }
+            }
+        }
+    }
+
+    // the prefix of the given length position + 1 that differs from the address in its last bit
+    private static long siblingHigh(long high, int position) {
+        return position < 64 ? (high ^ (1L << (63 - position))) & highMask(position + 1) : high;
+    }
+
+    private static long siblingLow(long low, int position) {
+        return position < 64 ? 0 : (low ^ (1L << (127 - position))) & lowMask(position + 1);
+    }
+
+    static boolean matches(long high, long low, long prefixHigh, long prefixLow, int length) {
+        if (length <= 64) {
+            return length == 0 || ((high ^ prefixHigh) >>> (64 - length)) == 0;
+        }
+        return high == prefixHigh && ((low ^ prefixLow) >>> (128 - length)) == 0;
+    }
+
+    static int bitAt(long high, long low, int position) {
+        return position < 64
+                ? (int) (high >>> (63 - position)) & 1
+                : (int) (low >>> (127 - position)) & 1;
+    }
+
+    static long highMask(int length) {
+        return length >= 64 ? -1L : length == 0 ? 0L : -1L << (64 - length);
+    }
+
+    static long lowMask(int length) {
+        return length <= 64 ? 0L : length == 128 ? -1L : -1L << (128 - length);
+    }
+
+    private static int commonPrefixLength(long aHigh, long aLow, long bHigh, long bLow) {
+        long high = aHigh ^ bHigh;
+        if (high != 0) {
+            return Long.numberOfLeadingZeros(high);
+        }
+        long low = aLow ^ bLow;
+        return low == 0 ? 128 : 64 + Long.numberOfLeadingZeros(low);
+    }
+
+    public interface CidrConsumer {
+
+        // the high and low 64 bits of the first address of the block and its prefix length
+        void accept(long high, long low, int length);
+
+    }
+
+    // the blocks walked so far that may still merge with the next ones: ascending and
+    // adjacent, so whenever a block completes the one on top of the stack to their common
+    // parent, the two are replaced by the parent, which may in turn complete the next one
+    private static final class CidrStack {
+
+        private final CidrConsumer consumer;
+        private long[] highs = new long[256];
+        private long[] lows = new long[256];
+        private int[] lengths = new int[256];
+        private int size;
+
+        private CidrStack(CidrConsumer consumer) {
+            this.consumer = consumer;
+        }
+
+        private void push(long high, long low, int length) {
+            if (this.size > 0 && !followsTop(high, low)) {
+                // a gap: none of the blocks on the stack can merge anymore
+                flush();
+            }
+            while (this.size > 0 && length > 0 && this.lengths[this.size - 1] == length
+                    && this.highs[this.size - 1] == (high & highMask(length - 1))
+                    && this.lows[this.size - 1] == (low & lowMask(length - 1))) {
+                // the top is the left half of the parent, this block the right one
+                this.size--;
+                length--;
+                high &= highMask(length);
+                low &= lowMask(length);
+            }
+            if (this.size == this.lengths.length) {
+                this.highs = Arrays.copyOf(this.highs, this.size * 2);
+                this.lows = Arrays.copyOf(this.lows, this.size * 2);
+                this.lengths = Arrays.copyOf(this.lengths, this.size * 2);
+            }
+            this.highs[this.size] = high;
+            this.lows[this.size] = low;
+            this.lengths[this.size] = length;
+            this.size++;
+        }
+
+        private boolean followsTop(long high, long low) {
+            int length = this.lengths[this.size - 1];
+            long lastLow = this.lows[this.size - 1] | ~lowMask(length);
+            long lastHigh = this.highs[this.size - 1] | ~highMask(length);
+            long nextLow = lastLow + 1;
+            long nextHigh = nextLow == 0 ? lastHigh + 1 : lastHigh;
+            return nextHigh == high && nextLow == low;
+        }
+
+        private void flush() {
+            for (int i = 0; i < this.size; i++) {
+                this.consumer.accept(this.highs[i], this.lows[i], this.lengths[i]);
+            }
+            this.size = 0;
+        }
+
+    }
+
+    public static final class Builder {
+
+        private final Node root = new Node(0, 0, 0);
+        private int nodes = 1;
+        private int prefixes;
+
+        private Builder() {
+        }
+
+        public Builder add(long high, long low, int length, short countryId) {
+            if (length < 0 || length > 128) {
+                throw new IllegalArgumentException("Invalid IPv6 prefix length: " + length);
+            }
+            high &= highMask(length);
+            low &= lowMask(length);
+
+            Node node = this.root;
+            while (node.length < length) {
+                int bit = bitAt(high, low, node.length);
+                Node child = node.children[bit];
+                if (child == null) {
+                    node.children[bit] = setValue(newNode(high, low, length), countryId);
+                    return this;
+                }
+                int common = Math.min(Math.min(child.length, length),
+                        commonPrefixLength(high, low, child.high, child.low));
+                if (common < child.length) {
+                    // split the edge: a new node holding the shared part of both prefixes
+                    Node split = newNode(high & highMask(common), low & lowMask(common), common);
+                    split.children[bitAt(child.high, child.low, common)] = child;
+                    node.children[bit] = split;
+                    child = split;
+                }
+                node = child;
+            }
+            setValue(node, countryId);
+            return this;
+        }
+
+        public IPv6PrefixTrie build() {
+            long[] prefixHighs = new long[this.nodes];
+            long[] prefixLows = new long[this.nodes];
+            byte[] prefixLengths = new byte[this.nodes];
+            int[] children = new int[this.nodes * 2];
+            short[] countryIds = new short[this.nodes];
+            int[] next = {0};
+            flatten(this.root, next, prefixHighs, prefixLows, prefixLengths, children, countryIds);
+            return new HeapIPv6PrefixTrie(prefixHighs, prefixLows, prefixLengths, children, countryIds, this.prefixes);
+        }
+
+        private int flatten(Node node, int[] next, long[] prefixHighs, long[] prefixLows, byte[] prefixLengths,
+                            int[] children, short[] countryIds) {
+            if (node == null) {
+                return -1;
+            }
+            int index = next[0]++;
+            prefixHighs[index] = node.high;
+            prefixLows[index] = node.low;
+            prefixLengths[index] = (byte) node.length;
+            countryIds[index] = node.countryId;
+            for (int bit = 0; bit < 2; bit++) {
+                children[(index << 1) | bit] = flatten(node.children[bit], next,
+                        prefixHighs, prefixLows, prefixLengths, children, countryIds);
+            }
+            return index;
+        }
+
+        private Node newNode(long high, long low, int length) {
+            this.nodes++;
+            return new Node(high, low, length);
+        }
+
+        // the prefix added first wins over the same prefix added again, like the range added
+        // first wins between ranges of the same size in RangeIndex
+        private Node setValue(Node node, short countryId) {
+            if (node.countryId == NO_VALUE) {
+                this.prefixes++;
+                node.countryId = countryId;
+            }
+            return node;
+        }
+
+    }
+
+    private static final class Node {
+
+        private final long high;
+        private final long low;
+        private final int length;
+        private final Node[] children = new Node[2];
+        private short countryId = NO_VALUE;
+
+        private Node(long high, long low, int length) {
+            this.high = high;
+            this.low = low;
+            this.length = length;
+        }
+
+    }
+
+    private static final class HeapIPv6PrefixTrie extends IPv6PrefixTrie {
+
+        private final long[] prefixHighs;
+        private final long[] prefixLows;
+        private final byte[] prefixLengths;
+        private final int[] children;
+        private final short[] countryIds;
+
+        private HeapIPv6PrefixTrie(long[] prefixHighs, long[] prefixLows, byte[] prefixLengths,
+                                   int[] children, short[] countryIds, int size) {
+            super(size);
+            this.prefixHighs = prefixHighs;
+            this.prefixLows = prefixLows;
+            this.prefixLengths = prefixLengths;
+            this.children = children;
+            this.countryIds = countryIds;
+        }
+
+        @Override
+        public short getCountryIdAt(int index) {
+            return this.countryIds[index];
+        }
+
+        @Override
+        public int nodes() {
+            return this.prefixLengths.length;
+        }
+
+        @Override
+        long prefixHighAt(int node) {
+            return this.prefixHighs[node];
+        }
+
+        @Override
+        long prefixLowAt(int node) {
+            return this.prefixLows[node];
+        }
+
+        @Override
+        int prefixLengthAt(int node) {
+            return this.prefixLengths[node] & 0xFF;
+        }
+
+        @Override
+        int childAt(int index) {
+            return this.children[index];
+        }
+
+    }
+
+    private static final class MappedIPv6PrefixTrie extends IPv6PrefixTrie {
+
+        private final LongBuffer prefixHighs;
+        private final LongBuffer prefixLows;
+        private final ByteBuffer prefixLengths;
+        private final IntBuffer children;
+        private final ShortBuffer countryIds;
+        private final int nodes;
+
+        private MappedIPv6PrefixTrie(LongBuffer prefixHighs, LongBuffer prefixLows, ByteBuffer prefixLengths,
+                                     IntBuffer children, ShortBuffer countryIds, int nodes, int size) {
+            super(size);
+            this.prefixHighs = prefixHighs;
+            this.prefixLows = prefixLows;
+            this.prefixLengths = prefixLengths;
+            this.children = children;
+            this.countryIds = countryIds;
+            this.nodes = nodes;
+        }
+
+        @Override
+        public short getCountryIdAt(int index) {
+            return this.countryIds.get(index);
+        }
+
+        @Override
+        public int nodes() {
+            return this.nodes;
+        }
+
+        @Override
+        long prefixHighAt(int node) {
+            return this.prefixHighs.get(node);
+        }
+
+        @Override
+        long prefixLowAt(int node) {
+            return this.prefixLows.get(node);
+        }
+
+        @Override
+        int prefixLengthAt(int node) {
+            return this.prefixLengths.get(node) & 0xFF;
+        }
+
+        @Override
+        int childAt(int index) {
+            return this.children.get(index);
+        }
+
+    }
+
+}
@@ -0,0 +1,484 @@
+package com.axlabs.ip2asn2cc.checker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+import com.axlabs.ip2asn2cc.model.CountryCodes;
+
+public abstract class RangeIndex {
+
+    // non-overlapping [start, end] ranges of unsigned 32-bit values, sorted by start,
+    // with the country id of each range stored at the same position; the ranges are
+    // either kept in arrays on the heap or read in place from a (memory-mapped) buffer
+    public static final RangeIndex EMPTY = new HeapRangeIndex(new int[0], new int[0], new short[0]);
+
+    private static final int SORTED_BATCH_THRESHOLD = 32;
+
+    private RangeIndex() {
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // reads an index written by writeTo into arrays on the heap: the count (padded to
+    // 8 bytes) followed by the starts, the ends and the country ids
+    public static RangeIndex readFrom(ByteBuffer buffer) throws IOException {
+        int size = readSize(buffer);
+        int[] starts = new int[size];
+        int[] ends = new int[size];
+        short[] countryIds = new short[size];
+        buffer.asIntBuffer().get(starts);
+        buffer.position(buffer.position() + size * 4);
+        buffer.asIntBuffer().get(ends);
+        buffer.position(buffer.position() + size * 4);
+        buffer.asShortBuffer().get(countryIds);
+        buffer.position(buffer.position() + size * 2);
+        return new HeapRangeIndex(starts, ends, countryIds);
+    }
+
+    // uses an index written by writeTo in place, without copying it: the lookups read
+    // straight from the buffer, so a memory-mapped file stays off the heap and its pages
+    // are shared by every process mapping the same file
+    public static RangeIndex wrap(ByteBuffer buffer) throws IOException {
+        int size = readSize(buffer);
+        IntBuffer starts = buffer.slice(buffer.position(), size * 4).asIntBuffer();
+        buffer.position(buffer.position() + size * 4);
+        IntBuffer ends = buffer.slice(buffer.position(), size * 4).asIntBuffer();
+        buffer.position(buffer.position() + size * 4);
+        ShortBuffer countryIds = buffer.slice(buffer.position(), size * 2).asShortBuffer();
+        buffer.position(buffer.position() + size * 2);
+        return new MappedRangeIndex(starts, ends, countryIds, size);
+    }
+
+    private static int readSize(ByteBuffer buffer) throws IOException {
+        int size = buffer.getInt();
+        buffer.getInt();
+        if (size < 0 || (long) size * 10 > buffer.remaining()) {
+            throw new IOException("Invalid range index size: " + size);
+        }
+        return size;
+    }
+
+    public int serializedSize() {
+        return 8 + size() * 10;
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        int size = size();
+        buffer.putInt(size);
+        buffer.putInt(0);
+        IntBuffer starts = buffer.asIntBuffer();
+        for (int i = 0; i < size; i++) {
+            starts.put(startAt(i));
+        }
+        buffer.position(buffer.position() + size * 4);
+        IntBuffer ends = buffer.asIntBuffer();
+        for (int i = 0; i < size; i++) {
+            ends.put(endAt(i));
+        }
+        buffer.position(buffer.position() + size * 4);
+        ShortBuffer countryIds = buffer.asShortBuffer();
+        for (int i = 0; i < size; i++) {
+            countryIds.put(getCountryIdAt(i));
+        }
+        buffer.position(buffer.position() + size * 2);
+    }
+
+    public abstract int size();
+
+    public abstract short getCountryIdAt(int index);
+
+    abstract int startAt(int index);
+
+    abstract int endAt(int index);
+
+    public int indexOf(int value) {
+        // find the last range starting at or before the value
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (Integer.compareUnsigned(startAt(mid), value) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (high >= 0 && Integer.compareUnsigned(value, endAt(high)) <= 0) {
+            return high;
+        }
+        return -1;
+    }
+
+    // looks up many values at once: they're sorted first, so the ranges are walked
+    // forward in order instead of doing an independent binary search for each value
+    public void indexesOf(int[] values, int[] indexes) {
+        if (indexes.length < values.length) {
+            throw new IllegalArgumentException("The indexes array is shorter than the values array.");
+        }
+        if (values.length < SORTED_BATCH_THRESHOLD) {
+            for (int i = 0; i < values.length; i++) {
+                indexes[i] = indexOf(values[i]);
+            }
+            return;
+        }
+
+        long[] order = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            order[i] = ((long) (values[i] ^ Integer.MIN_VALUE) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        int range = -1;
+        for (long entry : order) {
+            int value = (int) (entry >>> 32) ^ Integer.MIN_VALUE;
+            range = lastStartAtOrBefore(value, range);
+            indexes[(int) entry] = range >= 0 && Integer.compareUnsigned(value, endAt(range)) <= 0 ? range : -1;
+        }
+    }
+
+    // gallops forward from the previous answer, as the values come in ascending order
+    private int lastStartAtOrBefore(int value, int from) {
+        int low = Math.max(from, 0);
+        if (low >= size() || Integer.compareUnsigned(startAt(low), value) > 0) {
+            return low - 1;
+        }
+        int step = 1;
+        int high = low + step;
+        while (high < size() && Integer.compareUnsigned(startAt(high), value) <= 0) {
+            low = high;
+            step <<= 1;
+            high = low + step;
+        }
+        high = Math.min(high, size()) - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (Integer.compareUnsigned(startAt(mid), value) <= 0) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    public short getCountryId(int value) {
+        int index = indexOf(value);
+        return index >= 0 ? getCountryIdAt(index) : CountryCodes.UNKNOWN_ID;
+    }
+
+    // walks the fewest CIDR blocks that cover exactly the values whose country id passes
+    // the predicate, in ascending order: the matching ranges (and the gaps between them,
+    // which are of the unknown country) are coalesced into runs first, and every run is
+    // cut into the largest aligned blocks that fit
+    public void forEachCidr(IntPredicate countries, CidrConsumer consumer) {
+        boolean unknown = countries.test(CountryCodes.UNKNOWN_ID);
+        CidrRun run = new CidrRun(consumer);
+        long next = 0;
+        int size = size();
+        for (int i = 0; i <= size; i++) {
+            long start = i < size ? startAt(i) & 0xFFFFFFFFL : 0x1_0000_0000L;
+            if (start > next && unknown) {
+                run.add(next, start - 1);
+            }
+            if (i < size) {
+                if (countries.test(getCountryIdAt(i))) {
+                    run.add(start, endAt(i) & 0xFFFFFFFFL);
+                }
+                next = (endAt(i) & 0xFFFFFFFFL) + 1;
+            }
+        }
+        run.flush();
+    }
+
+    public static final class Builder {
+
+        private int[] starts = new int[1024];
+        private int[] ends = new int[1024];
+        private short[] countryIds = new short[1024];
+        private int size;
+
+        private Builder() {
+        }
+
+        public Builder add(int start, int end, short countryId) {
+            if (Integer.compareUnsigned(start, end) > 0) {
+                throw new IllegalArgumentException("Range start is after its end.");
+            }
+            ensureCapacity(this.size + 1);
+            this.starts[this.size] = start;
+            this.ends[this.size] = end;
+            this.countryIds[this.size] = countryId;
+            this.size++;
+            return this;
+        }
+
+        // adds count ranges given as start/end pairs, e.g. a whole chunk of parsed records
+        public Builder addAll(int[] ranges, short[] countryIds, int count) {
+            for (int i = 0; i < count; i++) {
+                if (Integer.compareUnsigned(ranges[2 * i], ranges[2 * i + 1]) > 0) {
+                    throw new IllegalArgumentException("Range start is after its end.");
+                }
+            }
+            ensureCapacity(this.size + count);
+            for (int i = 0; i < count; i++) {
+                this.starts[this.size + i] = ranges[2 * i];
+                this.ends[this.size + i] = ranges[2 * i + 1];
+            }
+            System.arraycopy(countryIds, 0, this.countryIds, this.size, count);
+            this.size += count;
+            return this;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > this.starts.length) {
+                capacity = Math.max(capacity, this.starts.length * 2);
+                this.starts = Arrays.copyOf(this.starts, capacity);
+                this.ends = Arrays.copyOf(this.ends, capacity);
+                this.countryIds = Arrays.copyOf(this.countryIds, capacity);
+            }
+        }
+
+        // the ranges are kept exactly as added; where they overlap, the smallest (most
+        // specific) range wins the shared values, and between ranges of the same size the
+        // one added first wins. Adjacent ranges of the same country are merged into one.
+        public RangeIndex build() {
+            Runs runs = new Runs(this.size);
+            resolve((start, end, position) -> runs.add(start, end, this.countryIds[position]));
+            return runs.toIndex();
+        }
+
+        // walks the ranges the way build sees them: sorted, without overlaps, every piece
+        // with the position (in the order they were added) of the range that wins it
+        public void resolve(ResolvedRangeConsumer consumer) {
+            // sort by the unsigned start, keeping the insertion position in the low bits;
+            // the sort runs on all the cores once there are enough ranges
+            long[] order = new long[this.size];
+            for (int i = 0; i < this.size; i++) {
+                order[i] = ((long) (this.starts[i] ^ Integer.MIN_VALUE) << 32) | i;
+            }
+            Arrays.parallelSort(order);
+
+            boolean overlapping = false;
+            for (int k = 1; k < this.size && !overlapping; k++) {
+                overlapping = Integer.compareUnsigned(this.starts[(int) order[k]], this.ends[(int) order[k - 1]]) <= 0;
+            }
+
+            if (!overlapping) {
+                for (long entry : order) {
+                    int i = (int) entry;
+                    consumer.accept(this.starts[i], this.ends[i], i);
+                }
+            } else {
+                sweep(order, consumer);
+            }
+        }
+
+        // walks the values from range boundary to range boundary, keeping the ranges that
+        // cover the current value in a queue ordered by their priority
+        private void sweep(long[] order, ResolvedRangeConsumer consumer) {
+            PriorityQueue<Long> active = new PriorityQueue<>();
+            int next = 0;
+            long position = 0;
+            while (next < order.length || !active.isEmpty()) {
+                if (active.isEmpty()) {
+                    position = unsigned(this.starts[(int) order[next]]);
+                }
+                while (next < order.length && unsigned(this.starts[(int) order[next]]) == position) {
+                    int i = (int) order[next++];
+                    // smaller ranges first, then the insertion position
+                    long size = unsigned(this.ends[i]) - unsigned(this.starts[i]);
+                    active.add((size << 31) | i);
+                }
+                while (!active.isEmpty() && unsigned(this.ends[(int) (active.peek() & 0x7FFFFFFF)]) < position) {
+                    active.poll();
+                }
+                if (active.isEmpty()) {
+                    continue;
+                }
+                int winner = (int) (active.peek() & 0x7FFFFFFF);
+                long end = unsigned(this.ends[winner]);
+                if (next < order.length) {
+                    end = Math.min(end, unsigned(this.starts[(int) order[next]]) - 1);
+                }
+                consumer.accept((int) position, (int) end, winner);
+                position = end + 1;
+            }
+        }
+
+        private static long unsigned(int value) {
+            return value & 0xFFFFFFFFL;
+        }
+
+    }
+
+    public interface ResolvedRangeConsumer {
+
+        void accept(int start, int end, int position);
+
+    }
+
+    public interface CidrConsumer {
+
+        // the first value of the block and its prefix length: the block has 2^(32 - length) values
+        void accept(int start, int length);
+
+    }
+
+    private static final class CidrRun {
+
+        private final CidrConsumer consumer;
+        private long start = -1;
+        private long end;
+
+        private CidrRun(CidrConsumer consumer) {
+            this.consumer = consumer;
+        }
+
+        private void add(long start, long end) {
+            if (this.start >= 0 && this.end + 1 == start) {
+                this.end = end;
+                return;
+            }
+            flush();
+            this.start = start;
+            this.end = end;
+        }
+
+        private void flush() {
+            long position = this.start;
+            while (position >= 0 && position <= this.end) {
+                // as large as the alignment of the position allows, without passing the end
+                int bits = Math.min(Long.numberOfTrailingZeros(position),
+                        63 - Long.numberOfLeadingZeros(this.end - position + 1));
+                this.consumer.accept((int) position, 32 - bits);
+                position += 1L << bits;
+            }
+            this.start = -1;
+        }
+
+    }
+
+    // the sorted, non-overlapping output of the builder, merging adjacent ranges of the same country
+    private static final class Runs {
+
+        private int[] starts;
+        private int[] ends;
+        private short[] countryIds;
+        private int count;
+
+        private Runs(int capacity) {
+            this.starts = new int[capacity];
+            this.ends = new int[capacity];
+            this.countryIds = new short[capacity];
+        }
+
+        private void add(int start, int end, short countryId) {
+            if (this.count > 0 && this.countryIds[this.count - 1] == countryId
+                    && this.ends[this.count - 1] != -1 && this.ends[this.count - 1] + 1 == start) {
+                this.ends[this.count - 1] = end;
+                return;
+            }
+            if (this.count == this.starts.length) {
+                // only overlapping ranges can be cut into more pieces than there are ranges
+                int capacity = Math.max(this.count * 2, 16);
+                this.starts = Arrays.copyOf(this.starts, capacity);
+                this.ends = Arrays.copyOf(this.ends, capacity);
+                this.countryIds = Arrays.copyOf(this.countryIds, capacity);
+            }
+            this.starts[this.count] = start;
+            this.ends[this.count] = end;
+            this.countryIds[this.count] = countryId;
+            this.count++;
+        }
+
+        private RangeIndex toIndex() {
+            return new HeapRangeIndex(
+                    Arrays.copyOf(this.starts, this.count),
+                    Arrays.copyOf(this.ends, this.count),
+                    Arrays.copyOf(this.countryIds, this.count));
+        }
+
+    }
+
+    private static final class HeapRangeIndex extends RangeIndex {
+
+        private final int[] starts;
+        private final int[] ends;
+        private final short[] countryIds;
+
+        private HeapRangeIndex(int[] starts, int[] ends, short[] countryIds) {
+            this.starts = starts;
+            this.ends = ends;
+            this.countryIds = countryIds;
+        }
+
+        @Override
+        public int size() {
+            return this.starts.length;
+        }
+
+        @Override
+        public short getCountryIdAt(int index) {
+            return this.countryIds[index];
+        }
+
+        @Override
+        int startAt(int index) {
+            return this.starts[index];
+        }
+
+        @Override
+        int endAt(int index) {
+            return this.ends[index];
+        }
+
+    }
+
+    private static final class MappedRangeIndex extends RangeIndex {
+
+        private final IntBuffer starts;
+        private final IntBuffer ends;
+        private final ShortBuffer countryIds;
+        private final int size;
+
+        private MappedRangeIndex(IntBuffer starts, IntBuffer ends, ShortBuffer countryIds, int size) {
+            this.starts = starts;
+            this.ends = ends;
+            this.countryIds = countryIds;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        @Override
+        public short getCountryIdAt(int index) {
+            return this.countryIds.get(index);
+        }
+
+        @Override
+        int startAt(int index) {
+            return this.starts.get(index);
+        }
+
+        @Override
+        int endAt(int index) {
+            return this.ends.get(index);
+        }
+
+    }
+
+}
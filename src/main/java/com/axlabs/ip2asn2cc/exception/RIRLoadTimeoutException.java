@@ -0,0 +1,11 @@
+package com.axlabs.ip2asn2cc.exception;
+
+// a stage of the load didn't finish in time; it's a RIRNotDownloadedException, so
+// callers that only handle that one keep working
+public class RIRLoadTimeoutException extends RIRNotDownloadedException {
+
+    public RIRLoadTimeoutException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.axlabs.ip2asn2cc.metrics;
+
+import java.time.Instant;
+
+// receives what happens inside Ip2Asn2Cc: the lookups, every load and the dataset it
+// produced. The lookups are reported from the calling threads, so an implementation has to
+// be thread safe and cheap, e.g. LongAdders instead of locks. With NOOP (the default)
+// nothing is measured at all, not even the time of the lookups.
+public interface Ip2Asn2CcMetrics {
+
+    Ip2Asn2CcMetrics NOOP = new Ip2Asn2CcMetrics() {
+    };
+
+    // a single lookup, which took nanos
+    default void recordLookup(LookupType type, long nanos) {
+    }
+
+    // a batch of count lookups, which took nanos altogether
+    default void recordLookups(LookupType type, int count, long nanos) {
+    }
+
+    // a RIR file that was downloaded; parseNanos is the time spent parsing its chunks, which
+    // mostly overlaps with the download
+    default void recordRIRFile(String source, long bytes, long downloadNanos, long parseNanos) {
+    }
+
+    default void recordLoadStage(String stage, long nanos) {
+    }
+
+    // a dataset that was just published for the lookups; indexBytes is the size of its
+    // indexes, on the heap or in the mapped snapshot file
+    default void recordDataset(long generation, Instant loadedAt, int ipv4Ranges, int ipv6Prefixes, int asnRanges,
+                               long indexBytes) {
+    }
+
+}
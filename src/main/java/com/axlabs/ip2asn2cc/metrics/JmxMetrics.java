@@ -0,0 +1,194 @@
+package com.axlabs.ip2asn2cc.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// keeps the metrics in memory and exposes them as an MXBean, e.g. for JConsole or a JMX exporter
+public class JmxMetrics implements Ip2Asn2CcMetrics, JmxMetricsMXBean {
+
+    private final Map<LookupType, LatencyHistogram> lookups = new EnumMap<>(LookupType.class);
+    private final Map<String, Long> rirFileBytes = new ConcurrentHashMap<>();
+    private final Map<String, Long> rirFileDownloadNanos = new ConcurrentHashMap<>();
+    private final Map<String, Long> rirFileParseNanos = new ConcurrentHashMap<>();
+    private final Map<String, Long> loadStageNanos = new ConcurrentHashMap<>();
+    private volatile DatasetInfo dataset = new DatasetInfo(0, null, 0, 0, 0, 0);
+
+    public JmxMetrics() {
+        for (LookupType type : LookupType.values()) {
+            this.lookups.put(type, new LatencyHistogram());
+        }
+    }
+
+    // registers the MXBean as com.axlabs.ip2asn2cc:type=Ip2Asn2Cc,name=<name> in the platform MBean server
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("com.axlabs.ip2asn2cc", new Hashtable<>(Map.of(
+                "type", "Ip2Asn2Cc", "name", ObjectName.quote(name))));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, objectName);
+        } catch (InstanceAlreadyExistsException e) {
+            // replace the instance registered by a previous Ip2Asn2Cc of the same name
+            try {
+                server.unregisterMBean(objectName);
+            } catch (InstanceNotFoundException ignored) {
+                // already gone
+            }
+            server.registerMBean(this, objectName);
+        }
+        return objectName;
+    }
+
+    public LatencyHistogram getLookupLatency(LookupType type) {
+        return this.lookups.get(type);
+    }
+
+    @Override
+    public void recordLookup(LookupType type, long nanos) {
+        this.lookups.get(type).record(nanos);
+    }
+
+    @Override
+    public void recordLookups(LookupType type, int count, long nanos) {
+        if (count > 0) {
+            this.lookups.get(type).record(count, nanos / count);
+        }
+    }
+
+    @Override
+    public void recordRIRFile(String source, long bytes, long downloadNanos, long parseNanos) {
+        this.rirFileBytes.put(source, bytes);
+        this.rirFileDownloadNanos.put(source, downloadNanos);
+        this.rirFileParseNanos.put(source, parseNanos);
+    }
+
+    @Override
+    public void recordLoadStage(String stage, long nanos) {
+        this.loadStageNanos.put(stage, nanos);
+    }
+
+    @Override
+    public void recordDataset(long generation, Instant loadedAt, int ipv4Ranges, int ipv6Prefixes, int asnRanges,
+                              long indexBytes) {
+        this.dataset = new DatasetInfo(generation, loadedAt, ipv4Ranges, ipv6Prefixes, asnRanges, indexBytes);
+    }
+
+    @Override
+    public long getIPv4LookupCount() {
+        return this.lookups.get(LookupType.IPV4).getCount();
+    }
+
+    @Override
+    public double getIPv4LookupMeanNanos() {
+        return this.lookups.get(LookupType.IPV4).getMeanNanos();
+    }
+
+    @Override
+    public long getIPv4LookupP99Nanos() {
+        return this.lookups.get(LookupType.IPV4).getPercentileNanos(99);
+    }
+
+    @Override
+    public long getIPv6LookupCount() {
+        return this.lookups.get(LookupType.IPV6).getCount();
+    }
+
+    @Override
+    public double getIPv6LookupMeanNanos() {
+        return this.lookups.get(LookupType.IPV6).getMeanNanos();
+    }
+
+    @Override
+    public long getIPv6LookupP99Nanos() {
+        return this.lookups.get(LookupType.IPV6).getPercentileNanos(99);
+    }
+
+    @Override
+    public long getASNLookupCount() {
+        return this.lookups.get(LookupType.ASN).getCount();
+    }
+
+    @Override
+    public double getASNLookupMeanNanos() {
+        return this.lookups.get(LookupType.ASN).getMeanNanos();
+    }
+
+    @Override
+    public long getASNLookupP99Nanos() {
+        return this.lookups.get(LookupType.ASN).getPercentileNanos(99);
+    }
+
+    @Override
+    public Map<String, Long> getRIRFileBytes() {
+        return new TreeMap<>(this.rirFileBytes);
+    }
+
+    @Override
+    public Map<String, Long> getRIRFileDownloadMillis() {
+        return toMillis(this.rirFileDownloadNanos);
+    }
+
+    @Override
+    public Map<String, Long> getRIRFileParseMillis() {
+        return toMillis(this.rirFileParseNanos);
+    }
+
+    @Override
+    public Map<String, Long> getLoadStageMillis() {
+        return toMillis(this.loadStageNanos);
+    }
+
+    @Override
+    public long getGeneration() {
+        return this.dataset.generation;
+    }
+
+    @Override
+    public long getGenerationAgeSeconds() {
+        Instant loadedAt = this.dataset.loadedAt;
+        return loadedAt == null ? 0 : Duration.between(loadedAt, Instant.now()).getSeconds();
+    }
+
+    @Override
+    public int getIPv4Ranges() {
+        return this.dataset.ipv4Ranges;
+    }
+
+    @Override
+    public int getIPv6Prefixes() {
+        return this.dataset.ipv6Prefixes;
+    }
+
+    @Override
+    public int getASNRanges() {
+        return this.dataset.asnRanges;
+    }
+
+    @Override
+    public long getIndexBytes() {
+        return this.dataset.indexBytes;
+    }
+
+    private static Map<String, Long> toMillis(Map<String, Long> nanos) {
+        Map<String, Long> millis = new TreeMap<>();
+        nanos.forEach((key, value) -> millis.put(key, TimeUnit.NANOSECONDS.toMillis(value)));
+        return millis;
+    }
+
+    private record DatasetInfo(long generation, Instant loadedAt, int ipv4Ranges, int ipv6Prefixes, int asnRanges,
+                               long indexBytes) {
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.axlabs.ip2asn2cc.metrics;
+
+import java.util.Map;
+
+// the attributes JmxMetrics exposes; durations are in nanoseconds unless the name says otherwise
+public interface JmxMetricsMXBean {
+
+    long getIPv4LookupCount();
+
+    double getIPv4LookupMeanNanos();
+
+    long getIPv4LookupP99Nanos();
+
+    long getIPv6LookupCount();
+
+    double getIPv6LookupMeanNanos();
+
+    long getIPv6LookupP99Nanos();
+
+    long getASNLookupCount();
+
+    double getASNLookupMeanNanos();
+
+    long getASNLookupP99Nanos();
+
+    Map<String, Long> getRIRFileBytes();
+
+    Map<String, Long> getRIRFileDownloadMillis();
+
+    Map<String, Long> getRIRFileParseMillis();
+
+    Map<String, Long> getLoadStageMillis();
+
+    long getGeneration();
+
+    long getGenerationAgeSeconds();
+
+    int getIPv4Ranges();
+
+    int getIPv6Prefixes();
+
+    int getASNRanges();
+
+    long getIndexBytes();
+
+}
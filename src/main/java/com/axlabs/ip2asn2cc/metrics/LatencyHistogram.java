@@ -0,0 +1,67 @@
+package com.axlabs.ip2asn2cc.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public final class LatencyHistogram {
+
+    // bucket i counts the durations in [2^(i-1), 2^i) nanoseconds, which is precise enough
+    // to tell a cache hit from an index search and costs two LongAdder increments to record
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        record(1, nanos);
+    }
+
+    // count durations of nanos each
+    public void record(long count, long nanos) {
+        long value = Math.max(nanos, 0);
+        this.buckets[Math.min(BUCKETS - Long.numberOfLeadingZeros(value), BUCKETS - 1)].add(count);
+        this.totalNanos.add(value * count);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : this.buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return this.totalNanos.sum();
+    }
+
+    public double getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getTotalNanos() / count;
+    }
+
+    // the upper bound of the bucket the given percentile (0 to 100) falls into
+    public long getPercentileNanos(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.buckets[i].sum();
+            count += counts[i];
+        }
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return i == 0 ? 0 : (1L << i) - 1;
+            }
+        }
+        return 0;
+    }
+
+}
@@ -0,0 +1,7 @@
+package com.axlabs.ip2asn2cc.metrics;
+
+public enum LookupType {
+    IPV4,
+    IPV6,
+    ASN
+}
@@ -0,0 +1,135 @@
+package com.axlabs.ip2asn2cc.metrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+
+// records the metrics in a Micrometer registry; Micrometer is an optional dependency,
+// so it has to be on the classpath of the application that uses this class
+public class MicrometerMetrics implements Ip2Asn2CcMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<LookupType, Timer> lookupTimers = new EnumMap<>(LookupType.class);
+    private final Map<LookupType, Timer> batchTimers = new EnumMap<>(LookupType.class);
+    private final Map<LookupType, Counter> batchAddresses = new EnumMap<>(LookupType.class);
+    private final Map<String, Timer> downloadTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> parseTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> fileSizes = new ConcurrentHashMap<>();
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+    private volatile long generation;
+    private volatile Instant loadedAt;
+    private volatile int ipv4Ranges;
+    private volatile int ipv6Prefixes;
+    private volatile int asnRanges;
+    private volatile long indexBytes;
+
+    public MicrometerMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (LookupType type : LookupType.values()) {
+            String tag = type.name().toLowerCase(Locale.ROOT);
+            this.lookupTimers.put(type, Timer.builder("ip2asn2cc.lookup")
+                    .description("Single address or ASN lookups")
+                    .tag("type", tag)
+                    .publishPercentileHistogram()
+                    .register(registry));
+            this.batchTimers.put(type, Timer.builder("ip2asn2cc.lookup.batch")
+                    .description("Batch lookups")
+                    .tag("type", tag)
+                    .register(registry));
+            this.batchAddresses.put(type, Counter.builder("ip2asn2cc.lookup.batch.addresses")
+                    .description("Addresses looked up in batches")
+                    .tag("type", tag)
+                    .register(registry));
+        }
+        Gauge.builder("ip2asn2cc.index.entries", this, metrics -> metrics.ipv4Ranges)
+                .description("Entries in the indexes of the current dataset")
+                .tag("type", "ipv4")
+                .register(registry);
+        Gauge.builder("ip2asn2cc.index.entries", this, metrics -> metrics.ipv6Prefixes)
+                .description("Entries in the indexes of the current dataset")
+                .tag("type", "ipv6")
+                .register(registry);
+        Gauge.builder("ip2asn2cc.index.entries", this, metrics -> metrics.asnRanges)
+                .description("Entries in the indexes of the current dataset")
+                .tag("type", "asn")
+                .register(registry);
+        Gauge.builder("ip2asn2cc.index.size", this, metrics -> metrics.indexBytes)
+                .description("Size of the indexes of the current dataset")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("ip2asn2cc.generation", this, metrics -> metrics.generation)
+                .description("Generation of the current dataset")
+                .register(registry);
+        TimeGauge.builder("ip2asn2cc.generation.age", this, TimeUnit.MILLISECONDS, MicrometerMetrics::generationAgeMillis)
+                .description("Time since the current dataset was loaded")
+                .register(registry);
+    }
+
+    @Override
+    public void recordLookup(LookupType type, long nanos) {
+        this.lookupTimers.get(type).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordLookups(LookupType type, int count, long nanos) {
+        this.batchTimers.get(type).record(nanos, TimeUnit.NANOSECONDS);
+        this.batchAddresses.get(type).increment(count);
+    }
+
+    @Override
+    public void recordRIRFile(String source, long bytes, long downloadNanos, long parseNanos) {
+        this.downloadTimers.computeIfAbsent(source, name -> Timer.builder("ip2asn2cc.rir.download")
+                .description("Download of a RIR file")
+                .tag("source", name)
+                .register(this.registry))
+                .record(downloadNanos, TimeUnit.NANOSECONDS);
+        this.parseTimers.computeIfAbsent(source, name -> Timer.builder("ip2asn2cc.rir.parse")
+                .description("Parsing of a RIR file, summed over its chunks")
+                .tag("source", name)
+                .register(this.registry))
+                .record(parseNanos, TimeUnit.NANOSECONDS);
+        this.fileSizes.computeIfAbsent(source, name -> DistributionSummary.builder("ip2asn2cc.rir.size")
+                .description("Size of a downloaded RIR file")
+                .baseUnit("bytes")
+                .tag("source", name)
+                .register(this.registry))
+                .record(bytes);
+    }
+
+    @Override
+    public void recordLoadStage(String stage, long nanos) {
+        this.stageTimers.computeIfAbsent(stage, name -> Timer.builder("ip2asn2cc.load.stage")
+                .description("Stage of a load")
+                .tag("stage", name)
+                .register(this.registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordDataset(long generation, Instant loadedAt, int ipv4Ranges, int ipv6Prefixes, int asnRanges,
+                              long indexBytes) {
+        this.generation = generation;
+        this.loadedAt = loadedAt;
+        this.ipv4Ranges = ipv4Ranges;
+        this.ipv6Prefixes = ipv6Prefixes;
+        this.asnRanges = asnRanges;
+        this.indexBytes = indexBytes;
+    }
+
+    private double generationAgeMillis() {
+        Instant loaded = this.loadedAt;
+        return loaded == null ? 0 : Duration.between(loaded, Instant.now()).toMillis();
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.axlabs.ip2asn2cc.model;
+
+import java.util.List;
+
+public final class CountryCodes {
+
+    // country codes in the RIR files are ISO 3166 2-letter codes, so every
+    // code maps to a dense id in [0, 26 * 26) without the need of a lookup table
+    public static final String UNKNOWN = "Unknown";
+    public static final short UNKNOWN_ID = -1;
+    public static final int SIZE = 26 * 26;
+
+    private static final String[] CODES = new String[SIZE];
+    private static final List<String> ALL;
+
+    static {
+        for (int id = 0; id < SIZE; id++) {
+            CODES[id] = String.valueOf(new char[]{(char) ('A' + id / 26), (char) ('A' + id % 26)});
+        }
+        ALL = List.of(CODES);
+    }
+
+    private CountryCodes() {
+    }
+
+    public static short toId(String countryCode) {
+        if (countryCode == null || countryCode.length() != 2) {
+            return UNKNOWN_ID;
+        }
+        return toId(countryCode.charAt(0), countryCode.charAt(1));
+    }
+
+    public static short toId(char first, char second) {
+        int f = Character.toUpperCase(first) - 'A';
+        int s = Character.toUpperCase(second) - 'A';
+        if (f < 0 || f >= 26 || s < 0 || s >= 26) {
+            return UNKNOWN_ID;
+        }
+        return (short) (f * 26 + s);
+    }
+
+    public static String toCode(short id) {
+        return id >= 0 && id < SIZE ? CODES[id] : UNKNOWN;
+    }
+
+    // every possible 2-letter code, used as the rules to load the records of all countries
+    public static List<String> all() {
+        return ALL;
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.axlabs.ip2asn2cc.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+public final class CountryFilter {
+
+    // an immutable set of country codes kept as a bitset over the country ids, so
+    // testing a lookup result is a couple of bit operations and many filters can be
+    // evaluated against one shared dataset
+    private final FilterPolicy filterPolicy;
+    private final long[] bits = new long[(CountryCodes.SIZE + 63) / 64];
+
+    private CountryFilter(FilterPolicy filterPolicy, Collection<String> countryCodes) {
+        if (filterPolicy == null) {
+            throw new IllegalArgumentException("The filter policy is required.");
+        }
+        this.filterPolicy = filterPolicy;
+        for (String countryCode : countryCodes) {
+            short countryId = CountryCodes.toId(countryCode);
+            if (countryId < 0) {
+                throw new IllegalArgumentException("Invalid country code: " + countryCode);
+            }
+            this.bits[countryId >>> 6] |= 1L << countryId;
+        }
+    }
+
+    public static CountryFilter of(FilterPolicy filterPolicy, Collection<String> countryCodes) {
+        return new CountryFilter(filterPolicy, countryCodes);
+    }
+
+    public static CountryFilter include(String... countryCodes) {
+        return new CountryFilter(FilterPolicy.INCLUDE_COUNTRY_CODES, Arrays.asList(countryCodes));
+    }
+
+    public static CountryFilter exclude(String... countryCodes) {
+        return new CountryFilter(FilterPolicy.EXCLUDE_COUNTRY_CODES, Arrays.asList(countryCodes));
+    }
+
+    // an unknown country (an address or ASN that isn't registered) is never included,
+    // so it passes an exclude filter and fails an include filter
+    public boolean test(short countryId) {
+        boolean listed = countryId >= 0 && countryId < CountryCodes.SIZE
+                && (this.bits[countryId >>> 6] & (1L << countryId)) != 0;
+        return (this.filterPolicy == FilterPolicy.INCLUDE_COUNTRY_CODES) == listed;
+    }
+
+    public boolean test(String countryCode) {
+        return test(CountryCodes.toId(countryCode));
+    }
+
+    public FilterPolicy getFilterPolicy() {
+        return this.filterPolicy;
+    }
+
+    public List<String> getCountryCodes() {
+        List<String> countryCodes = new ArrayList<>();
+        for (short countryId = 0; countryId < CountryCodes.SIZE; countryId++) {
+            if ((this.bits[countryId >>> 6] & (1L << countryId)) != 0) {
+                countryCodes.add(CountryCodes.toCode(countryId));
+            }
+        }
+        return countryCodes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CountryFilter that = (CountryFilter) o;
+        return this.filterPolicy == that.filterPolicy && Arrays.equals(this.bits, that.bits);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.filterPolicy.hashCode() + Arrays.hashCode(this.bits);
+    }
+
+    @Override
+    public String toString() {
+        return "CountryFilter{" + this.filterPolicy + " " + getCountryCodes() + "}";
+    }
+
+}
@@ -0,0 +1,183 @@
+package com.axlabs.ip2asn2cc.model;
+
+public final class IPAddressParser {
+
+    // hand-written parsers for the textual address formats: they work on any range
+    // of a CharSequence and never allocate, so they can be used on the lookup path
+    // as well as directly on the bytes of the RIR files
+
+    private IPAddressParser() {
+    }
+
+    // parses a dotted-quad address into its unsigned value, or -1 if it's not a valid ipv4 address
+    public static long parseIPv4(CharSequence text) {
+        return text == null ? -1 : parseIPv4(text, 0, text.length());
+    }
+
+    public static long parseIPv4(CharSequence text, int from, int to) {
+        int length = to - from;
+        if (length < 7 || length > 15) {
+            return -1;
+        }
+        long address = 0;
+        int octet = 0;
+        int digits = 0;
+        int dots = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digits > 0 && octet == 0) {
+                    // leading zeros are not accepted
+                    return -1;
+                }
+                octet = octet * 10 + (c - '0');
+                if (++digits > 3 || octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && digits > 0 && ++dots <= 3) {
+                address = (address << 8) | octet;
+                octet = 0;
+                digits = 0;
+            } else {
+                return -1;
+            }
+        }
+        if (dots != 3 || digits == 0) {
+            return -1;
+        }
+        return (address << 8) | octet;
+    }
+
+    // parses an ipv6 address (including the "::" compression and an embedded ipv4 suffix)
+    // into its high and low 64 bits, returning false if it's not a valid ipv6 address
+    public static boolean parseIPv6(CharSequence text, long[] highAndLow) {
+        return text != null && parseIPv6(text, 0, text.length(), highAndLow);
+    }
+
+    public static boolean parseIPv6(CharSequence text, int from, int to, long[] highAndLow) {
+        if (to - from < 2 || to - from > 45) {
+            return false;
+        }
+        // groups before the "::" go to the head, groups after it to the tail
+        long headHigh = 0;
+        long headLow = 0;
+        long tailHigh = 0;
+        long tailLow = 0;
+        int headGroups = 0;
+        int tailGroups = 0;
+        boolean compressed = false;
+
+        int i = from;
+        if (text.charAt(i) == ':') {
+            if (text.charAt(i + 1) != ':') {
+                return false;
+            }
+            compressed = true;
+            i += 2;
+        }
+        while (i < to) {
+            int groupStart = i;
+            int value = 0;
+            int digit;
+            while (i < to && i - groupStart < 4 && (digit = hexDigit(text.charAt(i))) >= 0) {
+                value = (value << 4) | digit;
+                i++;
+            }
+            if (i == groupStart) {
+                return false;
+            }
+            int groups = 1;
+            if (i < to && text.charAt(i) == '.') {
+                // the last 32 bits written as an ipv4 address
+                long ipv4 = parseIPv4(text, groupStart, to);
+                if (ipv4 < 0) {
+                    return false;
+                }
+                value = (int) ipv4;
+                groups = 2;
+                i = to;
+            }
+            if (headGroups + tailGroups + groups > 8) {
+                return false;
+            }
+            int shift = groups * 16;
+            long bits = groups == 2 ? value & 0xFFFFFFFFL : value;
+            if (compressed) {
+                tailHigh = (tailHigh << shift) | (tailLow >>> (64 - shift));
+                tailLow = (tailLow << shift) | bits;
+                tailGroups += groups;
+            } else {
+                headHigh = (headHigh << shift) | (headLow >>> (64 - shift));
+                headLow = (headLow << shift) | bits;
+                headGroups += groups;
+            }
+            if (i == to) {
+                break;
+            }
+            if (text.charAt(i++) != ':' || i == to) {
+                return false;
+            }
+            if (text.charAt(i) == ':') {
+                if (compressed) {
+                    return false;
+                }
+                compressed = true;
+                i++;
+            }
+        }
+
+        int groups = headGroups + tailGroups;
+        if (compressed ? groups > 7 : groups != 8) {
+            return false;
+        }
+        // move the head groups to the top of the address, the "::" fills the gap with zeros
+        int shift = 16 * (8 - headGroups);
+        if (shift >= 128) {
+            headHigh = 0;
+            headLow = 0;
+        } else if (shift >= 64) {
+            headHigh = headLow << (shift - 64);
+            headLow = 0;
+        } else if (shift > 0) {
+            headHigh = (headHigh << shift) | (headLow >>> (64 - shift));
+            headLow = headLow << shift;
+        }
+        highAndLow[0] = headHigh | tailHigh;
+        highAndLow[1] = headLow | tailLow;
+        return true;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    // parses an unsigned decimal number of up to 32 bits, or returns -1 if it's not valid
+    public static long parseUnsigned(CharSequence text) {
+        return text == null ? -1 : parseUnsigned(text, 0, text.length());
+    }
+
+    public static long parseUnsigned(CharSequence text, int from, int to) {
+        if (to <= from || to - from > 10) {
+            return -1;
+        }
+        long number = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number <= 0xFFFFFFFFL ? number : -1;
+    }
+
+}
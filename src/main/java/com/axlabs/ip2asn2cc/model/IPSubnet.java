@@ -23,8 +23,8 @@ public class IPSubnet {
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
-        
-        IPv6Subnet that = (IPv6Subnet) o;
+
+        IPSubnet that = (IPSubnet) o;
         return Objects.equals(address, that.address);
     }
 
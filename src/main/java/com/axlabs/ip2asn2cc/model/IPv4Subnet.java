@@ -22,16 +22,6 @@ public class IPv4Subnet extends IPSubnet {
         return amountOfAddresses;
     }
 
-    public String getCIDR() {
-        if (this.address != null && !this.address.isEmpty() && this.amountOfAddresses != null && this.amountOfAddresses != 0) {
-            // calculate the IPv4 CIDR based on the amount of hosts:
-            // http://www.cisco.com/c/en/us/support/docs/ip/routing-information-protocol-rip/13790-8.html
-            // http://networkengineering.stackexchange.com/questions/7106/how-do-you-calculate-the-prefix-network-subnet-and-host-numbers
-            return this.address + "/" + (32 - (int) Math.ceil(Math.log(this.amountOfAddresses) / Math.log(2)));
-        }
-        return null;
-    }
-
     public String getCountryCode() {
         return countryCode;
     }
@@ -39,7 +29,8 @@ public class IPv4Subnet extends IPSubnet {
     @Override
     public boolean equals(Object other) {
         if (other instanceof IPv4Subnet iPv4Subnet && (super.equals(iPv4Subnet))) {
-            return this.amountOfAddresses.equals(iPv4Subnet.getAmountOfAddresses()) && this.countryCode.equals(iPv4Subnet.getCountryCode());
+            return Objects.equals(this.amountOfAddresses, iPv4Subnet.getAmountOfAddresses())
+                    && Objects.equals(this.countryCode, iPv4Subnet.getCountryCode());
         }
 
         return false;
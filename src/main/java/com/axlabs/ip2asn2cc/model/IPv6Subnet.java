@@ -28,7 +28,8 @@ public class IPv6Subnet extends IPSubnet {
     @Override
     public boolean equals(Object other) {
         if (other instanceof IPv6Subnet iPv6Subnet && (super.equals(iPv6Subnet))) {
-            return this.networkMask.equals(iPv6Subnet.getNetworkMask()) && this.countryCode.equals(iPv6Subnet.getCountryCode());
+            return Objects.equals(this.networkMask, iPv6Subnet.getNetworkMask())
+                    && Objects.equals(this.countryCode, iPv6Subnet.getCountryCode());
         }
 
         return false;
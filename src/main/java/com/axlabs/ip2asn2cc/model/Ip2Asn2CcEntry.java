@@ -1,6 +0,0 @@
-package com.axlabs.ip2asn2cc.model;
-
-public record Ip2Asn2CcEntry(String registry, String inetFamily, String address, String countryCode, int addresses,
-                             String date) {
-
-}
@@ -0,0 +1,31 @@
+package com.axlabs.ip2asn2cc.model;
+
+import java.util.Locale;
+
+public enum RecordStatus {
+
+    ALLOCATED,
+    ASSIGNED;
+
+    // the statuses are stored as their ordinal in a byte column, -1 when unknown
+    public static final byte UNKNOWN_ID = -1;
+
+    private static final RecordStatus[] VALUES = values();
+
+    private final String name = name().toLowerCase(Locale.ROOT);
+
+    public byte getId() {
+        return (byte) ordinal();
+    }
+
+    // the name as it appears in the RIR files, e.g. allocated
+    public String getName() {
+        return this.name;
+    }
+
+    // null for UNKNOWN_ID
+    public static RecordStatus fromId(byte id) {
+        return id >= 0 && id < VALUES.length ? VALUES[id] : null;
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.axlabs.ip2asn2cc.model;
+
+import java.util.Locale;
+
+public enum Registry {
+
+    AFRINIC,
+    APNIC,
+    ARIN,
+    LACNIC,
+    RIPENCC;
+
+    // the registries are stored as their ordinal in a byte column, -1 when unknown
+    public static final byte UNKNOWN_ID = -1;
+
+    private static final Registry[] VALUES = values();
+
+    private final String name = name().toLowerCase(Locale.ROOT);
+
+    public byte getId() {
+        return (byte) ordinal();
+    }
+
+    // the name as it appears in the RIR files, e.g. ripencc
+    public String getName() {
+        return this.name;
+    }
+
+    // null for UNKNOWN_ID
+    public static Registry fromId(byte id) {
+        return id >= 0 && id < VALUES.length ? VALUES[id] : null;
+    }
+
+}
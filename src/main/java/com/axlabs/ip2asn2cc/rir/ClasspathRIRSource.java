@@ -0,0 +1,54 @@
+package com.axlabs.ip2asn2cc.rir;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// a RIR file bundled as a resource, e.g. the fixtures of tests and benchmarks
+public class ClasspathRIRSource implements RIRSource {
+
+    private final String resourceName;
+    private final ClassLoader classLoader;
+
+    public ClasspathRIRSource(String resourceName) {
+        this(resourceName, ClasspathRIRSource.class.getClassLoader());
+    }
+
+    public ClasspathRIRSource(String resourceName, ClassLoader classLoader) {
+        this.resourceName = resourceName.startsWith("/") ? resourceName.substring(1) : resourceName;
+        this.classLoader = classLoader;
+    }
+
+    // the five latest delegated files, bundled in one resource directory under their original
+    // names (see FileRIRSource.directory), e.g. to run tests without the network
+    public static List<RIRSource> directory(String resourceDirectory) {
+        String prefix = resourceDirectory.endsWith("/") ? resourceDirectory : resourceDirectory + "/";
+        List<RIRSource> sources = new ArrayList<>(RIR_FILE_NAMES.size());
+        for (String fileName : RIR_FILE_NAMES) {
+            sources.add(new ClasspathRIRSource(prefix + fileName));
+        }
+        return sources;
+    }
+
+    @Override
+    public String getName() {
+        return "classpath:" + this.resourceName;
+    }
+
+    @Override
+    public InputStream open() throws IOException {
+        InputStream inputStream = this.classLoader.getResourceAsStream(this.resourceName);
+        if (inputStream == null) {
+            throw new FileNotFoundException("RIR file not found on the classpath: " + this.resourceName);
+        }
+        return inputStream;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.axlabs.ip2asn2cc.rir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// a RIR file on the local disk, e.g. a copy kept up to date by a mirroring job
+public class FileRIRSource implements RIRSource {
+
+    private final Path path;
+
+    public FileRIRSource(Path path) {
+        this.path = path;
+    }
+
+    // the five latest delegated files, mirrored into one directory under their original names
+    public static List<RIRSource> directory(Path directory) {
+        List<RIRSource> sources = new ArrayList<>(RIR_FILE_NAMES.size());
+        for (String fileName : RIR_FILE_NAMES) {
+            sources.add(new FileRIRSource(directory.resolve(fileName)));
+        }
+        return sources;
+    }
+
+    @Override
+    public String getName() {
+        return this.path.toString();
+    }
+
+    @Override
+    public InputStream open() throws IOException {
+        return Files.newInputStream(this.path);
+    }
+
+    @Override
+    public RIRFileVersion fetchVersion() throws IOException {
+        return RIRFileVersion.ofFile(this.path);
+    }
+
+    @Override
+    public String toString() {
+        return this.path.toString();
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.axlabs.ip2asn2cc.rir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+// a RIR file on an HTTP(S) server, e.g. an internal mirror: all the sources share one
+// client by default, so the connections are kept alive and reused between files and loads
+public class HttpRIRSource implements RIRSource {
+
+    private static final HttpClient DEFAULT_CLIENT = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    private final URI uri;
+    private final HttpClient client;
+    private final Duration timeout;
+
+    public HttpRIRSource(URI uri) {
+        this(uri, null);
+    }
+
+    public HttpRIRSource(URI uri, Duration timeout) {
+        this(uri, DEFAULT_CLIENT, timeout);
+    }
+
+    public HttpRIRSource(URI uri, HttpClient client, Duration timeout) {
+        this.uri = uri;
+        this.client = client;
+        this.timeout = timeout;
+    }
+
+    // the five latest delegated files, mirrored under their original names below baseUri
+    public static List<RIRSource> mirror(URI baseUri, Duration timeout) {
+        String base = baseUri.toString().endsWith("/") ? baseUri.toString() : baseUri + "/";
+        List<RIRSource> sources = new ArrayList<>(RIR_FILE_NAMES.size());
+        for (String fileName : RIR_FILE_NAMES) {
+            sources.add(new HttpRIRSource(URI.create(base + fileName), timeout));
+        }
+        return sources;
+    }
+
+    @Override
+    public String getName() {
+        return this.uri.toString();
+    }
+
+    // the files compress well, so they're requested gzipped
+    @Override
+    public InputStream open() throws IOException {
+        HttpResponse<InputStream> response = send(newRequest(this.uri).header("Accept-Encoding", "gzip").GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("Unable to download " + this.uri + ", HTTP status " + response.statusCode());
+        }
+        boolean gzipped = response.headers().firstValue("Content-Encoding")
+                .filter("gzip"::equalsIgnoreCase)
+                .isPresent();
+        return gzipped ? new GZIPInputStream(response.body(), 1 << 16) : response.body();
+    }
+
+    // the MD5 published next to the file (<file>.md5) if there's one, otherwise the size
+    // and modification time of the file
+    @Override
+    public RIRFileVersion fetchVersion() throws IOException {
+        try {
+            HttpResponse<InputStream> md5Response = send(newRequest(URI.create(this.uri + ".md5")).GET().build(),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream inputStream = md5Response.body()) {
+                if (md5Response.statusCode() == 200) {
+                    String md5 = RIRFileVersion.parseMD5(inputStream);
+                    if (md5 != null) {
+                        return new RIRFileVersion(md5, -1, 0);
+                    }
+                }
+            }
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (IOException e) {
+            // the MD5 couldn't be fetched, same as UrlRIRSource
+        }
+        HttpResponse<Void> response = send(newRequest(this.uri).method("HEAD", HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            return RIRFileVersion.UNKNOWN;
+        }
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        long lastModified = response.headers().firstValue("Last-Modified")
+                .map(HttpRIRSource::parseHttpDate)
+                .orElse(0L);
+        return new RIRFileVersion(null, size, lastModified);
+    }
+
+    @Override
+    public Duration getTimeout() {
+        return this.timeout;
+    }
+
+    @Override
+    public String toString() {
+        return this.uri.toString();
+    }
+
+    private HttpRequest.Builder newRequest(URI requestUri) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(requestUri);
+        if (this.timeout != null) {
+            builder.timeout(this.timeout);
+        }
+        return builder;
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) throws IOException {
+        try {
+            return this.client.send(request, bodyHandler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while requesting " + request.uri());
+        }
+    }
+
+    private static long parseHttpDate(String date) {
+        try {
+            return ZonedDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+}
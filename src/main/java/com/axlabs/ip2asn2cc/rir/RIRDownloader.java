@@ -3,45 +3,137 @@ package com.axlabs.ip2asn2cc.rir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.net.URL;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
 
-public class RIRDownloader implements Runnable {
+public class RIRDownloader implements Callable<List<RIRRecords>> {
 
     private static final Logger LOG = LoggerFactory.getLogger(RIRDownloader.class);
 
-    private final List<File> listDownloadedFiles;
-    private final String urlToDownload;
+    private static final int CHUNK_SIZE = 1 << 20;
 
-    public RIRDownloader(List<File> listDownloadedFiles, String urlToDownload) {
-        this.listDownloadedFiles = listDownloadedFiles;
-        this.urlToDownload = urlToDownload;
+    private final RIRSource source;
+    private final List<String> listCountryCodeToLookFor;
+    private final Executor parseExecutor;
+    private long bytes;
+    private int chunks;
+    private long downloadNanos;
+    private final LongAdder parseNanos = new LongAdder();
+    private RIRFileVersion version;
+
+    public RIRDownloader(RIRSource source, List<String> listCountryCodeToLookFor, Executor parseExecutor) {
+        this.source = source;
+        this.listCountryCodeToLookFor = listCountryCodeToLookFor;
+        this.parseExecutor = parseExecutor;
     }
 
+    // the file is cut into line-aligned chunks while it's being downloaded, and every chunk
+    // is parsed on the parse executor as soon as it's complete, so a large file is parsed
+    // by many threads and the parsing overlaps with the rest of the download
     @Override
-    public void run() {
-        try {
-            File fileDownloaded = download(this.urlToDownload);
-            this.listDownloadedFiles.add(fileDownloaded);
-        } catch (Exception e) {
-            LOG.error("Error downloading the RIR file from URL (" + this.urlToDownload + ").", e);
-        }
+    public List<RIRRecords> call() throws IOException {
+        return download(this.source.fetchVersion());
     }
 
-    private File download(String urlString) throws Exception {
-        URL url = new URL(urlString);
-        File tempFile;
-        try (ReadableByteChannel rbc = Channels.newChannel(url.openStream())) {
-            tempFile = File.createTempFile("ip2asn2cc-", ".db");
-            try (FileOutputStream fos = new FileOutputStream(tempFile)) {
-                fos.getChannel().transferFrom(rbc, 0, Long.MAX_VALUE);
+    // availableVersion is the version the source announced right before the download
+    public List<RIRRecords> download(RIRFileVersion availableVersion) throws IOException {
+        long start = System.nanoTime();
+        List<CompletableFuture<RIRRecords>> parsedChunks = new ArrayList<>();
+        MessageDigest digest = newMD5Digest();
+        try (ReadableByteChannel channel = Channels.newChannel(new DigestInputStream(this.source.open(), digest))) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            byte[] bytes = buffer.array();
+            boolean endOfStream = false;
+            while (!endOfStream) {
+                while (buffer.hasRemaining() && !endOfStream) {
+                    int read = channel.read(buffer);
+                    endOfStream = read < 0;
+                    this.bytes += Math.max(read, 0);
+                }
+                int limit = buffer.position();
+                int chunkEnd = endOfStream ? limit : RIRParser.lastLineBreak(bytes, limit) + 1;
+                if (chunkEnd == 0 && limit == bytes.length) {
+                    LOG.warn("Skipping a line longer than {} bytes in the RIR file.", CHUNK_SIZE);
+                    chunkEnd = limit;
+                } else if (chunkEnd > 0) {
+                    parsedChunks.add(parse(Arrays.copyOf(bytes, chunkEnd)));
+                }
+                System.arraycopy(bytes, chunkEnd, bytes, 0, limit - chunkEnd);
+                buffer.position(limit - chunkEnd);
             }
+            // the content is checked against a published MD5, the size and modification time
+            // against what the source reports when there's no MD5
+            this.version = new RIRFileVersion(HexFormat.of().formatHex(digest.digest()), this.bytes,
+                    availableVersion.getLastModified());
+        }
+        this.downloadNanos = System.nanoTime() - start;
+        this.chunks = parsedChunks.size();
+        LOG.debug("Downloaded RIR file: {} ({} bytes, {} chunks)", this.source.getName(), this.bytes, this.chunks);
+
+        List<RIRRecords> records = new ArrayList<>(parsedChunks.size());
+        for (CompletableFuture<RIRRecords> parsedChunk : parsedChunks) {
+            records.add(parsedChunk.join());
+        }
+        return records;
+    }
+
+    public RIRSource getSource() {
+        return this.source;
+    }
+
+    public long getBytes() {
+        return this.bytes;
+    }
+
+    public int getChunks() {
+        return this.chunks;
+    }
+
+    public long getDownloadNanos() {
+        return this.downloadNanos;
+    }
+
+    // the time spent parsing the chunks, summed over the parse threads
+    public long getParseNanos() {
+        return this.parseNanos.sum();
+    }
+
+    // the version of the file that was downloaded, null until the download is complete
+    public RIRFileVersion getVersion() {
+        return this.version;
+    }
+
+    private static MessageDigest newMD5Digest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform has to support MD5
+            throw new IllegalStateException(e);
         }
-        LOG.debug("Downloaded RIR file: {}", urlString);
-        return tempFile;
     }
+
+    private CompletableFuture<RIRRecords> parse(byte[] chunk) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            RIRRecords records = new RIRRecords();
+            new RIRParser(this.listCountryCodeToLookFor).parse(chunk, 0, chunk.length, records);
+            records.trim();
+            this.parseNanos.add(System.nanoTime() - start);
+            return records;
+        }, this.parseExecutor);
+    }
+
 }
@@ -0,0 +1,79 @@
+package com.axlabs.ip2asn2cc.rir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public final class RIRFileVersion {
+
+    private static final Pattern MD5_PATTERN = Pattern.compile("\\b[0-9a-fA-F]{32}\\b");
+    private static final int MAX_MD5_FILE_SIZE = 4096;
+
+    public static final RIRFileVersion UNKNOWN = new RIRFileVersion(null, -1, 0);
+
+    private final String md5;
+    private final long size;
+    private final long lastModified;
+
+    // any of the values can be unknown: a null md5, a negative size or a lastModified of 0
+    public RIRFileVersion(String md5, long size, long lastModified) {
+        this.md5 = md5 == null ? null : md5.toLowerCase(Locale.ROOT);
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    // the size and modification time of a local file, or its published MD5 if there's a
+    // <file>.md5 next to it
+    static RIRFileVersion ofFile(Path path) throws IOException {
+        Path md5File = path.resolveSibling(path.getFileName() + ".md5");
+        if (Files.isRegularFile(md5File)) {
+            try (InputStream inputStream = Files.newInputStream(md5File)) {
+                String md5 = parseMD5(inputStream);
+                if (md5 != null) {
+                    return new RIRFileVersion(md5, -1, 0);
+                }
+            }
+        }
+        return new RIRFileVersion(null, Files.size(path), Files.getLastModifiedTime(path).toMillis());
+    }
+
+    // reads the MD5 out of a published <file>.md5, e.g. "MD5 (delegated-ripencc-latest) = 0123..."
+    // or "0123...  delegated-apnic-latest"; null if there's none
+    static String parseMD5(InputStream inputStream) throws IOException {
+        String content = new String(inputStream.readNBytes(MAX_MD5_FILE_SIZE), StandardCharsets.US_ASCII);
+        Matcher matcher = MD5_PATTERN.matcher(content);
+        return matcher.find() ? matcher.group() : null;
+    }
+
+    // true if this version, as announced by the server, is the one that was downloaded
+    public boolean isSameFile(RIRFileVersion downloaded) {
+        if (this.md5 != null) {
+            return this.md5.equals(downloaded.md5);
+        }
+        return this.size >= 0 && this.lastModified > 0
+                && this.size == downloaded.size && this.lastModified == downloaded.lastModified;
+    }
+
+    public String getMD5() {
+        return this.md5;
+    }
+
+    public long getSize() {
+        return this.size;
+    }
+
+    public long getLastModified() {
+        return this.lastModified;
+    }
+
+    @Override
+    public String toString() {
+        return "RIRFileVersion{md5=" + this.md5 + ", size=" + this.size + ", lastModified=" + this.lastModified + "}";
+    }
+
+}
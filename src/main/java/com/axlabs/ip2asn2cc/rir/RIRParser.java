@@ -3,98 +3,263 @@ package com.axlabs.ip2asn2cc.rir;
 import com.axlabs.ip2asn2cc.checker.ASNChecker;
 import com.axlabs.ip2asn2cc.checker.IPv4Checker;
 import com.axlabs.ip2asn2cc.checker.IPv6Checker;
-import com.axlabs.ip2asn2cc.model.IPv4Subnet;
-import com.axlabs.ip2asn2cc.model.IPv6Subnet;
-import com.axlabs.ip2asn2cc.model.Ip2Asn2CcEntry;
+import com.axlabs.ip2asn2cc.model.CountryCodes;
+import com.axlabs.ip2asn2cc.model.IPAddressParser;
+import com.axlabs.ip2asn2cc.model.RecordStatus;
+import com.axlabs.ip2asn2cc.model.Registry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Stream;
 
-public class RIRParser implements Runnable {
+public class RIRParser {
 
     private static final Logger LOG = LoggerFactory.getLogger(RIRParser.class);
 
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private static final byte[] IPV4 = ascii("ipv4");
+    private static final byte[] IPV6 = ascii("ipv6");
+    private static final byte[] ASN = ascii("asn");
+    private static final byte[] ALLOCATED = ascii("allocated");
+    private static final byte[] ASSIGNED = ascii("assigned");
+    private static final byte[][] REGISTRIES = new byte[Registry.values().length][];
+
+    static {
+        for (Registry registry : Registry.values()) {
+            REGISTRIES[registry.getId()] = ascii(registry.getName());
+        }
+    }
+
     private final IPv4Checker ipv4Checker;
     private final IPv6Checker ipv6Checker;
     private final ASNChecker asnChecker;
-    private final File fileToParse;
-    private final List<String> listCountryCodeToLookFor;
+    private final boolean[] countryIdsToLookFor = new boolean[CountryCodes.SIZE];
+
+    // scratch space reused for every line, so parsing doesn't allocate per record
+    private final int[] separators = new int[7];
+    private final long[] ipv6Address = new long[2];
 
     public RIRParser(IPv4Checker ipv4Checker,
                      IPv6Checker ipv6Checker,
                      ASNChecker asnChecker,
-                     File fileToParse,
                      List<String> listCountryCodeToLookFor) {
         this.ipv4Checker = ipv4Checker;
         this.ipv6Checker = ipv6Checker;
         this.asnChecker = asnChecker;
-        this.fileToParse = fileToParse;
-        this.listCountryCodeToLookFor = listCountryCodeToLookFor;
+        for (String countryCode : listCountryCodeToLookFor) {
+            short countryId = CountryCodes.toId(countryCode);
+            if (countryId >= 0) {
+                this.countryIdsToLookFor[countryId] = true;
+            }
+        }
+    }
+
+    // a parser that only fills RIRRecords, see parse(byte[], int, int, RIRRecords);
+    // a parser isn't thread-safe, every thread needs its own
+    public RIRParser(List<String> listCountryCodeToLookFor) {
+        this(null, null, null, listCountryCodeToLookFor);
+    }
+
+    // parses every line between from and to, the last one doesn't need a line break
+    public void parse(byte[] bytes, int from, int to, RIRRecords records) {
+        AsciiSequence text = new AsciiSequence(bytes);
+        int lineStart = from;
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == '\n') {
+                parseLine(bytes, text, lineStart, i, records);
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < to) {
+            parseLine(bytes, text, lineStart, to, records);
+        }
+    }
+
+    // reads the channel in large blocks and parses every complete line in place into
+    // the checkers, carrying an incomplete last line over to the next block
+    public void parse(ReadableByteChannel channel) throws IOException {
+        if (this.ipv4Checker == null) {
+            throw new IllegalStateException("This parser has no checkers to add the records to.");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] bytes = buffer.array();
+        RIRRecords records = new RIRRecords();
+
+        boolean endOfStream = false;
+        while (!endOfStream) {
+            endOfStream = channel.read(buffer) < 0;
+            int limit = buffer.position();
+            int lineStart = endOfStream ? limit : lastLineBreak(bytes, limit) + 1;
+            parse(bytes, 0, lineStart, records);
+            records.addTo(this.ipv4Checker, this.ipv6Checker, this.asnChecker);
+            records.clear();
+            if (lineStart == 0 && limit == bytes.length) {
+                LOG.warn("Skipping a line longer than {} bytes in the RIR file.", BUFFER_SIZE);
+                lineStart = limit;
+            }
+            System.arraycopy(bytes, lineStart, bytes, 0, limit - lineStart);
+            buffer.position(limit - lineStart);
+        }
     }
 
-    @Override
-    public void run() {
-        LOG.debug("Started parsing RIR file ({}): ", this.fileToParse.getAbsolutePath());
-
-        List<Pattern> listPatternsToWatch = this.listCountryCodeToLookFor.stream()
-                .map(this::getPatternByCountry)
-                .toList();
-
-        try (Stream<String> stream = Files.lines(Paths.get(this.fileToParse.toURI()))) {
-
-            stream.map(line -> {
-                return listPatternsToWatch.stream()
-                        .filter(pattern -> pattern.matcher(line).matches())
-                        .map(pattern -> pattern.matcher(line))
-                        .toList();
-            }).flatMap(matchers -> {
-                return matchers.stream()
-                        .filter(Matcher::find)
-                        .filter(matcher -> matcher.groupCount() == 7)
-                        .map(matcher -> {
-                            return new Ip2Asn2CcEntry(
-                                    matcher.group(1), // registry
-                                    matcher.group(2), // inet family (ipv4 or ipv6)
-                                    matcher.group(3), // address or asn number
-                                    matcher.group(0).split("\\|")[1], // country code
-                                    Integer.parseInt(matcher.group(4)), // addresses
-                                    matcher.group(5)); // date
-                        });
-            }).forEach(ip2Asn2CcEntry -> {
-                if (ip2Asn2CcEntry.inetFamily().equals("ipv4")) {
-                    IPv4Subnet ipv4Subnet = new IPv4Subnet(ip2Asn2CcEntry.address(), ip2Asn2CcEntry.addresses(), ip2Asn2CcEntry.countryCode());
-                    this.ipv4Checker.addSubnet(ipv4Subnet);
-                }
-                if (ip2Asn2CcEntry.inetFamily().equals("ipv6")) {
-                    IPv6Subnet ipv6Subnet = new IPv6Subnet(ip2Asn2CcEntry.address(), ip2Asn2CcEntry.addresses(), ip2Asn2CcEntry.countryCode());
-                    this.ipv6Checker.addSubnet(ipv6Subnet);
-                }
-                if (ip2Asn2CcEntry.inetFamily().equals("asn")) {
-                    this.asnChecker.addASN(ip2Asn2CcEntry.address());
-                }
-            });
-
-        } catch (IOException e) {
-            LOG.error("Error reading file ({}): ", this.fileToParse.getAbsolutePath(), e);
-        }
-
-        LOG.debug("Finished parsing RIR file ({}): ", this.fileToParse.getAbsolutePath());
+    static int lastLineBreak(byte[] bytes, int limit) {
+        for (int i = limit - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
     }
 
-    private Pattern getPatternByCountry(String countryCode) {
-        // perform a pattern matching based on the following format:
+    private void parseLine(byte[] bytes, AsciiSequence text, int from, int to, RIRRecords records) {
+        // records have the following format:
         // https://www.apnic.net/about-APNIC/corporate-documents/documents/resource-guidelines/rir-statistics-exchange-format
-        // http://www.regexplanet.com/advanced/java/index.html (tested with this)
-        return Pattern.compile("^(\\w+)\\|" + countryCode.toUpperCase() +
-                "\\|(ipv4|ipv6|asn)\\|(.+)\\|(.+)\\|(.+)\\|(allocated|assigned)(.*)$");
+        // registry|cc|type|start|value|date|status[|extensions...]
+        if (to > from && bytes[to - 1] == '\r') {
+            to--;
+        }
+        if (to - from < 16 || bytes[from] == '#') {
+            return;
+        }
+        int fields = 0;
+        for (int i = from; i < to && fields < this.separators.length; i++) {
+            if (bytes[i] == '|') {
+                this.separators[fields++] = i;
+            }
+        }
+        if (fields < 6 || this.separators[0] == from) {
+            return;
+        }
+
+        // only the country codes we're looking for
+        int countryStart = this.separators[0] + 1;
+        if (this.separators[1] - countryStart != 2) {
+            return;
+        }
+        short countryId = CountryCodes.toId((char) bytes[countryStart], (char) bytes[countryStart + 1]);
+        if (countryId < 0 || !this.countryIdsToLookFor[countryId]) {
+            return;
+        }
+
+        // only allocated or assigned resources
+        int statusStart = this.separators[5] + 1;
+        int statusEnd = fields == 7 ? this.separators[6] : to;
+        byte status;
+        if (equalsAscii(bytes, statusStart, statusEnd, ALLOCATED)) {
+            status = RecordStatus.ALLOCATED.getId();
+        } else if (equalsAscii(bytes, statusStart, statusEnd, ASSIGNED)) {
+            status = RecordStatus.ASSIGNED.getId();
+        } else {
+            return;
+        }
+        byte registry = parseRegistry(bytes, from, this.separators[0]);
+        int date = parseDate(bytes, this.separators[4] + 1, this.separators[5]);
+
+        int typeStart = this.separators[1] + 1;
+        int typeEnd = this.separators[2];
+        int startFrom = this.separators[2] + 1;
+        int startTo = this.separators[3];
+        long value = IPAddressParser.parseUnsigned(text, this.separators[3] + 1, this.separators[4]);
+        if (value < 0) {
+            return;
+        }
+
+        if (equalsAscii(bytes, typeStart, typeEnd, IPV4)) {
+            long start = IPAddressParser.parseIPv4(text, startFrom, startTo);
+            if (start >= 0 && value > 0) {
+                long end = Math.min(start + value - 1, 0xFFFFFFFFL);
+                records.addIPv4Range((int) start, (int) end, countryId, registry, status, date);
+            }
+        } else if (equalsAscii(bytes, typeStart, typeEnd, IPV6)) {
+            if (value <= 128 && IPAddressParser.parseIPv6(text, startFrom, startTo, this.ipv6Address)) {
+                records.addIPv6Prefix(this.ipv6Address[0], this.ipv6Address[1], (int) value, countryId,
+                        registry, status, date);
+            }
+        } else if (equalsAscii(bytes, typeStart, typeEnd, ASN)) {
+            // the value is the amount of consecutive ASNs assigned starting at this one
+            long asn = IPAddressParser.parseUnsigned(text, startFrom, startTo);
+            if (asn >= 0 && value > 0) {
+                long end = Math.min(asn + value - 1, 0xFFFFFFFFL);
+                records.addASNRange((int) asn, (int) end, countryId, registry, status, date);
+            }
+        }
+    }
+
+    private static byte parseRegistry(byte[] bytes, int from, int to) {
+        for (int i = 0; i < REGISTRIES.length; i++) {
+            if (equalsAscii(bytes, from, to, REGISTRIES[i])) {
+                return (byte) i;
+            }
+        }
+        return Registry.UNKNOWN_ID;
+    }
+
+    // the date as yyyymmdd, 0 when it's missing or not 8 digits (some records have 00000000)
+    private static int parseDate(byte[] bytes, int from, int to) {
+        if (to - from != 8) {
+            return 0;
+        }
+        int date = 0;
+        for (int i = from; i < to; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return 0;
+            }
+            date = date * 10 + digit;
+        }
+        return date;
+    }
+
+    private static boolean equalsAscii(byte[] bytes, int from, int to, byte[] expected) {
+        if (to - from != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (bytes[from + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // a CharSequence view over the read buffer, so the address parsers can work on it directly
+    private static final class AsciiSequence implements CharSequence {
+
+        private final byte[] bytes;
+
+        private AsciiSequence(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int length() {
+            return this.bytes.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (this.bytes[index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(this.bytes, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return new String(this.bytes, StandardCharsets.ISO_8859_1);
+        }
+
     }
 
 }
@@ -0,0 +1,279 @@
+package com.axlabs.ip2asn2cc.rir;
+
+import java.util.Arrays;
+
+import com.axlabs.ip2asn2cc.checker.ASNChecker;
+import com.axlabs.ip2asn2cc.checker.IPv4Checker;
+import com.axlabs.ip2asn2cc.checker.IPv6Checker;
+
+public final class RIRRecords {
+
+    // the records parsed from (a chunk of) a RIR file, kept column by column in growable
+    // primitive arrays: every parse task fills its own instance, so the parsing itself
+    // never locks, and the instances are merged into the checkers once all of them are
+    // done, a whole column at a time. A record costs 16 to 28 bytes this way, against
+    // hundreds as a String-based model object: the country is its id (see CountryCodes),
+    // the registry and status are the byte ids of Registry and RecordStatus, and the date
+    // is yyyymmdd (0 when the file doesn't have one)
+    private int[] ipv4Ranges = new int[256 * 2];
+    private short[] ipv4CountryIds = new short[256];
+    private final Attributes ipv4Attributes = new Attributes(256);
+    private int ipv4Count;
+
+    private long[] ipv6Prefixes = new long[64 * 2];
+    private byte[] ipv6Lengths = new byte[64];
+    private short[] ipv6CountryIds = new short[64];
+    private final Attributes ipv6Attributes = new Attributes(64);
+    private int ipv6Count;
+
+    private int[] asnRanges = new int[64 * 2];
+    private short[] asnCountryIds = new short[64];
+    private final Attributes asnAttributes = new Attributes(64);
+    private int asnCount;
+
+    public void addIPv4Range(int start, int end, short countryId, byte registry, byte status, int date) {
+        if (this.ipv4Count == this.ipv4CountryIds.length) {
+            int capacity = grow(this.ipv4Count);
+            this.ipv4Ranges = Arrays.copyOf(this.ipv4Ranges, 2 * capacity);
+            this.ipv4CountryIds = Arrays.copyOf(this.ipv4CountryIds, capacity);
+        }
+        this.ipv4Ranges[2 * this.ipv4Count] = start;
+        this.ipv4Ranges[2 * this.ipv4Count + 1] = end;
+        this.ipv4Attributes.set(this.ipv4Count, registry, status, date);
+        this.ipv4CountryIds[this.ipv4Count++] = countryId;
+    }
+
+    public void addIPv6Prefix(long high, long low, int length, short countryId, byte registry, byte status, int date) {
+        if (this.ipv6Count == this.ipv6CountryIds.length) {
+            int capacity = grow(this.ipv6Count);
+            this.ipv6Prefixes = Arrays.copyOf(this.ipv6Prefixes, 2 * capacity);
+            this.ipv6Lengths = Arrays.copyOf(this.ipv6Lengths, capacity);
+            this.ipv6CountryIds = Arrays.copyOf(this.ipv6CountryIds, capacity);
+        }
+        this.ipv6Prefixes[2 * this.ipv6Count] = high;
+        this.ipv6Prefixes[2 * this.ipv6Count + 1] = low;
+        this.ipv6Lengths[this.ipv6Count] = (byte) length;
+        this.ipv6Attributes.set(this.ipv6Count, registry, status, date);
+        this.ipv6CountryIds[this.ipv6Count++] = countryId;
+    }
+
+    public void addASNRange(int start, int end, short countryId, byte registry, byte status, int date) {
+        if (this.asnCount == this.asnCountryIds.length) {
+            int capacity = grow(this.asnCount);
+            this.asnRanges = Arrays.copyOf(this.asnRanges, 2 * capacity);
+            this.asnCountryIds = Arrays.copyOf(this.asnCountryIds, capacity);
+        }
+        this.asnRanges[2 * this.asnCount] = start;
+        this.asnRanges[2 * this.asnCount + 1] = end;
+        this.asnAttributes.set(this.asnCount, registry, status, date);
+        this.asnCountryIds[this.asnCount++] = countryId;
+    }
+
+    public int getIPv4Count() {
+        return this.ipv4Count;
+    }
+
+    public int getIPv6Count() {
+        return this.ipv6Count;
+    }
+
+    public int getASNCount() {
+        return this.asnCount;
+    }
+
+    public int getIPv4Start(int i) {
+        return this.ipv4Ranges[2 * i];
+    }
+
+    public int getIPv4End(int i) {
+        return this.ipv4Ranges[2 * i + 1];
+    }
+
+    public short getIPv4CountryId(int i) {
+        return this.ipv4CountryIds[i];
+    }
+
+    public long getIPv6High(int i) {
+        return this.ipv6Prefixes[2 * i];
+    }
+
+    public long getIPv6Low(int i) {
+        return this.ipv6Prefixes[2 * i + 1];
+    }
+
+    public int getIPv6Length(int i) {
+        return this.ipv6Lengths[i] & 0xFF;
+    }
+
+    public short getIPv6CountryId(int i) {
+        return this.ipv6CountryIds[i];
+    }
+
+    public int getASNStart(int i) {
+        return this.asnRanges[2 * i];
+    }
+
+    public int getASNEnd(int i) {
+        return this.asnRanges[2 * i + 1];
+    }
+
+    public short getASNCountryId(int i) {
+        return this.asnCountryIds[i];
+    }
+
+    // the registry, status and date of the ipv4 record i, see Registry and RecordStatus
+    public byte getIPv4Registry(int i) {
+        return this.ipv4Attributes.registries[i];
+    }
+
+    public byte getIPv4Status(int i) {
+        return this.ipv4Attributes.statuses[i];
+    }
+
+    public int getIPv4Date(int i) {
+        return this.ipv4Attributes.dates[i];
+    }
+
+    public byte getIPv6Registry(int i) {
+        return this.ipv6Attributes.registries[i];
+    }
+
+    public byte getIPv6Status(int i) {
+        return this.ipv6Attributes.statuses[i];
+    }
+
+    public int getIPv6Date(int i) {
+        return this.ipv6Attributes.dates[i];
+    }
+
+    public byte getASNRegistry(int i) {
+        return this.asnAttributes.registries[i];
+    }
+
+    public byte getASNStatus(int i) {
+        return this.asnAttributes.statuses[i];
+    }
+
+    public int getASNDate(int i) {
+        return this.asnAttributes.dates[i];
+    }
+
+    // appends the records of another instance, keeping their order, a column at a time
+    public void addAll(RIRRecords other) {
+        if (this.ipv4Count + other.ipv4Count > this.ipv4CountryIds.length) {
+            int capacity = Math.max(this.ipv4Count + other.ipv4Count, grow(this.ipv4Count));
+            this.ipv4Ranges = Arrays.copyOf(this.ipv4Ranges, 2 * capacity);
+            this.ipv4CountryIds = Arrays.copyOf(this.ipv4CountryIds, capacity);
+        }
+        System.arraycopy(other.ipv4Ranges, 0, this.ipv4Ranges, 2 * this.ipv4Count, 2 * other.ipv4Count);
+        System.arraycopy(other.ipv4CountryIds, 0, this.ipv4CountryIds, this.ipv4Count, other.ipv4Count);
+        this.ipv4Attributes.append(this.ipv4Count, other.ipv4Attributes, other.ipv4Count);
+        this.ipv4Count += other.ipv4Count;
+
+        if (this.ipv6Count + other.ipv6Count > this.ipv6CountryIds.length) {
+            int capacity = Math.max(this.ipv6Count + other.ipv6Count, grow(this.ipv6Count));
+            this.ipv6Prefixes = Arrays.copyOf(this.ipv6Prefixes, 2 * capacity);
+            this.ipv6Lengths = Arrays.copyOf(this.ipv6Lengths, capacity);
+            this.ipv6CountryIds = Arrays.copyOf(this.ipv6CountryIds, capacity);
+        }
+        System.arraycopy(other.ipv6Prefixes, 0, this.ipv6Prefixes, 2 * this.ipv6Count, 2 * other.ipv6Count);
+        System.arraycopy(other.ipv6Lengths, 0, this.ipv6Lengths, this.ipv6Count, other.ipv6Count);
+        System.arraycopy(other.ipv6CountryIds, 0, this.ipv6CountryIds, this.ipv6Count, other.ipv6Count);
+        this.ipv6Attributes.append(this.ipv6Count, other.ipv6Attributes, other.ipv6Count);
+        this.ipv6Count += other.ipv6Count;
+
+        if (this.asnCount + other.asnCount > this.asnCountryIds.length) {
+            int capacity = Math.max(this.asnCount + other.asnCount, grow(this.asnCount));
+            this.asnRanges = Arrays.copyOf(this.asnRanges, 2 * capacity);
+            this.asnCountryIds = Arrays.copyOf(this.asnCountryIds, capacity);
+        }
+        System.arraycopy(other.asnRanges, 0, this.asnRanges, 2 * this.asnCount, 2 * other.asnCount);
+        System.arraycopy(other.asnCountryIds, 0, this.asnCountryIds, this.asnCount, other.asnCount);
+        this.asnAttributes.append(this.asnCount, other.asnAttributes, other.asnCount);
+        this.asnCount += other.asnCount;
+    }
+
+    public void addTo(IPv4Checker ipv4Checker, IPv6Checker ipv6Checker, ASNChecker asnChecker) {
+        addIPv4To(ipv4Checker);
+        addIPv6To(ipv6Checker);
+        addASNTo(asnChecker);
+    }
+
+    // the families are independent, so each of them can be merged by another thread
+    public void addIPv4To(IPv4Checker ipv4Checker) {
+        ipv4Checker.addRanges(this.ipv4Ranges, this.ipv4CountryIds, this.ipv4Count);
+    }
+
+    public void addIPv6To(IPv6Checker ipv6Checker) {
+        ipv6Checker.addPrefixes(this.ipv6Prefixes, this.ipv6Lengths, this.ipv6CountryIds, this.ipv6Count);
+    }
+
+    public void addASNTo(ASNChecker asnChecker) {
+        asnChecker.addRanges(this.asnRanges, this.asnCountryIds, this.asnCount);
+    }
+
+    // shrinks the columns to the records they hold; the records of a RIR file are kept
+    // between the loads (to skip the unchanged files), so they shouldn't keep the up to
+    // 50% of slack the growing leaves behind
+    public void trim() {
+        this.ipv4Ranges = Arrays.copyOf(this.ipv4Ranges, 2 * this.ipv4Count);
+        this.ipv4CountryIds = Arrays.copyOf(this.ipv4CountryIds, this.ipv4Count);
+        this.ipv4Attributes.resize(this.ipv4Count);
+        this.ipv6Prefixes = Arrays.copyOf(this.ipv6Prefixes, 2 * this.ipv6Count);
+        this.ipv6Lengths = Arrays.copyOf(this.ipv6Lengths, this.ipv6Count);
+        this.ipv6CountryIds = Arrays.copyOf(this.ipv6CountryIds, this.ipv6Count);
+        this.ipv6Attributes.resize(this.ipv6Count);
+        this.asnRanges = Arrays.copyOf(this.asnRanges, 2 * this.asnCount);
+        this.asnCountryIds = Arrays.copyOf(this.asnCountryIds, this.asnCount);
+        this.asnAttributes.resize(this.asnCount);
+    }
+
+    public void clear() {
+        this.ipv4Count = 0;
+        this.ipv6Count = 0;
+        this.asnCount = 0;
+    }
+
+    private static int grow(int count) {
+        return Math.max(count * 2, 16);
+    }
+
+    // the columns every family has besides its addresses and country
+    private static final class Attributes {
+
+        private byte[] registries;
+        private byte[] statuses;
+        private int[] dates;
+
+        private Attributes(int capacity) {
+            resize(capacity);
+        }
+
+        private void set(int i, byte registry, byte status, int date) {
+            if (i >= this.dates.length) {
+                resize(grow(i));
+            }
+            this.registries[i] = registry;
+            this.statuses[i] = status;
+            this.dates[i] = date;
+        }
+
+        // copies the first count attributes of another instance to position i and up
+        private void append(int i, Attributes other, int count) {
+            if (i + count > this.dates.length) {
+                resize(Math.max(i + count, grow(i)));
+            }
+            System.arraycopy(other.registries, 0, this.registries, i, count);
+            System.arraycopy(other.statuses, 0, this.statuses, i, count);
+            System.arraycopy(other.dates, 0, this.dates, i, count);
+        }
+
+        private void resize(int capacity) {
+            this.registries = this.registries == null ? new byte[capacity] : Arrays.copyOf(this.registries, capacity);
+            this.statuses = this.statuses == null ? new byte[capacity] : Arrays.copyOf(this.statuses, capacity);
+            this.dates = this.dates == null ? new int[capacity] : Arrays.copyOf(this.dates, capacity);
+        }
+
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.axlabs.ip2asn2cc.rir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+
+// where a RIR file is read from: the registries' FTP servers by default, but a
+// mirror on the local disk, an HTTP server or the classpath work the same way
+public interface RIRSource {
+
+    // the names the registries publish their latest delegated files under
+    List<String> RIR_FILE_NAMES = List.of(
+            "delegated-arin-extended-latest",
+            "delegated-ripencc-latest",
+            "delegated-afrinic-latest",
+            "delegated-apnic-latest",
+            "delegated-lacnic-latest");
+
+    // identifies the source in logs and errors, and between loads
+    String getName();
+
+    InputStream open() throws IOException;
+
+    // the version of the file currently available, to skip downloading it again
+    // when it's the one loaded last time; by default the version is unknown
+    default RIRFileVersion fetchVersion() throws IOException {
+        return RIRFileVersion.UNKNOWN;
+    }
+
+    // the longest downloading and parsing this file may take, null for no limit
+    // other than the one of the whole load
+    default Duration getTimeout() {
+        return null;
+    }
+
+}
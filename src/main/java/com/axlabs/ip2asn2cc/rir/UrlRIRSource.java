@@ -0,0 +1,92 @@
+package com.axlabs.ip2asn2cc.rir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+// any URL java.net.URL can open, e.g. the FTP servers of the registries
+public class UrlRIRSource implements RIRSource {
+
+    private final String url;
+    private final Duration timeout;
+
+    public UrlRIRSource(String url) {
+        this(url, null);
+    }
+
+    // the timeout applies to connecting and to every read, as well as to the whole file
+    public UrlRIRSource(String url, Duration timeout) {
+        this.url = url;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public String getName() {
+        return this.url;
+    }
+
+    @Override
+    public InputStream open() throws IOException {
+        return openConnection(this.url).getInputStream();
+    }
+
+    // the registries publish the MD5 of every RIR file next to it (<file>.md5), which is
+    // the cheapest reliable check; without it, the size and modification time reported
+    // for the file are used, which local files and most HTTP servers provide
+    @Override
+    public RIRFileVersion fetchVersion() throws IOException {
+        URL fileUrl = new URL(this.url);
+        if ("file".equals(fileUrl.getProtocol())) {
+            try {
+                return RIRFileVersion.ofFile(Paths.get(fileUrl.toURI()));
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                throw new IOException("Invalid file URL: " + this.url, e);
+            }
+        }
+        try (InputStream inputStream = openConnection(this.url + ".md5").getInputStream()) {
+            String md5 = RIRFileVersion.parseMD5(inputStream);
+            if (md5 != null) {
+                return new RIRFileVersion(md5, -1, 0);
+            }
+        } catch (IOException e) {
+            // no MD5 published for this file
+        }
+        URLConnection connection = openConnection(this.url);
+        if (connection instanceof HttpURLConnection) {
+            HttpURLConnection httpConnection = (HttpURLConnection) connection;
+            try {
+                httpConnection.setRequestMethod("HEAD");
+                return new RIRFileVersion(null, httpConnection.getContentLengthLong(), httpConnection.getLastModified());
+            } finally {
+                httpConnection.disconnect();
+            }
+        }
+        return RIRFileVersion.UNKNOWN;
+    }
+
+    @Override
+    public Duration getTimeout() {
+        return this.timeout;
+    }
+
+    @Override
+    public String toString() {
+        return this.url;
+    }
+
+    private URLConnection openConnection(String urlToOpen) throws IOException {
+        URLConnection connection = new URL(urlToOpen).openConnection();
+        if (this.timeout != null) {
+            int timeoutMillis = (int) Math.min(Math.max(this.timeout.toMillis(), 1), Integer.MAX_VALUE);
+            connection.setConnectTimeout(timeoutMillis);
+            connection.setReadTimeout(timeoutMillis);
+        }
+        return connection;
+    }
+
+}
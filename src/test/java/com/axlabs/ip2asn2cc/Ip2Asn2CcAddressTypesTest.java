@@ -0,0 +1,92 @@
+package com.axlabs.ip2asn2cc;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.List;
+
+import org.apache.commons.validator.routines.InetAddressValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.axlabs.ip2asn2cc.checker.ASNChecker;
+import com.axlabs.ip2asn2cc.checker.IPv4Checker;
+import com.axlabs.ip2asn2cc.checker.IPv6Checker;
+import com.axlabs.ip2asn2cc.exception.RIRNotDownloadedException;
+import com.axlabs.ip2asn2cc.model.FilterPolicy;
+import com.axlabs.ip2asn2cc.model.IPv4Subnet;
+import com.axlabs.ip2asn2cc.model.IPv6Subnet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Ip2Asn2CcAddressTypesTest {
+
+    private static final String[] ADDRESSES = {
+            "77.109.144.219", "8.8.8.8", "1.1.1.1", "255.255.255.255", "0.0.0.0",
+            "2001:1620:2777:23::2", "2600:1f18::1", "::1", "2001:db8::1"
+    };
+
+    private Ip2Asn2Cc ip2Asn2Cc;
+
+    @BeforeEach
+    void initialize() throws RIRNotDownloadedException {
+        Config config = new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, true, true);
+        ip2Asn2Cc = new Ip2Asn2Cc(new RIRLoader(List.of("US", "CH"), config) {
+            @Override
+            RIRDataset load() {
+                InetAddressValidator validator = new InetAddressValidator();
+                IPv4Checker ipv4Checker = new IPv4Checker(validator);
+                IPv6Checker ipv6Checker = new IPv6Checker(validator);
+                ipv4Checker.addSubnet(new IPv4Subnet("77.109.128.0", 32768, "CH"));
+                ipv4Checker.addSubnet(new IPv4Subnet("8.8.8.0", 256, "US"));
+                ipv4Checker.addSubnet(new IPv4Subnet("255.255.255.0", 256, "US"));
+                ipv6Checker.addSubnet(new IPv6Subnet("2600:1f18::", 32, "US"));
+                ipv6Checker.addSubnet(new IPv6Subnet("2001:1620::", 32, "CH"));
+                ipv6Checker.addSubnet(new IPv6Subnet("::1", 128, "US"));
+                return new RIRDataset(ipv4Checker, ipv6Checker, new ASNChecker(), nextGeneration(), Instant.now());
+            }
+        }, config);
+    }
+
+    @Test
+    void testOverloadsMatchTheStringLookups() throws UnknownHostException {
+        for (String address : ADDRESSES) {
+            InetAddress inetAddress = InetAddress.getByName(address);
+            byte[] bytes = inetAddress.getAddress();
+            String countryCode = ip2Asn2Cc.getRIRCountryCode(address);
+            boolean check = ip2Asn2Cc.checkIP(address);
+
+            assertEquals(countryCode, ip2Asn2Cc.getRIRCountryCode(inetAddress), address);
+            assertEquals(countryCode, ip2Asn2Cc.getRIRCountryCode(bytes), address);
+            assertEquals(check, ip2Asn2Cc.checkIP(inetAddress), address);
+            assertEquals(check, ip2Asn2Cc.checkIP(bytes), address);
+        }
+    }
+
+    @Test
+    void testNumericAddresses() {
+        assertEquals("CH", ip2Asn2Cc.getRIRCountryCode(0x4D6D90DB));
+        assertEquals("US", ip2Asn2Cc.getRIRCountryCode(0xFFFFFFFF));
+        assertEquals("Unknown", ip2Asn2Cc.getRIRCountryCode(0x01010101));
+        assertTrue(ip2Asn2Cc.checkIP(0x08080808));
+        assertFalse(ip2Asn2Cc.checkIP(0x08080908));
+
+        assertEquals("CH", ip2Asn2Cc.getRIRCountryCode(0x2001162027770023L, 2L));
+        assertEquals("US", ip2Asn2Cc.getRIRCountryCode(0L, 1L));
+        assertTrue(ip2Asn2Cc.checkIP(0x26001f1800000000L, 0L));
+        assertFalse(ip2Asn2Cc.checkIP(0x20010db800000000L, 1L));
+    }
+
+    @Test
+    void testInvalidAddresses() {
+        assertEquals("Unknown", ip2Asn2Cc.getRIRCountryCode((String) null));
+        assertEquals("Unknown", ip2Asn2Cc.getRIRCountryCode((InetAddress) null));
+        assertEquals("Unknown", ip2Asn2Cc.getRIRCountryCode("77.109.144.256"));
+        assertFalse(ip2Asn2Cc.checkIP("2001:1620::2777::2"));
+        assertThrows(IllegalArgumentException.class, () -> ip2Asn2Cc.checkIP(new byte[5]));
+    }
+
+}
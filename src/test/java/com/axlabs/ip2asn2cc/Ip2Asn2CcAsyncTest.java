@@ -0,0 +1,123 @@
+package com.axlabs.ip2asn2cc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.axlabs.ip2asn2cc.exception.RIRNotDownloadedException;
+import com.axlabs.ip2asn2cc.model.FilterPolicy;
+import com.axlabs.ip2asn2cc.rir.FileRIRSource;
+import com.axlabs.ip2asn2cc.rir.RIRSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Ip2Asn2CcAsyncTest {
+
+    private final Config config = new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, false, false)
+            .withRetryBackoff(Duration.ofMillis(20));
+    private Path ripeFile;
+    private Path arinFile;
+    private Path snapshotFile;
+
+    @BeforeEach
+    void initialize() throws IOException {
+        ripeFile = Files.createTempFile("ip2asn2cc-ripencc-", ".txt");
+        arinFile = Files.createTempFile("ip2asn2cc-arin-", ".txt");
+        snapshotFile = Files.createTempFile("ip2asn2cc-snapshot-", ".bin");
+        Files.delete(snapshotFile);
+        Files.write(ripeFile, "ripencc|CH|ipv4|77.109.128.0|32768|20050125|allocated".getBytes(StandardCharsets.US_ASCII));
+        Files.write(arinFile, "arin|US|ipv4|8.8.8.0|256|19920101|assigned".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        Files.deleteIfExists(ripeFile);
+        Files.deleteIfExists(arinFile);
+        Files.deleteIfExists(snapshotFile);
+    }
+
+    @Test
+    void testServesPartialDataWhileRetrying() throws InterruptedException, ExecutionException, TimeoutException {
+        // the arin file only loads on the third attempt, the first retry is half a second later
+        FailingRIRSource arin = new FailingRIRSource(new FileRIRSource(arinFile), 2);
+        Ip2Asn2Cc ip2Asn2Cc = Ip2Asn2Cc.createAsync(List.of("US", "CH"), config.withSnapshotPath(snapshotFile)
+                .withRetryBackoff(Duration.ofMillis(500))
+                .withSources(List.of(new FileRIRSource(ripeFile), arin))).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, arin.attempts.get());
+        assertEquals(Set.of("arin"), ip2Asn2Cc.getMissingRIRSources());
+        assertFalse(ip2Asn2Cc.whenFullyLoaded().isDone());
+        assertEquals("CH", ip2Asn2Cc.getRIRCountryCode("77.109.144.219"));
+        assertFalse(ip2Asn2Cc.checkIP("8.8.8.8"));
+        // an incomplete dataset isn't saved for the next startup
+        assertFalse(Files.exists(snapshotFile));
+
+        assertSame(ip2Asn2Cc, ip2Asn2Cc.whenFullyLoaded().get(10, TimeUnit.SECONDS));
+        assertEquals(3, arin.attempts.get());
+        assertTrue(ip2Asn2Cc.getMissingRIRSources().isEmpty());
+        assertEquals("CH", ip2Asn2Cc.getRIRCountryCode("77.109.144.219"));
+        assertEquals("US", ip2Asn2Cc.getRIRCountryCode("8.8.8.8"));
+        assertTrue(Files.exists(snapshotFile));
+    }
+
+    @Test
+    void testCompleteLoad() throws InterruptedException, ExecutionException, TimeoutException {
+        Ip2Asn2Cc ip2Asn2Cc = Ip2Asn2Cc.createAsync(List.of("US", "CH"), config.withSources(List.of(
+                new FileRIRSource(ripeFile), new FileRIRSource(arinFile))), Runnable::run).get(10, TimeUnit.SECONDS);
+        assertTrue(ip2Asn2Cc.whenFullyLoaded().isDone());
+        assertTrue(ip2Asn2Cc.getMissingRIRSources().isEmpty());
+        assertEquals("US", ip2Asn2Cc.getRIRCountryCode("8.8.8.8"));
+    }
+
+    @Test
+    void testFailsWithoutAnyRIRFile() {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> Ip2Asn2Cc.createAsync(List.of("US"),
+                config.withSources(List.of(new FailingRIRSource(new FileRIRSource(arinFile), Integer.MAX_VALUE))))
+                .get(10, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof RIRNotDownloadedException);
+    }
+
+    private static final class FailingRIRSource implements RIRSource {
+
+        private final RIRSource source;
+        private final int failures;
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        private FailingRIRSource(RIRSource source, int failures) {
+            this.source = source;
+            this.failures = failures;
+        }
+
+        @Override
+        public String getName() {
+            return "arin";
+        }
+
+        @Override
+        public InputStream open() throws IOException {
+            if (this.attempts.incrementAndGet() <= this.failures) {
+                throw new IOException("Connection refused");
+            }
+            return this.source.open();
+        }
+
+    }
+
+}
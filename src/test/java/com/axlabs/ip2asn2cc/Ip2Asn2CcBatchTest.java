@@ -0,0 +1,97 @@
+package com.axlabs.ip2asn2cc;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.validator.routines.InetAddressValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.axlabs.ip2asn2cc.checker.ASNChecker;
+import com.axlabs.ip2asn2cc.checker.IPv4Checker;
+import com.axlabs.ip2asn2cc.checker.IPv6Checker;
+import com.axlabs.ip2asn2cc.exception.RIRNotDownloadedException;
+import com.axlabs.ip2asn2cc.model.CountryFilter;
+import com.axlabs.ip2asn2cc.model.FilterPolicy;
+import com.axlabs.ip2asn2cc.model.IPv4Subnet;
+import com.axlabs.ip2asn2cc.model.IPv6Subnet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Ip2Asn2CcBatchTest {
+
+    private Ip2Asn2Cc ip2Asn2Cc;
+
+    @BeforeEach
+    void initialize() throws RIRNotDownloadedException {
+        Config config = new Config(FilterPolicy.EXCLUDE_COUNTRY_CODES, true, true);
+        ip2Asn2Cc = new Ip2Asn2Cc(new RIRLoader(List.of("US", "CH"), config) {
+            @Override
+            RIRDataset load() {
+                InetAddressValidator validator = new InetAddressValidator();
+                IPv4Checker ipv4Checker = new IPv4Checker(validator);
+                IPv6Checker ipv6Checker = new IPv6Checker(validator);
+                for (int i = 0; i < 200; i++) {
+                    ipv4Checker.addSubnet(new IPv4Subnet(i + ".0.0.0", 1 << 20, i % 2 == 0 ? "US" : "CH"));
+                }
+                ipv6Checker.addSubnet(new IPv6Subnet("2600:1f18::", 32, "US"));
+                ipv6Checker.addSubnet(new IPv6Subnet("2001:1620::", 32, "CH"));
+                return new RIRDataset(ipv4Checker, ipv6Checker, new ASNChecker(), nextGeneration(), Instant.now());
+            }
+        }, config);
+    }
+
+    @Test
+    void testBatchMatchesSingleLookups() {
+        Random random = new Random(42);
+        String[] ipAddresses = new String[1000];
+        for (int i = 0; i < ipAddresses.length; i++) {
+            switch (i % 5) {
+                case 0 -> ipAddresses[i] = "2600:1f18:" + Integer.toHexString(random.nextInt(0x10000)) + "::1";
+                case 1 -> ipAddresses[i] = "2001:" + Integer.toHexString(0x1600 + random.nextInt(64)) + "::1";
+                case 2 -> ipAddresses[i] = "not an address";
+                default -> ipAddresses[i] = random.nextInt(256) + "." + random.nextInt(256) + ".0." + random.nextInt(256);
+            }
+        }
+
+        String[] countryCodes = new String[ipAddresses.length];
+        boolean[] results = new boolean[ipAddresses.length];
+        ip2Asn2Cc.getRIRCountryCodes(ipAddresses, countryCodes);
+        ip2Asn2Cc.checkIPs(ipAddresses, results);
+
+        for (int i = 0; i < ipAddresses.length; i++) {
+            assertEquals(ip2Asn2Cc.getRIRCountryCode(ipAddresses[i]), countryCodes[i], ipAddresses[i]);
+            assertEquals(ip2Asn2Cc.checkIP(ipAddresses[i]), results[i], ipAddresses[i]);
+        }
+    }
+
+    @Test
+    void testNumericBatches() {
+        int[] ipv4Addresses = {0x08080808, 0x01010101, 0xC6000001, 0xFFFFFFFF};
+        String[] countryCodes = new String[ipv4Addresses.length];
+        boolean[] results = new boolean[ipv4Addresses.length];
+        ip2Asn2Cc.getRIRCountryCodes(ipv4Addresses, countryCodes);
+        ip2Asn2Cc.checkIPs(ipv4Addresses, results);
+        assertArrayEquals(new String[]{"US", "CH", "US", "Unknown"}, countryCodes);
+        assertArrayEquals(new boolean[]{false, false, false, true}, results);
+
+        long[] ipv6Addresses = {0x26001f18001f0000L, 1L, 0x2001162000000000L, 2L, 0x20010db800000000L, 3L};
+        countryCodes = new String[3];
+        ip2Asn2Cc.getRIRCountryCodes(ipv6Addresses, countryCodes);
+        assertArrayEquals(new String[]{"US", "CH", "Unknown"}, countryCodes);
+    }
+
+    @Test
+    void testOddIPv6BatchIsRejected() {
+        // the last address is missing its low bits
+        long[] ipv6Addresses = {0x26001f18001f0000L, 1L, 0x2001162000000000L};
+        assertThrows(IllegalArgumentException.class, () -> ip2Asn2Cc.getRIRCountryCodes(ipv6Addresses, new String[2]));
+        assertThrows(IllegalArgumentException.class, () -> ip2Asn2Cc.checkIPs(ipv6Addresses, new boolean[2]));
+        assertThrows(IllegalArgumentException.class,
+                () -> ip2Asn2Cc.checkIPs(ipv6Addresses, CountryFilter.include("US"), new boolean[2]));
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.axlabs.ip2asn2cc;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.validator.routines.InetAddressValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.axlabs.ip2asn2cc.checker.ASNChecker;
+import com.axlabs.ip2asn2cc.checker.IPv4Checker;
+import com.axlabs.ip2asn2cc.checker.IPv6Checker;
+import com.axlabs.ip2asn2cc.exception.RIRNotDownloadedException;
+import com.axlabs.ip2asn2cc.model.FilterPolicy;
+import com.axlabs.ip2asn2cc.model.IPv4Subnet;
+import com.axlabs.ip2asn2cc.model.IPv6Subnet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Ip2Asn2CcConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ITERATIONS = 10_000;
+
+    private Ip2Asn2Cc ip2Asn2Cc;
+
+    @BeforeEach
+    void initialize() throws RIRNotDownloadedException {
+        Config config = new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, true, true);
+        ip2Asn2Cc = new Ip2Asn2Cc(new RIRLoader(List.of("US", "CH"), config) {
+            @Override
+            RIRDataset load() {
+                InetAddressValidator validator = new InetAddressValidator();
+                IPv4Checker ipv4Checker = new IPv4Checker(validator);
+                IPv6Checker ipv6Checker = new IPv6Checker(validator);
+                ASNChecker asnChecker = new ASNChecker();
+                ipv4Checker.addSubnet(new IPv4Subnet("8.8.8.0", 256, "US"));
+                ipv4Checker.addSubnet(new IPv4Subnet("77.109.128.0", 32768, "CH"));
+                ipv6Checker.addSubnet(new IPv6Subnet("2600:1f18::", 32, "US"));
+                ipv6Checker.addSubnet(new IPv6Subnet("2001:1620::", 32, "CH"));
+                asnChecker.addASN("3356");
+                return new RIRDataset(ipv4Checker, ipv6Checker, asnChecker, nextGeneration(), Instant.now());
+            }
+        }, config);
+    }
+
+    @Test
+    void testConcurrentLookups() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                int mismatches = 0;
+                for (int i = 0; i < ITERATIONS; i++) {
+                    mismatches += ip2Asn2Cc.checkIP("8.8.8.8") ? 0 : 1;
+                    mismatches += ip2Asn2Cc.checkIP("1.1.1.1") ? 1 : 0;
+                    mismatches += ip2Asn2Cc.getRIRCountryCode("77.109.144.219").equals("CH") ? 0 : 1;
+                    mismatches += ip2Asn2Cc.getRIRCountryCode("2600:1f18:1f:db01:11af:58af:ae11:f645").equals("US") ? 0 : 1;
+                    mismatches += ip2Asn2Cc.checkIP("2001:db8::1") ? 1 : 0;
+                    mismatches += ip2Asn2Cc.checkASN("3356") ? 0 : 1;
+                    mismatches += ip2Asn2Cc.checkASN("13030") ? 1 : 0;
+                }
+                return mismatches;
+            }));
+        }
+
+        start.countDown();
+        int mismatches = 0;
+        for (Future<Integer> result : results) {
+            mismatches += result.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertEquals(0, mismatches);
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.axlabs.ip2asn2cc;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.apache.commons.validator.routines.InetAddressValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.axlabs.ip2asn2cc.checker.ASNChecker;
+import com.axlabs.ip2asn2cc.checker.IPv4Checker;
+import com.axlabs.ip2asn2cc.checker.IPv6Checker;
+import com.axlabs.ip2asn2cc.exception.RIRNotDownloadedException;
+import com.axlabs.ip2asn2cc.model.CountryCodes;
+import com.axlabs.ip2asn2cc.model.CountryFilter;
+import com.axlabs.ip2asn2cc.model.FilterPolicy;
+import com.axlabs.ip2asn2cc.model.IPv4Subnet;
+import com.axlabs.ip2asn2cc.model.IPv6Subnet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Ip2Asn2CcCountryFilterTest {
+
+    private Ip2Asn2Cc ip2Asn2Cc;
+
+    @BeforeEach
+    void initialize() throws RIRNotDownloadedException {
+        Config config = new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, false, false);
+        ip2Asn2Cc = new Ip2Asn2Cc(new RIRLoader(CountryCodes.all(), config) {
+            @Override
+            RIRDataset load() {
+                InetAddressValidator validator = new InetAddressValidator();
+                IPv4Checker ipv4Checker = new IPv4Checker(validator);
+                IPv6Checker ipv6Checker = new IPv6Checker(validator);
+                ASNChecker asnChecker = new ASNChecker();
+                ipv4Checker.addSubnet(new IPv4Subnet("8.8.8.0", 256, "US"));
+                ipv4Checker.addSubnet(new IPv4Subnet("77.109.128.0", 32768, "CH"));
+                ipv4Checker.addSubnet(new IPv4Subnet("5.1.0.0", 768, "DE"));
+                ipv6Checker.addSubnet(new IPv6Subnet("2001:1620::", 32, "CH"));
+                ipv6Checker.addSubnet(new IPv6Subnet("2001:1600::", 29, "DE"));
+                asnChecker.addRange(3356, 3356, CountryCodes.toId("US"));
+                asnChecker.addRange(13030, 13030, CountryCodes.toId("CH"));
+                return new RIRDataset(ipv4Checker, ipv6Checker, asnChecker, nextGeneration(), Instant.now());
+            }
+        }, config);
+    }
+
+    @Test
+    void testFiltersShareOneDataset() {
+        CountryFilter onlySwiss = CountryFilter.include("CH");
+        CountryFilter notGerman = CountryFilter.exclude("DE");
+
+        assertTrue(ip2Asn2Cc.checkIP("77.109.144.219", onlySwiss));
+        assertFalse(ip2Asn2Cc.checkIP("8.8.8.8", onlySwiss));
+        assertTrue(ip2Asn2Cc.checkIP("2001:1620:2777:23::2", onlySwiss));
+        assertFalse(ip2Asn2Cc.checkIP("2001:1607::1", onlySwiss));
+
+        assertTrue(ip2Asn2Cc.checkIP("8.8.8.8", notGerman));
+        assertFalse(ip2Asn2Cc.checkIP("5.1.2.3", notGerman));
+        assertFalse(ip2Asn2Cc.checkIP("2001:1607::1", notGerman));
+
+        assertTrue(ip2Asn2Cc.checkASN("13030", onlySwiss));
+        assertFalse(ip2Asn2Cc.checkASN(3356, onlySwiss));
+        assertTrue(ip2Asn2Cc.checkASN(3356, notGerman));
+    }
+
+    @Test
+    void testUnknownAndInvalid() {
+        CountryFilter onlySwiss = CountryFilter.include("CH");
+        CountryFilter notGerman = CountryFilter.exclude("DE");
+
+        assertFalse(ip2Asn2Cc.checkIP("1.1.1.1", onlySwiss));
+        assertTrue(ip2Asn2Cc.checkIP("1.1.1.1", notGerman));
+        assertTrue(ip2Asn2Cc.checkASN(64512, notGerman));
+        assertFalse(ip2Asn2Cc.checkIP("not an address", notGerman));
+        assertFalse(ip2Asn2Cc.checkASN("AS13030", notGerman));
+    }
+
+    @Test
+    void testFilterMatchesCountryCode() {
+        String[] ipAddresses = {"77.109.144.219", "8.8.8.8", "5.1.2.3", "1.1.1.1", "2001:1620::1", "bogus"};
+        CountryFilter filter = CountryFilter.exclude("CH", "US");
+        boolean[] results = new boolean[ipAddresses.length];
+        ip2Asn2Cc.checkIPs(ipAddresses, filter, results);
+        assertArrayEquals(new boolean[]{false, false, true, true, false, false}, results);
+        for (int i = 0; i < ipAddresses.length - 1; i++) {
+            assertEquals(filter.test(ip2Asn2Cc.getRIRCountryCode(ipAddresses[i])), results[i], ipAddresses[i]);
+        }
+    }
+
+    @Test
+    void testCidrExport() {
+        assertEquals(List.of("77.109.128.0/17"), ip2Asn2Cc.getIPv4Cidrs(CountryFilter.include("CH")));
+        assertEquals(List.of("5.1.0.0/23", "5.1.2.0/24", "8.8.8.0/24"),
+                ip2Asn2Cc.getIPv4Cidrs(CountryFilter.include("US", "DE")));
+        assertEquals(List.of("5.1.0.0/23", "5.1.2.0/24", "8.8.8.0/24", "77.109.128.0/17"), ip2Asn2Cc.getIPv4Cidrs());
+        assertEquals(List.of("2001:1600::/29", "2001:1620::/32"), ip2Asn2Cc.getIPv6Cidrs(CountryFilter.include("CH", "DE")));
+
+        // the complement of the excluded countries, unregistered addresses included
+        List<String> notGerman = ip2Asn2Cc.getIPv4Cidrs(CountryFilter.exclude("DE"));
+        assertEquals(List.of("0.0.0.0/6", "4.0.0.0/8", "5.0.0.0/16", "5.1.3.0/24", "5.1.4.0/22"), notGerman.subList(0, 5));
+        assertEquals("128.0.0.0/1", notGerman.get(notGerman.size() - 1));
+        assertEquals(23, notGerman.size());
+        List<String> notSwiss = ip2Asn2Cc.getIPv6Cidrs(CountryFilter.exclude("CH"));
+        assertEquals("::/3", notSwiss.get(0));
+        assertTrue(notSwiss.contains("2001:1600::/27"));
+        assertFalse(notSwiss.contains("2001:1620::/32"));
+        assertEquals("8000::/1", notSwiss.get(notSwiss.size() - 1));
+    }
+
+}
@@ -2,6 +2,7 @@ package com.axlabs.ip2asn2cc;
 
 import com.axlabs.ip2asn2cc.exception.RIRNotDownloadedException;
 import com.axlabs.ip2asn2cc.model.FilterPolicy;
+import com.axlabs.ip2asn2cc.rir.ClasspathRIRSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -13,13 +14,17 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class Ip2Asn2CcExcludeFilterPolicyTest {
 
+    // trimmed copies of the five delegated files, so the tests don't need the FTP servers
+    private static final Config CONFIG = new Config(FilterPolicy.EXCLUDE_COUNTRY_CODES, true, true)
+            .withSources(ClasspathRIRSource.directory("/fixtures/rir"));
+
     private static Ip2Asn2Cc ip2Asn2Cc;
 
     @BeforeEach
     void initialize() throws RIRNotDownloadedException {
         List<String> listCountryCode = new ArrayList<>();
         listCountryCode.add("US");
-        ip2Asn2Cc = new Ip2Asn2Cc(listCountryCode, FilterPolicy.EXCLUDE_COUNTRY_CODES);
+        ip2Asn2Cc = new Ip2Asn2Cc(listCountryCode, CONFIG);
     }
 
     @Test
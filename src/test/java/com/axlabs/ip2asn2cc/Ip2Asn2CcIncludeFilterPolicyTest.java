@@ -5,34 +5,37 @@ import java.util.Collections;
 import java.util.List;
 
 import com.axlabs.ip2asn2cc.exception.RIRNotDownloadedException;
+import com.axlabs.ip2asn2cc.model.FilterPolicy;
+import com.axlabs.ip2asn2cc.rir.ClasspathRIRSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class Ip2Asn2CcIncludeFilterPolicyTest {
 
+    // trimmed copies of the five delegated files, so the tests don't need the FTP servers
+    private static final Config CONFIG = new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, true, true)
+            .withSources(ClasspathRIRSource.directory("/fixtures/rir"));
+
     private static Ip2Asn2Cc ip2Asn2Cc;
 
     @BeforeEach
     void initialize() throws RIRNotDownloadedException {
         List<String> listCountryCode = new ArrayList<>();
         listCountryCode.add("US");
-        ip2Asn2Cc = new Ip2Asn2Cc(listCountryCode);
+        ip2Asn2Cc = new Ip2Asn2Cc(listCountryCode, CONFIG);
     }
 
     @Test
     void getCountryNameTest() throws RIRNotDownloadedException {
-        ip2Asn2Cc = new Ip2Asn2Cc(Collections.singletonList("US"));
-        System.out.println("Localhost Country: " + ip2Asn2Cc.getRIRCountryCode("127.0.0.1")); //Is hard coded to US
-
-        String cc = ip2Asn2Cc.getRIRCountryCode("8.8.8.8");
-        boolean status = cc.equals("US");
-        System.out.println("Google DNS Country: " + cc); //Should be US
-        System.out.println("Test Status: " + (status ? "PASSED" : "FAILED"));
-
-        assertTrue(status);
+        ip2Asn2Cc = new Ip2Asn2Cc(Collections.singletonList("US"), CONFIG);
+        // the local addresses are hard coded to US
+        assertEquals("US", ip2Asn2Cc.getRIRCountryCode("127.0.0.1"));
+        // Google DNS
+        assertEquals("US", ip2Asn2Cc.getRIRCountryCode("8.8.8.8"));
     }
 
     @Test
@@ -0,0 +1,184 @@
+package com.axlabs.ip2asn2cc;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.axlabs.ip2asn2cc.metrics.LatencyHistogram;
+import com.axlabs.ip2asn2cc.model.FilterPolicy;
+import com.axlabs.ip2asn2cc.rir.RIRSource;
+import com.googlecode.ipv6.IPv6Address;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// loads synthetic RIR files as large as the real ones (or a multiple of them, with
+// -Dip2asn2cc.loadtest.scale=10 or ./gradlew loadTest -Ploadtest.scale=10) and hammers the
+// lookups from several threads, failing when a lookup gets slow or starts allocating.
+// The budgets leave room for a loaded machine, but not for a lock, a linear scan or a
+// boxed result on the lookup path. Wall-clock budgets don't belong in the regular build
+// though, so the test is tagged and only runs with ./gradlew loadTest.
+@Tag("load")
+class Ip2Asn2CcLoadTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Ip2Asn2CcLoadTest.class);
+
+    private static final int SCALE = Integer.getInteger("ip2asn2cc.loadtest.scale", 1);
+    private static final int THREADS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    private static final int ADDRESSES = 1 << 16;
+    private static final int ROUNDS = 4;
+
+    private static final long P99_BUDGET_NANOS = 50_000;
+    private static final double MEAN_BUDGET_NANOS = 5_000;
+    private static final double ALLOCATION_BUDGET_BYTES = 1;
+
+    private static Path directory;
+    private static Ip2Asn2Cc ip2Asn2Cc;
+    private static int[] ipv4Addresses;
+    private static long[] ipv6Addresses;
+    private static String[] addresses;
+
+    @BeforeAll
+    static void load() throws Exception {
+        directory = Files.createTempDirectory("ip2asn2cc-load-");
+        List<RIRSource> sources = SyntheticRIRFiles.write(directory, SCALE, 42);
+        long start = System.nanoTime();
+        ip2Asn2Cc = new Ip2Asn2Cc(new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, true, true)
+                .withSources(sources)
+                .withRecordLookup(true));
+        LOG.info("Loaded the synthetic RIR files (scale {}) in {} ms: {}", SCALE,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), ip2Asn2Cc.getDataset().getStageTimings());
+
+        // about half of the addresses are registered
+        Random random = new Random(7);
+        ipv4Addresses = new int[ADDRESSES];
+        ipv6Addresses = new long[2 * ADDRESSES];
+        addresses = new String[ADDRESSES];
+        for (int i = 0; i < ADDRESSES; i++) {
+            ipv4Addresses[i] = random.nextInt();
+            ipv6Addresses[2 * i] = ((0x2000L + random.nextInt(5) * 0x0040L) << 48) | (random.nextLong() >>> 17);
+            ipv6Addresses[2 * i + 1] = random.nextLong();
+            addresses[i] = i % 2 == 0 ? LookupResult.toIPv4String(ipv4Addresses[i] & 0xFFFFFFFFL)
+                    : IPv6Address.fromLongs(ipv6Addresses[2 * i], ipv6Addresses[2 * i + 1]).toString();
+        }
+    }
+
+    @AfterAll
+    static void cleanUp() throws IOException {
+        for (String fileName : RIRSource.RIR_FILE_NAMES) {
+            Files.deleteIfExists(directory.resolve(fileName));
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    void testLatency() throws Exception {
+        LatencyHistogram ipv4 = new LatencyHistogram();
+        LatencyHistogram ipv6 = new LatencyHistogram();
+        LatencyHistogram text = new LatencyHistogram();
+        onAllThreads(() -> {
+            long found = lookUpAll();
+            for (int i = 0; i < ADDRESSES; i++) {
+                long start = System.nanoTime();
+                found += ip2Asn2Cc.checkIP(ipv4Addresses[i]) ? 1 : 0;
+                long ipv4End = System.nanoTime();
+                found += ip2Asn2Cc.checkIP(ipv6Addresses[2 * i], ipv6Addresses[2 * i + 1]) ? 1 : 0;
+                long ipv6End = System.nanoTime();
+                found += ip2Asn2Cc.checkIP(addresses[i]) ? 1 : 0;
+                text.record(System.nanoTime() - ipv6End);
+                ipv6.record(ipv6End - ipv4End);
+                ipv4.record(ipv4End - start);
+            }
+            return found;
+        });
+
+        assertWithinBudget("ipv4", ipv4);
+        assertWithinBudget("ipv6", ipv6);
+        assertWithinBudget("text", text);
+    }
+
+    @Test
+    void testAllocation() throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] allocated = new long[1];
+        onAllThreads(() -> {
+            // the first round compiles the lookup path
+            long found = lookUpAll();
+            long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            for (int round = 0; round < ROUNDS; round++) {
+                found += lookUpAll();
+            }
+            long bytes = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+            synchronized (allocated) {
+                allocated[0] += bytes;
+            }
+            return found;
+        });
+
+        // every round makes 6 lookups per address
+        double perLookup = (double) allocated[0] / ((long) THREADS * ROUNDS * ADDRESSES * 6);
+        assertTrue(perLookup <= ALLOCATION_BUDGET_BYTES, "allocated " + perLookup + " bytes per lookup, budget "
+                + ALLOCATION_BUDGET_BYTES);
+    }
+
+    private static void assertWithinBudget(String lookup, LatencyHistogram histogram) {
+        String latency = lookup + " lookups: mean " + (long) histogram.getMeanNanos() + " ns, p99 "
+                + histogram.getPercentileNanos(99) + " ns";
+        assertTrue(histogram.getMeanNanos() <= MEAN_BUDGET_NANOS, latency + ", mean budget " + (long) MEAN_BUDGET_NANOS + " ns");
+        assertTrue(histogram.getPercentileNanos(99) <= P99_BUDGET_NANOS, latency + ", p99 budget " + P99_BUDGET_NANOS + " ns");
+    }
+
+    private static long lookUpAll() {
+        LookupResult result = new LookupResult();
+        long found = 0;
+        for (int i = 0; i < ADDRESSES; i++) {
+            found += ip2Asn2Cc.checkIP(ipv4Addresses[i]) ? 1 : 0;
+            found += ip2Asn2Cc.getRIRCountryCode(ipv6Addresses[2 * i], ipv6Addresses[2 * i + 1]).length();
+            found += ip2Asn2Cc.checkIP(addresses[i]) ? 1 : 0;
+            found += ip2Asn2Cc.checkASN(ipv4Addresses[i] & 0x3FFFFFFFL) ? 1 : 0;
+            found += ip2Asn2Cc.lookup(ipv4Addresses[i], result) ? 1 : 0;
+            found += ip2Asn2Cc.lookup(ipv6Addresses[2 * i], ipv6Addresses[2 * i + 1], result) ? 1 : 0;
+        }
+        return found;
+    }
+
+    // runs the task on all the threads at once
+    private static long onAllThreads(Callable<Long> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Long>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            long total = 0;
+            for (Future<Long> result : results) {
+                total += result.get(5, TimeUnit.MINUTES);
+            }
+            return total;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.axlabs.ip2asn2cc;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.axlabs.ip2asn2cc.exception.RIRNotDownloadedException;
+import com.axlabs.ip2asn2cc.metrics.LookupType;
+import com.axlabs.ip2asn2cc.model.FilterPolicy;
+import com.axlabs.ip2asn2cc.model.RecordStatus;
+import com.axlabs.ip2asn2cc.model.Registry;
+import com.axlabs.ip2asn2cc.rir.ClasspathRIRSource;
+import com.axlabs.ip2asn2cc.rir.FileRIRSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Ip2Asn2CcLookupTest {
+
+    private static final String ARIN_FILE = String.join("\n",
+            "arin|US|ipv4|8.0.0.0|16777216|19921201|allocated",
+            "arin|US|ipv4|8.8.8.0|256|20140303|assigned",
+            "arin|US|asn|15169|1|20000330|assigned");
+
+    private Path arinFile;
+    private Ip2Asn2Cc ip2Asn2Cc;
+
+    @BeforeEach
+    void initialize() throws IOException, RIRNotDownloadedException {
+        arinFile = Files.createTempFile("delegated-arin-", "");
+        Files.write(arinFile, ARIN_FILE.getBytes(StandardCharsets.US_ASCII));
+        Config config = new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, true, true)
+                .withSources(List.of(new ClasspathRIRSource("/fixtures/rir/delegated-ripencc-latest"),
+                        new FileRIRSource(arinFile)))
+                .withRecordLookup(true);
+        ip2Asn2Cc = new Ip2Asn2Cc(List.of("CH", "US"), config);
+    }
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        Files.delete(arinFile);
+    }
+
+    @Test
+    void testIPv4() {
+        LookupResult result = ip2Asn2Cc.lookup("77.109.144.219");
+        assertTrue(result.isFound());
+        assertEquals(LookupType.IPV4, result.getType());
+        assertEquals("CH", result.getCountryCode());
+        assertEquals(Registry.RIPENCC, result.getRegistry());
+        assertEquals(RecordStatus.ALLOCATED, result.getStatus());
+        assertEquals(20050125, result.getDate());
+        assertEquals(0x4D6D8000L, result.getRangeStart());
+        assertEquals(0x4D6DFFFFL, result.getRangeEnd());
+
+        // the most specific record wins, like for the country lookups
+        assertSame(result, ip2Asn2Cc.lookup("8.8.8.8"));
+        assertEquals(Registry.ARIN, result.getRegistry());
+        assertEquals(RecordStatus.ASSIGNED, result.getStatus());
+        assertEquals(0x08080800L, result.getRangeStart());
+        assertEquals(0x080808FFL, result.getRangeEnd());
+        LookupResult own = new LookupResult();
+        assertTrue(ip2Asn2Cc.lookup("8.8.9.1", own));
+        assertEquals(RecordStatus.ALLOCATED, own.getStatus());
+        assertEquals(0x08000000L, own.getRangeStart());
+        assertEquals(0x08FFFFFFL, own.getRangeEnd());
+        assertEquals(ip2Asn2Cc.getRIRCountryCode("8.8.9.1"), own.getCountryCode());
+
+        // a local address has no registry
+        assertTrue(ip2Asn2Cc.lookup("127.0.0.1", own));
+        assertEquals("US", own.getCountryCode());
+        assertNull(own.getRegistry());
+
+        // not loaded: DE
+        assertFalse(ip2Asn2Cc.lookup("5.1.0.1").isFound());
+        assertEquals("Unknown", ip2Asn2Cc.lookup("5.1.0.1").getCountryCode());
+        assertFalse(ip2Asn2Cc.lookup("not an address").isFound());
+        assertNull(ip2Asn2Cc.lookup("not an address").getType());
+    }
+
+    @Test
+    void testIPv6() {
+        LookupResult result = ip2Asn2Cc.lookup("2001:1620:2777:23::2");
+        assertTrue(result.isFound());
+        assertEquals(LookupType.IPV6, result.getType());
+        assertEquals("CH", result.getCountryCode());
+        assertEquals(Registry.RIPENCC, result.getRegistry());
+        assertEquals(20030113, result.getDate());
+        assertEquals(0x2001_1620_0000_0000L, result.getPrefixHigh());
+        assertEquals(0L, result.getPrefixLow());
+        assertEquals(32, result.getPrefixLength());
+
+        assertTrue(ip2Asn2Cc.lookup("::1").isFound());
+        assertFalse(ip2Asn2Cc.lookup("2001:1600::1").isFound());
+    }
+
+    @Test
+    void testASN() {
+        LookupResult result = ip2Asn2Cc.lookupASN("15169");
+        assertTrue(result.isFound());
+        assertEquals(LookupType.ASN, result.getType());
+        assertEquals("US", result.getCountryCode());
+        assertEquals(Registry.ARIN, result.getRegistry());
+        assertEquals(15169L, result.getRangeStart());
+        assertEquals(15169L, result.getRangeEnd());
+        assertEquals(20000330, result.getDate());
+
+        assertFalse(ip2Asn2Cc.lookupASN("3320").isFound());
+        assertFalse(ip2Asn2Cc.lookupASN("AS15169").isFound());
+    }
+
+    @Test
+    void testFirstOfEquallySpecificRecordsWins() throws IOException, RIRNotDownloadedException {
+        // the same ipv4 range and ipv6 prefix registered twice, for other countries
+        Path file = Files.createTempFile("delegated-duplicates-", "");
+        try {
+            Files.write(file, String.join("\n",
+                    "arin|US|ipv4|9.9.9.0|256|20000101|assigned",
+                    "arin|CA|ipv4|9.9.9.0|256|20100101|allocated",
+                    "arin|US|ipv6|2620:fe::|48|20000101|assigned",
+                    "arin|CA|ipv6|2620:fe::|48|20100101|allocated").getBytes(StandardCharsets.US_ASCII));
+            Ip2Asn2Cc duplicates = new Ip2Asn2Cc(List.of("US", "CA"), new Config(FilterPolicy.INCLUDE_COUNTRY_CODES,
+                    false, false).withSources(List.of(new FileRIRSource(file))).withRecordLookup(true));
+
+            assertEquals("US", duplicates.getRIRCountryCode("9.9.9.9"));
+            assertEquals("US", duplicates.getRIRCountryCode("2620:fe::fe"));
+            LookupResult result = duplicates.lookup("9.9.9.9");
+            assertEquals("US", result.getCountryCode());
+            assertEquals(20000101, result.getDate());
+            result = duplicates.lookup("2620:fe::fe");
+            assertEquals("US", result.getCountryCode());
+            assertEquals(20000101, result.getDate());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void testDisabled() throws RIRNotDownloadedException {
+        Ip2Asn2Cc withoutRecords = new Ip2Asn2Cc(List.of("CH"), new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, false, false)
+                .withSources(List.of(new ClasspathRIRSource("/fixtures/rir/delegated-ripencc-latest"))));
+        assertEquals("CH", withoutRecords.getRIRCountryCode("77.109.144.219"));
+        assertThrows(IllegalStateException.class, () -> withoutRecords.lookup("77.109.144.219"));
+    }
+
+}
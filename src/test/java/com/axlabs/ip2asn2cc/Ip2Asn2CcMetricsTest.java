@@ -0,0 +1,128 @@
+package com.axlabs.ip2asn2cc;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.validator.routines.InetAddressValidator;
+import org.junit.jupiter.api.Test;
+
+import com.axlabs.ip2asn2cc.checker.ASNChecker;
+import com.axlabs.ip2asn2cc.checker.IPv4Checker;
+import com.axlabs.ip2asn2cc.checker.IPv6Checker;
+import com.axlabs.ip2asn2cc.exception.RIRNotDownloadedException;
+import com.axlabs.ip2asn2cc.metrics.Ip2Asn2CcMetrics;
+import com.axlabs.ip2asn2cc.metrics.JmxMetrics;
+import com.axlabs.ip2asn2cc.metrics.LatencyHistogram;
+import com.axlabs.ip2asn2cc.metrics.LookupType;
+import com.axlabs.ip2asn2cc.model.CountryCodes;
+import com.axlabs.ip2asn2cc.model.FilterPolicy;
+import com.axlabs.ip2asn2cc.model.IPv4Subnet;
+import com.axlabs.ip2asn2cc.model.IPv6Subnet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Ip2Asn2CcMetricsTest {
+
+    @Test
+    void testLookups() throws RIRNotDownloadedException {
+        JmxMetrics metrics = new JmxMetrics();
+        Ip2Asn2Cc ip2Asn2Cc = newIp2Asn2Cc(new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, false, false)
+                .withMetrics(metrics));
+
+        assertEquals("US", ip2Asn2Cc.getRIRCountryCode("8.8.8.8"));
+        assertTrue(ip2Asn2Cc.checkIP("8.8.4.4"));
+        assertEquals("CH", ip2Asn2Cc.getRIRCountryCode("2001:1620:2777:23::2"));
+        assertEquals("US", ip2Asn2Cc.getASNCountryCode("15169"));
+        assertTrue(ip2Asn2Cc.checkASN(15169L));
+        assertEquals(2L, metrics.getIPv4LookupCount());
+        assertEquals(1L, metrics.getIPv6LookupCount());
+        assertEquals(2L, metrics.getASNLookupCount());
+
+        // a batch counts every address in it
+        ip2Asn2Cc.getRIRCountryCodes(new String[]{"8.8.8.8", "1.1.1.1", "2001:1620::1", "invalid"}, new String[4]);
+        assertEquals(4L, metrics.getIPv4LookupCount());
+        assertEquals(2L, metrics.getIPv6LookupCount());
+        assertTrue(metrics.getIPv4LookupP99Nanos() >= metrics.getIPv4LookupMeanNanos() / 2);
+    }
+
+    @Test
+    void testLoad() throws RIRNotDownloadedException {
+        JmxMetrics metrics = new JmxMetrics();
+        Ip2Asn2Cc ip2Asn2Cc = newIp2Asn2Cc(new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, false, false)
+                .withMetrics(metrics));
+        RIRDataset dataset = ip2Asn2Cc.getDataset();
+        assertEquals(dataset.getGeneration(), metrics.getGeneration());
+        assertEquals(1, metrics.getIPv4Ranges());
+        assertEquals(1, metrics.getIPv6Prefixes());
+        assertEquals(1, metrics.getASNRanges());
+        assertEquals(dataset.getIpv4Checker().getIndex().serializedSize()
+                        + dataset.getIpv6Checker().getTrie().serializedSize()
+                        + dataset.getAsnChecker().getIndex().serializedSize(), metrics.getIndexBytes());
+
+        ip2Asn2Cc.reload();
+        assertEquals(ip2Asn2Cc.getDataset().getGeneration(), metrics.getGeneration());
+    }
+
+    @Test
+    void testJmx() throws JMException {
+        JmxMetrics metrics = new JmxMetrics();
+        ObjectName name = metrics.register("test");
+        // registering the same name again replaces the first instance
+        ObjectName replaced = new JmxMetrics().register("test");
+        assertEquals(name, replaced);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(0L, server.getAttribute(name, "IPv4LookupCount"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    @Test
+    void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100);
+        }
+        histogram.record(1_000_000);
+        assertEquals(100L, histogram.getCount());
+        assertEquals(127L, histogram.getPercentileNanos(50));
+        assertEquals(127L, histogram.getPercentileNanos(99));
+        assertEquals(1_048_575L, histogram.getPercentileNanos(100));
+        assertEquals(10_099.0, histogram.getMeanNanos());
+
+    }
+
+    @Test
+    void testDisabled() {
+        assertSame(Ip2Asn2CcMetrics.NOOP, new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, false, false).metrics());
+        JmxMetrics metrics = new JmxMetrics();
+        metrics.recordLookups(LookupType.ASN, 3, 300);
+        assertEquals(3L, metrics.getASNLookupCount());
+        assertEquals(100.0, metrics.getASNLookupMeanNanos());
+    }
+
+    private static Ip2Asn2Cc newIp2Asn2Cc(Config config) throws RIRNotDownloadedException {
+        return new Ip2Asn2Cc(new RIRLoader(List.of("US", "CH"), config) {
+            @Override
+            RIRDataset load() {
+                InetAddressValidator validator = new InetAddressValidator();
+                IPv4Checker ipv4Checker = new IPv4Checker(validator);
+                IPv6Checker ipv6Checker = new IPv6Checker(validator);
+                ASNChecker asnChecker = new ASNChecker();
+                ipv4Checker.addSubnet(new IPv4Subnet("8.8.0.0", 65536, "US"));
+                ipv6Checker.addSubnet(new IPv6Subnet("2001:1620::", 32, "CH"));
+                asnChecker.addRange(15169, 15169, CountryCodes.toId("US"));
+                return new RIRDataset(ipv4Checker, ipv6Checker, asnChecker, nextGeneration(), Instant.now());
+            }
+        }, config);
+    }
+
+}
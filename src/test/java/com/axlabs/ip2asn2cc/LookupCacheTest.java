@@ -0,0 +1,141 @@
+package com.axlabs.ip2asn2cc;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.validator.routines.InetAddressValidator;
+import org.junit.jupiter.api.Test;
+
+import com.axlabs.ip2asn2cc.checker.ASNChecker;
+import com.axlabs.ip2asn2cc.checker.IPv4Checker;
+import com.axlabs.ip2asn2cc.checker.IPv6Checker;
+import com.axlabs.ip2asn2cc.exception.RIRNotDownloadedException;
+import com.axlabs.ip2asn2cc.model.CountryCodes;
+import com.axlabs.ip2asn2cc.model.CountryFilter;
+import com.axlabs.ip2asn2cc.model.FilterPolicy;
+import com.axlabs.ip2asn2cc.model.IPv4Subnet;
+import com.axlabs.ip2asn2cc.model.IPv6Subnet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LookupCacheTest {
+
+    private static final short US = CountryCodes.toId("US");
+    private static final short CH = CountryCodes.toId("CH");
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void testGetAndPut() {
+        LookupCache cache = new LookupCache(100);
+        assertEquals(LookupCache.NOT_CACHED, cache.get(1, true, 0, 0x08080808));
+        cache.put(1, true, 0, 0x08080808, US);
+        cache.put(1, false, 0, 0x08080808, CH);
+        cache.put(1, true, 0, 0x01010101, CountryCodes.UNKNOWN_ID);
+
+        assertEquals(US, (short) cache.get(1, true, 0, 0x08080808));
+        assertEquals(CH, (short) cache.get(1, false, 0, 0x08080808));
+        assertEquals(CountryCodes.UNKNOWN_ID, (short) cache.get(1, true, 0, 0x01010101));
+        // another generation doesn't see the entries
+        assertEquals(LookupCache.NOT_CACHED, cache.get(2, true, 0, 0x08080808));
+
+        LookupCacheStats stats = cache.getStats();
+        assertEquals(128, stats.getCapacity());
+        assertEquals(3L, stats.getHits());
+        assertEquals(2L, stats.getMisses());
+        assertEquals(0L, stats.getEvictions());
+        assertEquals(0.6, stats.getHitRate());
+    }
+
+    @Test
+    void testClockEviction() {
+        // a single set of 8 entries
+        LookupCache cache = new LookupCache(8);
+        for (int i = 0; i < 8; i++) {
+            cache.put(1, true, 0, i, US);
+        }
+        cache.get(1, true, 0, 0);
+        cache.get(1, true, 0, 5);
+        cache.put(1, true, 0, 8, CH);
+
+        // the recently used entries get a second chance, the first unused one goes
+        assertEquals(US, (short) cache.get(1, true, 0, 0));
+        assertEquals(US, (short) cache.get(1, true, 0, 5));
+        assertEquals(LookupCache.NOT_CACHED, cache.get(1, true, 0, 1));
+        assertEquals(CH, (short) cache.get(1, true, 0, 8));
+        assertEquals(1L, cache.getStats().getEvictions());
+
+        // entries of an older generation are replaced without an eviction
+        cache.put(2, true, 0, 9, CH);
+        assertEquals(CH, (short) cache.get(2, true, 0, 9));
+        assertEquals(1L, cache.getStats().getEvictions());
+    }
+
+    @Test
+    void testBounded() {
+        LookupCache cache = new LookupCache(1000);
+        for (int i = 0; i < 100_000; i++) {
+            cache.put(1, true, 0, i, US);
+        }
+        int cached = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (cache.get(1, true, 0, i) != LookupCache.NOT_CACHED) {
+                cached++;
+            }
+        }
+        assertTrue(cached <= cache.getStats().getCapacity());
+        assertEquals(100_000L - cache.getStats().getCapacity(), cache.getStats().getEvictions());
+    }
+
+    @Test
+    void testIp2Asn2Cc() throws RIRNotDownloadedException {
+        Ip2Asn2Cc ip2Asn2Cc = newIp2Asn2Cc(new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, false, false)
+                .withLookupCacheSize(1024));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("US", ip2Asn2Cc.getRIRCountryCode("8.8.8.8"));
+            assertTrue(ip2Asn2Cc.checkIP("8.8.8.8"));
+            assertFalse(ip2Asn2Cc.checkIP("1.1.1.1"));
+            assertEquals("CH", ip2Asn2Cc.getRIRCountryCode("2001:1620:2777:23::2"));
+            assertTrue(ip2Asn2Cc.checkIP("2001:1620:2777:23::2", CountryFilter.include("CH")));
+        }
+        LookupCacheStats stats = ip2Asn2Cc.getLookupCacheStats();
+        assertEquals(3L, stats.getMisses());
+        assertEquals(12L, stats.getHits());
+
+        ip2Asn2Cc.reload();
+        assertEquals("CH", ip2Asn2Cc.getRIRCountryCode("8.8.8.8"));
+        assertEquals(4L, ip2Asn2Cc.getLookupCacheStats().getMisses());
+    }
+
+    @Test
+    void testDisabled() throws RIRNotDownloadedException {
+        Config config = new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, false, false);
+        Ip2Asn2Cc ip2Asn2Cc = newIp2Asn2Cc(config);
+        assertEquals("US", ip2Asn2Cc.getRIRCountryCode("8.8.8.8"));
+        assertEquals(0, ip2Asn2Cc.getLookupCacheStats().getCapacity());
+        assertEquals(0L, ip2Asn2Cc.getLookupCacheStats().getHits() + ip2Asn2Cc.getLookupCacheStats().getMisses());
+        assertThrows(IllegalArgumentException.class, () -> config.withLookupCacheSize(-1));
+    }
+
+    private Ip2Asn2Cc newIp2Asn2Cc(Config config) throws RIRNotDownloadedException {
+        return new Ip2Asn2Cc(new RIRLoader(List.of("US", "CH"), config) {
+            @Override
+            RIRDataset load() {
+                // the second load moves 8.8.8.0/24 to CH
+                String country = loads.incrementAndGet() == 1 ? "US" : "CH";
+                InetAddressValidator validator = new InetAddressValidator();
+                IPv4Checker ipv4Checker = new IPv4Checker(validator);
+                IPv6Checker ipv6Checker = new IPv6Checker(validator);
+                ipv4Checker.addSubnet(new IPv4Subnet("8.8.8.0", 256, country));
+                ipv6Checker.addSubnet(new IPv6Subnet("2001:1620::", 32, "CH"));
+                return new RIRDataset(ipv4Checker, ipv6Checker, new ASNChecker(), nextGeneration(), Instant.now());
+            }
+        }, config);
+    }
+
+}
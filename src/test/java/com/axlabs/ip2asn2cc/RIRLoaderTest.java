@@ -0,0 +1,212 @@
+package com.axlabs.ip2asn2cc;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.axlabs.ip2asn2cc.exception.RIRLoadTimeoutException;
+import com.axlabs.ip2asn2cc.exception.RIRNotDownloadedException;
+import com.axlabs.ip2asn2cc.metrics.JmxMetrics;
+import com.axlabs.ip2asn2cc.model.FilterPolicy;
+import com.axlabs.ip2asn2cc.rir.FileRIRSource;
+import com.axlabs.ip2asn2cc.rir.UrlRIRSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RIRLoaderTest {
+
+    private final Config config = new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, true, false);
+    private Path ripeFile;
+    private Path arinFile;
+
+    @BeforeEach
+    void initialize() throws IOException {
+        ripeFile = Files.createTempFile("ip2asn2cc-ripencc-", ".txt");
+        arinFile = Files.createTempFile("ip2asn2cc-arin-", ".txt");
+
+        // large enough to be cut into several chunks that are parsed in parallel
+        StringBuilder ripe = new StringBuilder("2|ripencc|1700000000|8|19830705|20231017|+0100\n");
+        for (int i = 0; i < 40_000; i++) {
+            ripe.append("ripencc|CH|ipv4|10.").append(i / 256).append('.').append(i % 256)
+                    .append(".0|256|20050125|allocated\n");
+        }
+        ripe.append("ripencc|CH|ipv6|2001:1620::|32|20030113|allocated\n");
+        ripe.append("ripencc|CH|asn|13030|1|19930901|assigned\n");
+        Files.write(ripeFile, ripe.toString().getBytes(StandardCharsets.US_ASCII));
+
+        Files.write(arinFile, String.join("\n",
+                "arin|US|ipv4|8.8.8.0|256|19920101|assigned",
+                "arin|US|asn|3356|1|20000101|assigned",
+                "arin|DE|ipv4|5.1.0.0|768|20120427|allocated").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        Files.deleteIfExists(ripeFile);
+        Files.deleteIfExists(ripeFile.resolveSibling(ripeFile.getFileName() + ".md5"));
+        Files.deleteIfExists(arinFile);
+    }
+
+    @Test
+    void testLoad() throws IOException, RIRNotDownloadedException {
+        JmxMetrics metrics = new JmxMetrics();
+        RIRLoader loader = new RIRLoader(List.of("US", "CH"), config.withMetrics(metrics).withSources(List.of(
+                new FileRIRSource(ripeFile), new UrlRIRSource(arinFile.toUri().toString()))));
+        RIRDataset dataset = loader.load();
+
+        assertEquals("CH", dataset.getIpv4Checker().getCountryCodeInRange("10.0.0.1"));
+        assertEquals("CH", dataset.getIpv4Checker().getCountryCodeInRange("10.0.255.0"));
+        assertEquals("CH", dataset.getIpv4Checker().getCountryCodeInRange("10.156.63.0"));
+        assertFalse(dataset.getIpv4Checker().checkIfIsInRange("10.156.64.0"));
+        assertEquals("US", dataset.getIpv4Checker().getCountryCodeInRange("8.8.8.8"));
+        assertEquals("US", dataset.getIpv4Checker().getCountryCodeInRange("127.0.0.1"));
+        assertFalse(dataset.getIpv4Checker().checkIfIsInRange("5.1.0.1"));
+        assertEquals("CH", dataset.getIpv6Checker().getCountryCodeInRange("2001:1620:2777:23::2"));
+        assertTrue(dataset.getAsnChecker().checkIfMatches(13030));
+        assertTrue(dataset.getAsnChecker().checkIfMatches(3356));
+
+        assertEquals(List.of("download and parse", "merge", "index build"),
+                List.copyOf(dataset.getStageTimings().keySet()));
+        assertEquals(Files.size(ripeFile), (long) metrics.getRIRFileBytes().get(ripeFile.toString()));
+        assertEquals(2, metrics.getRIRFileParseMillis().size());
+        assertEquals(dataset.getStageTimings().keySet(), metrics.getLoadStageMillis().keySet());
+    }
+
+    @Test
+    void testSkipsUnchangedFiles() throws IOException, NoSuchAlgorithmException, RIRNotDownloadedException {
+        RIRLoader loader = new RIRLoader(List.of("US", "CH"), config.withKeepParsedFiles(true).withSources(List.of(
+                new FileRIRSource(ripeFile), new UrlRIRSource(arinFile.toUri().toString()))));
+        RIRDataset dataset = loader.load();
+        assertSame(dataset, loader.load());
+
+        changeFilesBehindTheMD5();
+        RIRDataset reloaded = loader.load();
+        assertNotSame(dataset, reloaded);
+        assertTrue(reloaded.getGeneration() > dataset.getGeneration());
+        assertEquals("CH", reloaded.getIpv4Checker().getCountryCodeInRange("10.0.0.1"));
+        assertEquals("CH", reloaded.getIpv6Checker().getCountryCodeInRange("2001:1620:2777:23::2"));
+        assertFalse(reloaded.getIpv4Checker().checkIfIsInRange("11.0.0.1"));
+        assertEquals("US", reloaded.getIpv4Checker().getCountryCodeInRange("8.8.4.4"));
+        assertFalse(reloaded.getIpv4Checker().checkIfIsInRange("8.8.8.8"));
+        assertFalse(reloaded.getAsnChecker().checkIfMatches(3356));
+    }
+
+    @Test
+    void testRereadsUnchangedFilesWithoutKeptRecords() throws IOException, NoSuchAlgorithmException,
+            RIRNotDownloadedException {
+        RIRLoader loader = new RIRLoader(List.of("US", "CH"), config.withSources(List.of(
+                new FileRIRSource(ripeFile), new UrlRIRSource(arinFile.toUri().toString()))));
+        RIRDataset dataset = loader.load();
+        assertSame(dataset, loader.load());
+
+        // the ripe file counts as unchanged, but its records weren't kept, so it's read again
+        changeFilesBehindTheMD5();
+        RIRDataset reloaded = loader.load();
+        assertNotSame(dataset, reloaded);
+        assertEquals("CH", reloaded.getIpv4Checker().getCountryCodeInRange("11.0.0.1"));
+        assertFalse(reloaded.getIpv4Checker().checkIfIsInRange("10.0.0.1"));
+        assertEquals("US", reloaded.getIpv4Checker().getCountryCodeInRange("8.8.4.4"));
+        assertSame(reloaded, loader.load());
+    }
+
+    // publishes the MD5 of the ripe file, which wins over its size and modification time,
+    // and then changes the content of both files
+    private void changeFilesBehindTheMD5() throws IOException, NoSuchAlgorithmException {
+        String md5 = HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(Files.readAllBytes(ripeFile)));
+        Files.write(ripeFile.resolveSibling(ripeFile.getFileName() + ".md5"),
+                ("MD5 (" + ripeFile.getFileName() + ") = " + md5 + "\n").getBytes(StandardCharsets.US_ASCII));
+        Files.write(ripeFile, "ripencc|CH|ipv4|11.0.0.0|256|20050125|allocated".getBytes(StandardCharsets.US_ASCII));
+        Files.write(arinFile, "arin|US|ipv4|8.8.4.0|256|19920101|assigned".getBytes(StandardCharsets.US_ASCII));
+        Files.setLastModifiedTime(arinFile, FileTime.fromMillis(Files.getLastModifiedTime(arinFile).toMillis() + 1000));
+    }
+
+    @Test
+    void testFailsFast() throws IOException {
+        try (ServerSocket server = new ServerSocket(0)) {
+            // the server never answers, but the missing file fails the load long before the timeout
+            RIRLoader loader = new RIRLoader(List.of("US"), config.withLoadTimeout(Duration.ofMinutes(1)).withSources(List.of(
+                    new UrlRIRSource("http://127.0.0.1:" + server.getLocalPort() + "/delegated", Duration.ofSeconds(10)),
+                    new FileRIRSource(ripeFile.resolveSibling("missing-" + ripeFile.getFileName())))));
+
+            RIRNotDownloadedException e = assertThrows(RIRNotDownloadedException.class, loader::load);
+            assertFalse(e instanceof RIRLoadTimeoutException);
+            closeConnection(server);
+        }
+    }
+
+    @Test
+    void testTimeout() throws IOException {
+        try (ServerSocket server = new ServerSocket(0)) {
+            String url = "http://127.0.0.1:" + server.getLocalPort() + "/delegated";
+            RIRLoader loader = new RIRLoader(List.of("US"), config.withLoadTimeout(Duration.ofMillis(200)).withSources(List.of(
+                    new UrlRIRSource(url), new FileRIRSource(arinFile))));
+
+            RIRLoadTimeoutException e = assertThrows(RIRLoadTimeoutException.class, loader::load);
+            assertTrue(e.getMessage().contains("download and parse"));
+            assertTrue(e.getMessage().contains(url));
+            assertFalse(e.getMessage().contains(arinFile.toString()));
+            closeConnection(server);
+        }
+    }
+
+    @Test
+    void testSourceTimeout() throws IOException {
+        try (ServerSocket server = new ServerSocket(0)) {
+            String url = "http://127.0.0.1:" + server.getLocalPort() + "/delegated";
+            RIRLoader loader = new RIRLoader(List.of("US"), config.withSources(List.of(
+                    new UrlRIRSource(url, Duration.ofMillis(200)), new FileRIRSource(arinFile))));
+
+            long start = System.nanoTime();
+            RIRLoadTimeoutException e = assertThrows(RIRLoadTimeoutException.class, loader::load);
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(10)) < 0);
+            assertTrue(e.getMessage().contains(url));
+            closeConnection(server);
+        }
+    }
+
+    @Test
+    void testTimeoutKeepsTheOtherFailures() {
+        IOException parseError = new IOException("Malformed RIR record");
+        List<CompletableFuture<Object>> tasks = List.of(
+                CompletableFuture.failedFuture(new SocketTimeoutException("Read timed out")),
+                CompletableFuture.failedFuture(parseError),
+                CompletableFuture.completedFuture(new Object()));
+
+        RIRLoadTimeoutException e = assertThrows(RIRLoadTimeoutException.class, () -> RIRLoader.awaitAll(
+                "download and parse", List.of("slow", "broken", "fine"), tasks, System.nanoTime() + 1_000_000_000L));
+        assertTrue(e.getMessage().endsWith("timed out: [slow]"));
+        assertArrayEquals(new Throwable[] {parseError}, e.getSuppressed());
+    }
+
+    // lets the abandoned download end instead of waiting for an answer forever
+    private static void closeConnection(ServerSocket server) throws IOException {
+        server.setSoTimeout(1000);
+        try (Socket socket = server.accept()) {
+            socket.shutdownOutput();
+        } catch (SocketTimeoutException e) {
+            // the download never got to connect
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.axlabs.ip2asn2cc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.validator.routines.InetAddressValidator;
+import org.junit.jupiter.api.Test;
+
+import com.axlabs.ip2asn2cc.checker.ASNChecker;
+import com.axlabs.ip2asn2cc.checker.IPv4Checker;
+import com.axlabs.ip2asn2cc.checker.IPv6Checker;
+import com.axlabs.ip2asn2cc.exception.RIRNotDownloadedException;
+import com.axlabs.ip2asn2cc.model.FilterPolicy;
+import com.axlabs.ip2asn2cc.model.IPv4Subnet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RIRRefresherTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Ip2Asn2Cc newIp2Asn2Cc() throws RIRNotDownloadedException {
+        Config config = new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, false, false);
+        return new Ip2Asn2Cc(new RIRLoader(List.of("US"), config) {
+            @Override
+            RIRDataset load() {
+                // every load keeps 8.8.8.0/24 and moves a second subnet around
+                int load = loads.incrementAndGet();
+                InetAddressValidator validator = new InetAddressValidator();
+                IPv4Checker ipv4Checker = new IPv4Checker(validator);
+                ipv4Checker.addSubnet(new IPv4Subnet("8.8.8.0", 256, "US"));
+                ipv4Checker.addSubnet(new IPv4Subnet("10.0." + load + ".0", 256, "US"));
+                return new RIRDataset(ipv4Checker, new IPv6Checker(validator), new ASNChecker(),
+                        nextGeneration(), Instant.now());
+            }
+        }, config);
+    }
+
+    @Test
+    void testRefreshSwapsDataset() throws RIRNotDownloadedException {
+        Ip2Asn2Cc ip2Asn2Cc = newIp2Asn2Cc();
+        try (RIRRefresher refresher = new RIRRefresher(ip2Asn2Cc, Duration.ofHours(1))) {
+            assertEquals(1, refresher.getGeneration());
+            assertTrue(ip2Asn2Cc.checkIP("10.0.1.1"));
+
+            Instant firstLoad = refresher.getLoadedAt();
+            refresher.refresh();
+
+            assertEquals(2, refresher.getGeneration());
+            assertFalse(refresher.getLoadedAt().isBefore(firstLoad));
+            assertFalse(ip2Asn2Cc.checkIP("10.0.1.1"));
+            assertTrue(ip2Asn2Cc.checkIP("10.0.2.1"));
+        }
+    }
+
+    @Test
+    void testLookupsDuringRefresh() throws Exception {
+        Ip2Asn2Cc ip2Asn2Cc = newIp2Asn2Cc();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+
+        try (RIRRefresher refresher = new RIRRefresher(ip2Asn2Cc, Duration.ofMillis(1))) {
+            List<Future<Integer>> results = pool.invokeAll(List.of(
+                    () -> countMismatches(ip2Asn2Cc, running),
+                    () -> countMismatches(ip2Asn2Cc, running),
+                    () -> countMismatches(ip2Asn2Cc, running),
+                    () -> {
+                        for (int i = 0; i < 50; i++) {
+                            refresher.refresh();
+                        }
+                        running.set(false);
+                        return 0;
+                    }));
+            int mismatches = 0;
+            for (Future<Integer> result : results) {
+                mismatches += result.get(1, TimeUnit.MINUTES);
+            }
+            assertEquals(0, mismatches);
+            assertTrue(refresher.getGeneration() > 50);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int countMismatches(Ip2Asn2Cc ip2Asn2Cc, AtomicBoolean running) {
+        int mismatches = 0;
+        while (running.get()) {
+            mismatches += ip2Asn2Cc.getRIRCountryCode("8.8.8.8").equals("US") ? 0 : 1;
+        }
+        return mismatches;
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.axlabs.ip2asn2cc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+import org.apache.commons.validator.routines.InetAddressValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.axlabs.ip2asn2cc.checker.ASNChecker;
+import com.axlabs.ip2asn2cc.checker.IPv4Checker;
+import com.axlabs.ip2asn2cc.checker.IPv6Checker;
+import com.axlabs.ip2asn2cc.model.FilterPolicy;
+import com.axlabs.ip2asn2cc.model.IPv4Subnet;
+import com.axlabs.ip2asn2cc.model.IPv6Subnet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RIRSnapshotFileTest {
+
+    private static final List<String> COUNTRY_CODES = List.of("US", "CH");
+
+    private final Config config = new Config(FilterPolicy.INCLUDE_COUNTRY_CODES, true, false);
+    private Path snapshotPath;
+    private RIRDataset dataset;
+
+    @BeforeEach
+    void initialize() throws IOException {
+        snapshotPath = Files.createTempFile("ip2asn2cc-", ".snapshot");
+
+        InetAddressValidator validator = new InetAddressValidator();
+        IPv4Checker ipv4Checker = new IPv4Checker(validator);
+        IPv6Checker ipv6Checker = new IPv6Checker(validator);
+        ASNChecker asnChecker = new ASNChecker();
+        ipv4Checker.addSubnet(new IPv4Subnet("8.8.8.0", 256, "US"));
+        ipv4Checker.addSubnet(new IPv4Subnet("77.109.128.0", 32768, "CH"));
+        ipv6Checker.addSubnet(new IPv6Subnet("2600:1f18::", 32, "US"));
+        ipv6Checker.addSubnet(new IPv6Subnet("2001:1620::", 32, "CH"));
+        asnChecker.addASN("3356");
+        dataset = new RIRDataset(ipv4Checker, ipv6Checker, asnChecker, 1, Instant.ofEpochMilli(1_500_000_000_000L));
+    }
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        Files.deleteIfExists(snapshotPath);
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        RIRSnapshotFile.write(snapshotPath, dataset, COUNTRY_CODES, config);
+        RIRDataset loaded = RIRSnapshotFile.read(snapshotPath, List.of("CH", "US"), config, () -> 7);
+
+        assertEquals(7, loaded.getGeneration());
+        assertEquals(dataset.getLoadedAt(), loaded.getLoadedAt());
+        assertEquals("US", loaded.getIpv4Checker().getCountryCodeInRange("8.8.8.8"));
+        assertEquals("CH", loaded.getIpv4Checker().getCountryCodeInRange("77.109.144.219"));
+        assertFalse(loaded.getIpv4Checker().checkIfIsInRange("1.1.1.1"));
+        assertEquals("US", loaded.getIpv6Checker().getCountryCodeInRange("2600:1f18:1f:db01:11af:58af:ae11:f645"));
+        assertEquals("CH", loaded.getIpv6Checker().getCountryCodeInRange("2001:1620:2777:23::2"));
+        assertFalse(loaded.getIpv6Checker().checkIfIsInRange("2001:db8::1"));
+        assertTrue(loaded.getAsnChecker().checkIfMatches("3356"));
+        assertFalse(loaded.getAsnChecker().checkIfMatches("13030"));
+    }
+
+    @Test
+    void testOffHeapIndex() throws IOException {
+        Config offHeapConfig = config.withOffHeapIndex(true);
+        RIRSnapshotFile.write(snapshotPath, dataset, COUNTRY_CODES, offHeapConfig);
+        RIRDataset mapped = RIRSnapshotFile.read(snapshotPath, COUNTRY_CODES, offHeapConfig, () -> 2);
+
+        // replacing the file doesn't affect the mapping that's already in use
+        RIRSnapshotFile.write(snapshotPath, new RIRDataset(new IPv4Checker(new InetAddressValidator()),
+                new IPv6Checker(new InetAddressValidator()), new ASNChecker(), 3, Instant.now()), COUNTRY_CODES, config);
+
+        assertEquals("US", mapped.getIpv4Checker().getCountryCodeInRange("8.8.8.8"));
+        assertEquals("CH", mapped.getIpv4Checker().getCountryCodeInRange("77.109.255.255"));
+        assertFalse(mapped.getIpv4Checker().checkIfIsInRange("77.110.0.0"));
+        assertEquals("US", mapped.getIpv6Checker().getCountryCodeInRange("2600:1f18::1"));
+        assertEquals("CH", mapped.getIpv6Checker().getCountryCodeInRange("2001:1620:2777:23::2"));
+        assertFalse(mapped.getIpv6Checker().checkIfIsInRange("2001:db8::1"));
+        assertTrue(mapped.getAsnChecker().checkIfMatches(3356));
+
+        // a mapped dataset can be written again as is
+        RIRSnapshotFile.write(snapshotPath, mapped, COUNTRY_CODES, config);
+        RIRDataset copy = RIRSnapshotFile.read(snapshotPath, COUNTRY_CODES, config, () -> 4);
+        assertEquals("CH", copy.getIpv4Checker().getCountryCodeInRange("77.109.144.219"));
+        assertEquals("US", copy.getIpv6Checker().getCountryCodeInRange("2600:1f18::1"));
+        assertTrue(copy.getAsnChecker().checkIfMatches(3356));
+    }
+
+    @Test
+    void testRejectsOtherCountryCodes() throws IOException {
+        RIRSnapshotFile.write(snapshotPath, dataset, COUNTRY_CODES, config);
+        assertThrows(IOException.class, () -> RIRSnapshotFile.read(snapshotPath, List.of("US"), config, () -> 1));
+    }
+
+    @Test
+    void testRejectsCorruptedFile() throws IOException {
+        RIRSnapshotFile.write(snapshotPath, dataset, COUNTRY_CODES, config);
+        byte[] content = Files.readAllBytes(snapshotPath);
+        content[content.length / 2] ^= 0x55;
+        Files.write(snapshotPath, content, StandardOpenOption.TRUNCATE_EXISTING);
+        assertThrows(IOException.class, () -> RIRSnapshotFile.read(snapshotPath, COUNTRY_CODES, config, () -> 1));
+    }
+
+}
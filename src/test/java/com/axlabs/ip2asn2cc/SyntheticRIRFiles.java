@@ -0,0 +1,117 @@
+package com.axlabs.ip2asn2cc;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import com.axlabs.ip2asn2cc.rir.FileRIRSource;
+import com.axlabs.ip2asn2cc.rir.RIRSource;
+import com.googlecode.ipv6.IPv6Address;
+
+// writes delegated files in the format of the registries (one per RIR, under their original
+// names) with as many records as the real ones times a scale, for load tests and profiling:
+//   java ... com.axlabs.ip2asn2cc.SyntheticRIRFiles <directory> [scale] [seed]
+// The records of a registry never overlap, like in the real files: every registry gets its
+// own slice of the ipv4, ipv6 and ASN space, and the blocks are laid out from its start with
+// random gaps. The same seed always writes the same files.
+final class SyntheticRIRFiles {
+
+    private static final String[] REGISTRIES = {"arin", "ripencc", "afrinic", "apnic", "lacnic"};
+    // roughly the amount of records in the real files (late 2023)
+    private static final int[] RECORDS = {150_000, 230_000, 15_000, 90_000, 60_000};
+    private static final String[][] COUNTRIES = {
+            {"US", "CA", "PR"},
+            {"DE", "GB", "FR", "NL", "CH", "RU", "IT", "SE"},
+            {"ZA", "NG", "EG", "KE", "MA"},
+            {"CN", "JP", "KR", "IN", "AU", "ID"},
+            {"BR", "AR", "MX", "CL", "CO"}
+    };
+    // 1.0.0.0 up to 224.0.0.0, split between the registries
+    private static final long IPV4_START = 0x01000000L;
+    private static final long IPV4_SLICE = (0xE0000000L - IPV4_START) / REGISTRIES.length;
+
+    private SyntheticRIRFiles() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Path.of(args[0]);
+        int scale = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        Files.createDirectories(directory);
+        write(directory, scale, seed);
+    }
+
+    // returns the sources reading the written files
+    static List<RIRSource> write(Path directory, int scale, long seed) throws IOException {
+        Random random = new Random(seed);
+        for (int r = 0; r < REGISTRIES.length; r++) {
+            writeFile(directory.resolve(RIRSource.RIR_FILE_NAMES.get(r)), r, RECORDS[r] * scale, random);
+        }
+        return FileRIRSource.directory(directory);
+    }
+
+    private static void writeFile(Path file, int registry, int records, Random random) throws IOException {
+        String name = REGISTRIES[registry];
+        // about the mix of the real files
+        int ipv4Records = records * 6 / 10;
+        int ipv6Records = records / 4;
+        int asnRecords = records - ipv4Records - ipv6Records;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            writer.write("2|" + name + "|20231017|" + records + "|19830613|20231016|+0000\n");
+            writer.write(name + "|*|asn|*|" + asnRecords + "|summary\n");
+            writer.write(name + "|*|ipv4|*|" + ipv4Records + "|summary\n");
+            writer.write(name + "|*|ipv6|*|" + ipv6Records + "|summary\n");
+
+            long asn = 1 + registry * 100_000_000L;
+            for (int i = 0; i < asnRecords; i++) {
+                int count = random.nextInt(50) == 0 ? 1 + random.nextInt(1024) : 1;
+                writeRecord(writer, registry, "asn", Long.toString(asn), count, random);
+                asn += count + random.nextInt(4);
+            }
+
+            // blocks of up to half the average space per record, so the slice never runs out
+            long address = IPV4_START + registry * IPV4_SLICE;
+            int maxBits = 63 - Long.numberOfLeadingZeros(Math.max(IPV4_SLICE / Math.max(ipv4Records, 1) / 2, 1));
+            for (int i = 0; i < ipv4Records; i++) {
+                int bits = Math.max(maxBits - random.nextInt(4), 0);
+                // a few of the blocks aren't a power of two, e.g. 768 addresses
+                long count = random.nextInt(20) == 0 && bits >= 2 ? 3L << (bits - 2) : 1L << bits;
+                address = (address + (1L << bits) - 1) & -(1L << bits);
+                writeRecord(writer, registry, "ipv4", toIPv4String(address), count, random);
+                address += count + (random.nextBoolean() ? 0 : 1L << bits);
+            }
+
+            // 2000::/7 split between the registries, prefixes of /29 to /48
+            long high = (0x2000L + registry * 0x0040L) << 48;
+            for (int i = 0; i < ipv6Records; i++) {
+                int length = 29 + random.nextInt(20);
+                long size = 1L << (64 - length);
+                high = (high + size - 1) & -size;
+                writeRecord(writer, registry, "ipv6", IPv6Address.fromLongs(high, 0).toString(), length, random);
+                high += size * (1 + random.nextInt(2));
+            }
+        }
+    }
+
+    private static void writeRecord(BufferedWriter writer, int registry, String type, String start, long value,
+                                     Random random) throws IOException {
+        String[] countries = COUNTRIES[registry];
+        int date = (1990 + random.nextInt(34)) * 10000 + (1 + random.nextInt(12)) * 100 + 1 + random.nextInt(28);
+        writer.write(REGISTRIES[registry] + "|" + countries[random.nextInt(countries.length)] + "|" + type + "|"
+                + start + "|" + value + "|" + date + "|" + (random.nextBoolean() ? "allocated" : "assigned"));
+        if (registry == 0) {
+            // the opaque id of the extended format
+            writer.write("|" + Integer.toHexString(random.nextInt()));
+        }
+        writer.write('\n');
+    }
+
+    private static String toIPv4String(long address) {
+        return (address >>> 24) + "." + ((address >>> 16) & 0xFF) + "." + ((address >>> 8) & 0xFF) + "." + (address & 0xFF);
+    }
+
+}
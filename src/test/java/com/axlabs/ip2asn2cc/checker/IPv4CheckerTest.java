@@ -0,0 +1,70 @@
+package com.axlabs.ip2asn2cc.checker;
+
+import com.axlabs.ip2asn2cc.model.IPv4Subnet;
+import org.apache.commons.validator.routines.InetAddressValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IPv4CheckerTest {
+
+    private IPv4Checker ipv4Checker;
+
+    @BeforeEach
+    void initialize() {
+        ipv4Checker = new IPv4Checker(new InetAddressValidator());
+        ipv4Checker.addSubnet(new IPv4Subnet("8.8.8.0", 256, "US"));
+        ipv4Checker.addSubnet(new IPv4Subnet("77.109.128.0", 32768, "CH"));
+        ipv4Checker.addSubnet(new IPv4Subnet("200.0.0.0", 1024, "BR"));
+        ipv4Checker.addSubnet(new IPv4Subnet("255.255.255.0", 256, "ZZ"));
+        ipv4Checker.buildIndex();
+    }
+
+    @Test
+    void testRangeBoundaries() {
+        assertTrue(ipv4Checker.checkIfIsInRange("8.8.8.0"));
+        assertTrue(ipv4Checker.checkIfIsInRange("8.8.8.255"));
+        assertFalse(ipv4Checker.checkIfIsInRange("8.8.9.0"));
+        assertFalse(ipv4Checker.checkIfIsInRange("8.8.7.255"));
+        assertTrue(ipv4Checker.checkIfIsInRange("200.0.3.255"));
+        assertFalse(ipv4Checker.checkIfIsInRange("200.0.4.0"));
+    }
+
+    @Test
+    void testCountryCode() {
+        assertEquals("US", ipv4Checker.getCountryCodeInRange("8.8.8.8"));
+        assertEquals("CH", ipv4Checker.getCountryCodeInRange("77.109.144.219"));
+        assertEquals("ZZ", ipv4Checker.getCountryCodeInRange("255.255.255.255"));
+        assertEquals("Unknown", ipv4Checker.getCountryCodeInRange("1.1.1.1"));
+    }
+
+    @Test
+    void testInvalidAddresses() {
+        assertFalse(ipv4Checker.checkIfIsInRange(null));
+        assertFalse(ipv4Checker.checkIfIsInRange("8.8.8"));
+        assertFalse(ipv4Checker.checkIfIsInRange("8.8.8.256"));
+        assertFalse(ipv4Checker.checkIfIsInRange("08.8.8.8"));
+        assertFalse(ipv4Checker.checkIfIsInRange("8.8..8"));
+        assertFalse(ipv4Checker.checkIfIsInRange("2001:1620:2777:23::2"));
+    }
+
+    @Test
+    void testBuiltCheckerTakesNoMoreRanges() {
+        // the builder is gone with the build, the index stays as it is
+        ipv4Checker.buildIndex();
+        assertThrows(IllegalStateException.class, () -> ipv4Checker.addSubnet(new IPv4Subnet("1.1.1.0", 256, "AU")));
+        assertEquals("Unknown", ipv4Checker.getCountryCodeInRange("1.1.1.1"));
+        assertEquals("US", ipv4Checker.getCountryCodeInRange("8.8.8.8"));
+
+        ASNChecker asnChecker = new ASNChecker();
+        asnChecker.addRange(15169, 15169, (short) 1);
+        asnChecker.buildIndex();
+        assertThrows(IllegalStateException.class, () -> asnChecker.addRanges(new int[] {1, 2}, new short[] {1}, 1));
+        assertTrue(asnChecker.checkIfMatches(15169));
+    }
+
+}
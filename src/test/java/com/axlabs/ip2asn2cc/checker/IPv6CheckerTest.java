@@ -0,0 +1,133 @@
+package com.axlabs.ip2asn2cc.checker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.axlabs.ip2asn2cc.model.IPv6Subnet;
+import org.apache.commons.validator.routines.InetAddressValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.axlabs.ip2asn2cc.model.CountryCodes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IPv6CheckerTest {
+
+    private IPv6Checker ipv6Checker;
+
+    @BeforeEach
+    void initialize() {
+        ipv6Checker = new IPv6Checker(new InetAddressValidator());
+        ipv6Checker.addSubnet(new IPv6Subnet("2600::", 12, "US"));
+        ipv6Checker.addSubnet(new IPv6Subnet("2600:1f18::", 32, "IE"));
+        ipv6Checker.addSubnet(new IPv6Subnet("2001:1620::", 32, "CH"));
+        ipv6Checker.addSubnet(new IPv6Subnet("2001:1600::", 29, "DE"));
+        ipv6Checker.addSubnet(new IPv6Subnet("0:0:0:0:0:0:0:1", 128, "US"));
+        ipv6Checker.buildIndex();
+    }
+
+    @Test
+    void testLongestPrefixMatch() {
+        assertEquals("IE", ipv6Checker.getCountryCodeInRange("2600:1f18:1f:db01:11af:58af:ae11:f645"));
+        assertEquals("US", ipv6Checker.getCountryCodeInRange("2600:1f19::1"));
+        assertEquals("CH", ipv6Checker.getCountryCodeInRange("2001:1620:2777:23::2"));
+        assertEquals("DE", ipv6Checker.getCountryCodeInRange("2001:1607:ffff::1"));
+        assertEquals("US", ipv6Checker.getCountryCodeInRange("::1"));
+    }
+
+    @Test
+    void testExactPrefixNode() {
+        IPv6PrefixTrie trie = ipv6Checker.getTrie();
+        int node = trie.nodeOf(0x2600_1f18_0000_0000L, 0, 32);
+        assertEquals(node, trie.indexOf(0x2600_1f18_001f_db01L, 1));
+        assertEquals(trie.indexOf(0x2600_0000_0000_0000L, 0), trie.nodeOf(0x2600_0000_0000_0000L, 0, 12));
+        assertEquals(-1, trie.nodeOf(0x2600_1f18_0000_0000L, 0, 31));
+        assertEquals(-1, trie.nodeOf(0x2600_1f18_0000_0000L, 0, 48));
+        assertTrue(node >= 0 && node < trie.nodes());
+    }
+
+    @Test
+    void testOutOfRange() {
+        assertFalse(ipv6Checker.checkIfIsInRange("2610::1"));
+        assertFalse(ipv6Checker.checkIfIsInRange("2001:1628::"));
+        assertFalse(ipv6Checker.checkIfIsInRange("::2"));
+        assertFalse(ipv6Checker.checkIfIsInRange("8.8.8.8"));
+        assertTrue(ipv6Checker.checkIfIsInRange("260f:ffff:ffff:ffff:ffff:ffff:ffff:ffff"));
+        assertEquals("Unknown", ipv6Checker.getCountryCodeInRange("2001:db8::1"));
+    }
+
+    @Test
+    void testNumericAddresses() {
+        assertEquals("IE", ipv6Checker.getCountryCodeInRange(0x26001f18001fdb01L, 0x11af58afae11f645L));
+        assertEquals("US", ipv6Checker.getCountryCodeInRange(0L, 1L));
+        assertTrue(ipv6Checker.checkIfIsInRange(0x2001162027770023L, 2L));
+        assertFalse(ipv6Checker.checkIfIsInRange(0x20010db800000000L, 1L));
+    }
+
+    @Test
+    void testBuiltCheckerTakesNoMoreSubnets() {
+        // the builder and its nodes are gone with the build, the trie stays as it is
+        ipv6Checker.buildIndex();
+        assertThrows(IllegalStateException.class, () -> ipv6Checker.addSubnet(new IPv6Subnet("2001:db8::", 32, "NL")));
+        assertEquals("Unknown", ipv6Checker.getCountryCodeInRange("2001:db8::1"));
+        assertEquals("CH", ipv6Checker.getCountryCodeInRange("2001:1620:2777:23::2"));
+    }
+
+    @Test
+    void testCidrs() {
+        List<String> cidrs = new ArrayList<>();
+        short us = CountryCodes.toId("US");
+        ipv6Checker.getTrie().forEachCidr(countryId -> countryId == us,
+                (high, low, length) -> cidrs.add(Long.toHexString(high) + ":" + Long.toHexString(low) + "/" + length));
+        // ::1, and 2600::/12 without 2600:1f18::/32
+        assertEquals(List.of("0:1/128",
+                "2600000000000000:0/20", "2600100000000000:0/21", "2600180000000000:0/22", "26001c0000000000:0/23",
+                "26001e0000000000:0/24", "26001f0000000000:0/28", "26001f1000000000:0/29",
+                "26001f1900000000:0/32", "26001f1a00000000:0/31", "26001f1c00000000:0/30", "26001f2000000000:0/27",
+                "26001f4000000000:0/26", "26001f8000000000:0/25", "2600200000000000:0/19", "2600400000000000:0/18",
+                "2600800000000000:0/17", "2601000000000000:0/16", "2602000000000000:0/15", "2604000000000000:0/14",
+                "2608000000000000:0/13"), cidrs);
+    }
+
+    @Test
+    void testCidrsCoverExactlyTheMatchingAddresses() {
+        Random random = new Random(42);
+        IPv6PrefixTrie.Builder builder = IPv6PrefixTrie.builder();
+        for (int i = 0; i < 200; i++) {
+            int length = 16 + random.nextInt(113);
+            long high = 0x2001_0db8_0000_0000L | (random.nextLong() >>> 32);
+            builder.add(high, random.nextLong(), length, (short) random.nextInt(3));
+        }
+        IPv6PrefixTrie trie = builder.build();
+
+        List<long[]> cidrs = new ArrayList<>();
+        trie.forEachCidr(countryId -> countryId != 2, (high, low, length) -> cidrs.add(new long[]{high, low, length}));
+        for (int i = 1; i < cidrs.size(); i++) {
+            long[] previous = cidrs.get(i - 1);
+            long[] cidr = cidrs.get(i);
+            assertTrue(Long.compareUnsigned(previous[0], cidr[0]) < 0
+                    || previous[0] == cidr[0] && Long.compareUnsigned(previous[1], cidr[1]) < 0, "blocks out of order");
+            int length = (int) cidr[2];
+            boolean siblings = previous[2] == length && length > 0
+                    && previous[0] == (cidr[0] & IPv6PrefixTrie.highMask(length - 1))
+                    && previous[1] == (cidr[1] & IPv6PrefixTrie.lowMask(length - 1));
+            assertFalse(siblings, "sibling blocks weren't merged");
+        }
+
+        for (int i = 0; i < 20_000; i++) {
+            long high = 0x2001_0db8_0000_0000L | (random.nextLong() >>> (32 + random.nextInt(32)));
+            long low = random.nextBoolean() ? random.nextLong() : 0;
+            boolean covered = false;
+            for (long[] cidr : cidrs) {
+                covered |= IPv6PrefixTrie.matches(high, low, cidr[0], cidr[1], (int) cidr[2]);
+            }
+            assertEquals(trie.getCountryId(high, low) != 2, covered);
+        }
+    }
+
+}
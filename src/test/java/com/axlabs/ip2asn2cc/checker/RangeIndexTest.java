@@ -0,0 +1,166 @@
+package com.axlabs.ip2asn2cc.checker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RangeIndexTest {
+
+    private static final short US = 1;
+    private static final short CH = 2;
+    private static final short DE = 3;
+
+    @Test
+    void testNonPowerOfTwoRangesStayExact() {
+        RangeIndex index = RangeIndex.builder()
+                .add(0x05010000, 0x050102FF, DE)
+                .add(0x05010300, 0x050105FF, CH)
+                .build();
+        assertEquals(DE, index.getCountryId(0x050102FF));
+        assertEquals(CH, index.getCountryId(0x05010300));
+        assertEquals(CH, index.getCountryId(0x050105FF));
+        assertFalse(index.contains(0x05010600));
+    }
+
+    @Test
+    void testResolvedRangesKeepTheirPosition() {
+        RangeIndex.Builder builder = RangeIndex.builder()
+                .add(0, 999, US)
+                .add(100, 199, US)
+                .add(2000, 2999, CH);
+        List<String> resolved = new ArrayList<>();
+        builder.resolve((start, end, position) -> resolved.add(start + "-" + end + ":" + position));
+        // unlike the built index, the pieces of the same country stay apart
+        assertEquals(List.of("0-99:0", "100-199:1", "200-999:0", "2000-2999:2"), resolved);
+        assertEquals(2, builder.build().size());
+    }
+
+    @Test
+    void testAdjacentRangesOfTheSameCountryAreMerged() {
+        RangeIndex index = RangeIndex.builder()
+                .add(200, 299, US)
+                .add(0, 99, US)
+                .add(100, 199, US)
+                .add(300, 399, CH)
+                .add(401, 500, CH)
+                .add(0xFFFFFF00, 0xFFFFFFFF, US)
+                .build();
+        assertEquals(4, index.size());
+        assertEquals(index.indexOf(0), index.indexOf(299));
+        assertTrue(index.indexOf(399) != index.indexOf(401));
+        assertFalse(index.contains(400));
+        assertEquals(US, index.getCountryId(0xFFFFFFFF));
+    }
+
+    @Test
+    void testMoreSpecificRangeWinsOverlaps() {
+        RangeIndex index = RangeIndex.builder()
+                .add(0, 999, US)
+                .add(100, 199, CH)
+                .add(150, 1099, DE)
+                .add(0xFFFFFF00, 0xFFFFFFFF, US)
+                .add(0xFFFFFFFF, 0xFFFFFFFF, CH)
+                .build();
+        assertEquals(US, index.getCountryId(99));
+        assertEquals(CH, index.getCountryId(100));
+        assertEquals(CH, index.getCountryId(199));
+        assertEquals(DE, index.getCountryId(200));
+        assertEquals(DE, index.getCountryId(999));
+        assertEquals(DE, index.getCountryId(1099));
+        assertFalse(index.contains(1100));
+        assertEquals(US, index.getCountryId(0xFFFFFFFE));
+        assertEquals(CH, index.getCountryId(0xFFFFFFFF));
+    }
+
+    @Test
+    void testFirstAddedWinsBetweenRangesOfTheSameSize() {
+        RangeIndex index = RangeIndex.builder()
+                .add(50, 149, CH)
+                .add(0, 99, US)
+                .build();
+        assertEquals(US, index.getCountryId(49));
+        assertEquals(CH, index.getCountryId(50));
+        assertEquals(CH, index.getCountryId(149));
+    }
+
+    @Test
+    void testInvalidRange() {
+        assertThrows(IllegalArgumentException.class, () -> RangeIndex.builder().add(10, 9, US));
+        assertThrows(IllegalArgumentException.class,
+                () -> RangeIndex.builder().addAll(new int[] {0, 9, 10, 9}, new short[] {US, US}, 2));
+    }
+
+    @Test
+    void testAddAllMatchesAdd() {
+        // more ranges than the initial capacity, with overlaps resolved by position
+        Random random = new Random(7);
+        int count = 5000;
+        int[] ranges = new int[2 * count];
+        short[] countryIds = new short[count];
+        RangeIndex.Builder one = RangeIndex.builder().add(0, 0xFFFF, DE);
+        RangeIndex.Builder all = RangeIndex.builder().add(0, 0xFFFF, DE);
+        for (int i = 0; i < count; i++) {
+            int start = random.nextInt(1 << 20);
+            ranges[2 * i] = start;
+            ranges[2 * i + 1] = start + random.nextInt(1 << 10);
+            countryIds[i] = random.nextBoolean() ? US : CH;
+            one.add(ranges[2 * i], ranges[2 * i + 1], countryIds[i]);
+        }
+        // only the first count of the arrays are added
+        all.addAll(ranges, countryIds, count - 1).add(ranges[2 * count - 2], ranges[2 * count - 1], countryIds[count - 1]);
+
+        RangeIndex expected = one.build();
+        RangeIndex actual = all.build();
+        assertEquals(expected.size(), actual.size());
+        for (int value = 0; value < (1 << 21); value += 37) {
+            assertEquals(expected.getCountryId(value), actual.getCountryId(value));
+        }
+    }
+
+    @Test
+    void testCidrsCoverExactlyTheMatchingValues() {
+        Random random = new Random(42);
+        RangeIndex.Builder builder = RangeIndex.builder();
+        short[] countries = {US, CH, DE};
+        for (int i = 0; i < 300; i++) {
+            int start = 0x0A000000 + random.nextInt(8192);
+            builder.add(start, start + random.nextInt(64), countries[random.nextInt(3)]);
+        }
+        RangeIndex index = builder.build();
+
+        // everything but DE, so the unknown values in the gaps are included as well
+        List<long[]> cidrs = new ArrayList<>();
+        index.forEachCidr(countryId -> countryId != DE,
+                (start, length) -> cidrs.add(new long[]{start & 0xFFFFFFFFL, length}));
+        long next = 0;
+        for (int i = 0; i < cidrs.size(); i++) {
+            long start = cidrs.get(i)[0];
+            long size = 1L << (32 - cidrs.get(i)[1]);
+            assertEquals(0, start % size, "unaligned block");
+            assertTrue(start >= next, "blocks out of order");
+            // a block and its sibling would be a single block
+            if (i > 0 && cidrs.get(i - 1)[1] == cidrs.get(i)[1] && start % (2 * size) != 0) {
+                assertTrue(cidrs.get(i - 1)[0] != start - size, "sibling blocks weren't merged");
+            }
+            next = start + size;
+        }
+        assertEquals(0x1_0000_0000L, next);
+
+        int block = 0;
+        for (long value = 0x0A000000L - 16; value < 0x0A002100L; value++) {
+            while (cidrs.get(block)[0] + (1L << (32 - cidrs.get(block)[1])) <= value) {
+                block++;
+            }
+            boolean covered = cidrs.get(block)[0] <= value;
+            assertEquals(index.getCountryId((int) value) != DE, covered, Long.toHexString(value));
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.axlabs.ip2asn2cc.model;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountryFilterTest {
+
+    @Test
+    void testInclude() {
+        CountryFilter filter = CountryFilter.include("US", "ch", "ZZ");
+        assertTrue(filter.test("US"));
+        assertTrue(filter.test("CH"));
+        assertTrue(filter.test(CountryCodes.toId("ZZ")));
+        assertFalse(filter.test("DE"));
+        assertFalse(filter.test(CountryCodes.UNKNOWN));
+        assertFalse(filter.test(CountryCodes.UNKNOWN_ID));
+    }
+
+    @Test
+    void testExclude() {
+        CountryFilter filter = CountryFilter.exclude("US", "CH");
+        assertFalse(filter.test("US"));
+        assertFalse(filter.test("CH"));
+        assertTrue(filter.test("DE"));
+        assertTrue(filter.test(CountryCodes.UNKNOWN));
+    }
+
+    @Test
+    void testEqualityAndCountryCodes() {
+        CountryFilter filter = CountryFilter.of(FilterPolicy.INCLUDE_COUNTRY_CODES, List.of("CH", "US", "AA"));
+        assertEquals(CountryFilter.include("us", "aa", "ch"), filter);
+        assertEquals(CountryFilter.include("us", "aa", "ch").hashCode(), filter.hashCode());
+        assertFalse(CountryFilter.exclude("CH", "US", "AA").equals(filter));
+        assertEquals(List.of("AA", "CH", "US"), filter.getCountryCodes());
+    }
+
+    @Test
+    void testInvalidCountryCode() {
+        assertThrows(IllegalArgumentException.class, () -> CountryFilter.include("USA"));
+        assertThrows(IllegalArgumentException.class, () -> CountryFilter.of(null, List.of("US")));
+    }
+
+}
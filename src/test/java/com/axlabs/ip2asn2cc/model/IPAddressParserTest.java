@@ -0,0 +1,61 @@
+package com.axlabs.ip2asn2cc.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IPAddressParserTest {
+
+    private final long[] address = new long[2];
+
+    @Test
+    void testIPv4() {
+        assertEquals(0x08080808L, IPAddressParser.parseIPv4("8.8.8.8"));
+        assertEquals(0xFFFFFFFFL, IPAddressParser.parseIPv4("255.255.255.255"));
+        assertEquals(0L, IPAddressParser.parseIPv4("0.0.0.0"));
+        assertEquals(-1L, IPAddressParser.parseIPv4("256.0.0.0"));
+        assertEquals(-1L, IPAddressParser.parseIPv4("1.2.3"));
+        assertEquals(-1L, IPAddressParser.parseIPv4("1.2.3.4.5"));
+        assertEquals(-1L, IPAddressParser.parseIPv4("01.2.3.4"));
+        assertEquals(-1L, IPAddressParser.parseIPv4("1.2.3.4 "));
+        assertEquals(-1L, IPAddressParser.parseIPv4((String) null));
+    }
+
+    @Test
+    void testIPv6() {
+        assertIPv6("2001:1620:2777:23::2", 0x2001162027770023L, 2L);
+        assertIPv6("::", 0L, 0L);
+        assertIPv6("::1", 0L, 1L);
+        assertIPv6("2001:618::", 0x2001061800000000L, 0L);
+        assertIPv6("1:2:3:4:5:6:7:8", 0x0001000200030004L, 0x0005000600070008L);
+        assertIPv6("::ffff:8.8.8.8", 0L, 0x0000FFFF08080808L);
+        assertIPv6("FFFF::ffff", 0xFFFF000000000000L, 0xFFFFL);
+
+        assertFalse(IPAddressParser.parseIPv6("1:2:3:4:5:6:7:8:9", address));
+        assertFalse(IPAddressParser.parseIPv6("1::2::3", address));
+        assertFalse(IPAddressParser.parseIPv6("1:2:3:4:5:6:7::8", address));
+        assertFalse(IPAddressParser.parseIPv6("12345::", address));
+        assertFalse(IPAddressParser.parseIPv6(":1::", address));
+        assertFalse(IPAddressParser.parseIPv6("1:", address));
+        assertFalse(IPAddressParser.parseIPv6("g::", address));
+        assertFalse(IPAddressParser.parseIPv6("8.8.8.8", address));
+        assertFalse(IPAddressParser.parseIPv6(null, address));
+    }
+
+    @Test
+    void testUnsigned() {
+        assertEquals(4294967295L, IPAddressParser.parseUnsigned("4294967295"));
+        assertEquals(-1L, IPAddressParser.parseUnsigned("4294967296"));
+        assertEquals(-1L, IPAddressParser.parseUnsigned("AS3356"));
+        assertEquals(-1L, IPAddressParser.parseUnsigned(""));
+    }
+
+    private void assertIPv6(String text, long high, long low) {
+        assertTrue(IPAddressParser.parseIPv6(text, address), text);
+        assertEquals(high, address[0], text);
+        assertEquals(low, address[1], text);
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.axlabs.ip2asn2cc.model;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IPSubnetTest {
+
+    @Test
+    void testEquals() {
+        Set<IPSubnet> subnets = new HashSet<>();
+        subnets.add(new IPv4Subnet("8.8.8.0", 256, "US"));
+        subnets.add(new IPv6Subnet("2001:1620::", 32, "CH"));
+        assertTrue(subnets.contains(new IPv4Subnet("8.8.8.0", 256, "US")));
+        assertTrue(subnets.contains(new IPv6Subnet("2001:1620::", 32, "CH")));
+
+        assertEquals(new IPv4Subnet("8.8.8.0", null, "US"), new IPv4Subnet("8.8.8.0", null, "US"));
+        assertNotEquals(new IPv4Subnet("8.8.8.0", 256, "US"), new IPv4Subnet("8.8.8.0", 512, "US"));
+        assertNotEquals(new IPv4Subnet("8.8.8.0", 256, "US"), new IPv6Subnet("8.8.8.0", 256, "US"));
+    }
+
+}
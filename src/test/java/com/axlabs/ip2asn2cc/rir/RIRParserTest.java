@@ -0,0 +1,144 @@
+package com.axlabs.ip2asn2cc.rir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.commons.validator.routines.InetAddressValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.axlabs.ip2asn2cc.checker.ASNChecker;
+import com.axlabs.ip2asn2cc.checker.IPv4Checker;
+import com.axlabs.ip2asn2cc.checker.IPv6Checker;
+import com.axlabs.ip2asn2cc.model.CountryCodes;
+import com.axlabs.ip2asn2cc.model.RecordStatus;
+import com.axlabs.ip2asn2cc.model.Registry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RIRParserTest {
+
+    private static final String RIR_FILE = String.join("\n",
+            "2|ripencc|1700000000|8|19830705|20231017|+0100",
+            "# a comment line",
+            "ripencc|*|ipv4|*|3|summary",
+            "ripencc|*|asn|*|3|summary",
+            "ripencc|CH|ipv4|77.109.128.0|32768|20050125|allocated|a1b2",
+            "ripencc|DE|ipv4|5.1.0.0|768|20120427|allocated",
+            "ripencc|CH|ipv4|10.0.0.0|256|20120427|reserved",
+            "ripencc|CH|ipv6|2001:1620::|32|20030113|allocated",
+            "ripencc|DE|ipv6|2001:1600::|29|20030113|allocated",
+            "ripencc|CH|asn|13030|1|19930901|assigned\r",
+            "ripencc|CH|asn|196608|1024|20090101|allocated",
+            "ripencc|US|ipv4|8.8.8.0|256|19920101|assigned",
+            "ripencc|US|ipv4|not-an-address|256|19920101|assigned",
+            "ripencc|US|ipv6|2600:1f18::|32|20120101|allocated",
+            "ripencc|US|asn|3356|1|20000101|assigned");
+
+    private IPv4Checker ipv4Checker;
+    private IPv6Checker ipv6Checker;
+    private ASNChecker asnChecker;
+
+    @BeforeEach
+    void initialize() throws IOException {
+        InetAddressValidator validator = new InetAddressValidator();
+        ipv4Checker = new IPv4Checker(validator);
+        ipv6Checker = new IPv6Checker(validator);
+        asnChecker = new ASNChecker();
+
+        RIRParser parser = new RIRParser(ipv4Checker, ipv6Checker, asnChecker, List.of("ch", "US"));
+        parser.parse(Channels.newChannel(new ByteArrayInputStream(RIR_FILE.getBytes(StandardCharsets.US_ASCII))));
+        ipv4Checker.buildIndex();
+        ipv6Checker.buildIndex();
+        asnChecker.buildIndex();
+    }
+
+    @Test
+    void testIPv4Records() {
+        assertEquals("CH", ipv4Checker.getCountryCodeInRange("77.109.144.219"));
+        assertEquals("US", ipv4Checker.getCountryCodeInRange("8.8.8.8"));
+        assertFalse(ipv4Checker.checkIfIsInRange("5.1.0.1"));
+        assertFalse(ipv4Checker.checkIfIsInRange("10.0.0.1"));
+    }
+
+    @Test
+    void testIPv6Records() {
+        assertEquals("CH", ipv6Checker.getCountryCodeInRange("2001:1620:2777:23::2"));
+        assertEquals("US", ipv6Checker.getCountryCodeInRange("2600:1f18:1f:db01:11af:58af:ae11:f645"));
+        assertFalse(ipv6Checker.checkIfIsInRange("2001:1600::1"));
+    }
+
+    @Test
+    void testASNRecords() {
+        assertTrue(asnChecker.checkIfMatches("13030"));
+        assertTrue(asnChecker.checkIfMatches("3356"));
+        assertFalse(asnChecker.checkIfMatches("1"));
+    }
+
+    @Test
+    void testASNBlocks() {
+        assertTrue(asnChecker.checkIfMatches(196608L));
+        assertTrue(asnChecker.checkIfMatches(197631L));
+        assertFalse(asnChecker.checkIfMatches(197632L));
+        assertFalse(asnChecker.checkIfMatches(-1L));
+        assertEquals("CH", asnChecker.getCountryCode("197000"));
+        assertEquals("US", asnChecker.getCountryCode(3356L));
+        assertEquals("Unknown", asnChecker.getCountryCode("197632"));
+        assertEquals("Unknown", asnChecker.getCountryCode("AS3356"));
+    }
+
+    @Test
+    void testRecordColumns() {
+        byte[] bytes = RIR_FILE.replace("ripencc|US|ipv6", "arin|US|ipv6").getBytes(StandardCharsets.US_ASCII);
+        RIRRecords records = new RIRRecords();
+        new RIRParser(List.of("CH", "US")).parse(bytes, 0, bytes.length, records);
+        records.trim();
+
+        assertEquals(2, records.getIPv4Count());
+        assertEquals(0x4D6D8000, records.getIPv4Start(0));
+        assertEquals(0x4D6DFFFF, records.getIPv4End(0));
+        assertEquals(CountryCodes.toId("CH"), records.getIPv4CountryId(0));
+        assertEquals(Registry.RIPENCC, Registry.fromId(records.getIPv4Registry(0)));
+        assertEquals(RecordStatus.ALLOCATED, RecordStatus.fromId(records.getIPv4Status(0)));
+        assertEquals(20050125, records.getIPv4Date(0));
+        assertEquals(RecordStatus.ASSIGNED, RecordStatus.fromId(records.getIPv4Status(1)));
+
+        assertEquals(2, records.getIPv6Count());
+        assertEquals(0x2600_1f18_0000_0000L, records.getIPv6High(1));
+        assertEquals(32, records.getIPv6Length(1));
+        assertEquals(Registry.ARIN, Registry.fromId(records.getIPv6Registry(1)));
+        assertEquals(20120101, records.getIPv6Date(1));
+
+        assertEquals(3, records.getASNCount());
+        assertEquals(196608, records.getASNStart(1));
+        assertEquals(197631, records.getASNEnd(1));
+        assertEquals(19930901, records.getASNDate(0));
+
+        // the trimmed columns still grow
+        records.addASNRange(1, 1, CountryCodes.toId("CH"), Registry.UNKNOWN_ID, RecordStatus.UNKNOWN_ID, 0);
+        assertEquals(4, records.getASNCount());
+        assertEquals(null, Registry.fromId(records.getASNRegistry(3)));
+    }
+
+    @Test
+    void testAllCountries() throws IOException {
+        IPv4Checker allIpv4Checker = new IPv4Checker(new InetAddressValidator());
+        IPv6Checker allIpv6Checker = new IPv6Checker(new InetAddressValidator());
+        ASNChecker allAsnChecker = new ASNChecker();
+        RIRParser parser = new RIRParser(allIpv4Checker, allIpv6Checker, allAsnChecker, CountryCodes.all());
+        parser.parse(Channels.newChannel(new ByteArrayInputStream(RIR_FILE.getBytes(StandardCharsets.US_ASCII))));
+        allIpv4Checker.buildIndex();
+        allIpv6Checker.buildIndex();
+
+        assertEquals("DE", allIpv4Checker.getCountryCodeInRange("5.1.2.3"));
+        assertEquals("CH", allIpv4Checker.getCountryCodeInRange("77.109.144.219"));
+        assertEquals("DE", allIpv6Checker.getCountryCodeInRange("2001:1607::1"));
+        assertFalse(allIpv4Checker.checkIfIsInRange("10.0.0.1"));
+    }
+
+}
@@ -0,0 +1,188 @@
+package com.axlabs.ip2asn2cc.rir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RIRSourceTest {
+
+    private static final String RIR_FILE = String.join("\n",
+            "ripencc|CH|ipv4|77.109.128.0|32768|20050125|allocated",
+            "ripencc|CH|asn|13030|1|19930901|assigned");
+    private static final String MD5 = "0123456789abcdef0123456789abcdef";
+    // Sun, 01 Oct 2023 10:00:00 GMT
+    private static final long LAST_MODIFIED = 1_696_154_400_000L;
+
+    private Path directory;
+    private HttpServer server;
+    private final AtomicInteger gzippedResponses = new AtomicInteger();
+    private volatile boolean publishMD5;
+    private volatile boolean failMD5;
+
+    @BeforeEach
+    void initialize() throws IOException {
+        directory = Files.createTempDirectory("ip2asn2cc-");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/mirror/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        server.stop(0);
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    void testFileSource() throws IOException {
+        List<RIRSource> sources = FileRIRSource.directory(directory);
+        assertEquals(5, sources.size());
+        assertEquals(directory.resolve("delegated-ripencc-latest").toString(), sources.get(1).getName());
+
+        Path file = directory.resolve("delegated-ripencc-latest");
+        Files.write(file, RIR_FILE.getBytes(StandardCharsets.US_ASCII));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(LAST_MODIFIED));
+        assertEquals(RIR_FILE, read(sources.get(1)));
+        RIRFileVersion version = sources.get(1).fetchVersion();
+        assertNull(version.getMD5());
+        assertEquals(RIR_FILE.length(), version.getSize());
+        assertEquals(LAST_MODIFIED, version.getLastModified());
+
+        Files.write(directory.resolve("delegated-ripencc-latest.md5"),
+                ("MD5 (delegated-ripencc-latest) = " + MD5.toUpperCase() + "\n").getBytes(StandardCharsets.US_ASCII));
+        assertEquals(MD5, sources.get(1).fetchVersion().getMD5());
+        assertThrows(IOException.class, () -> sources.get(0).open());
+    }
+
+    @Test
+    void testHttpSource() throws IOException {
+        List<RIRSource> sources = HttpRIRSource.mirror(URI.create("http://127.0.0.1:" + server.getAddress().getPort()
+                + "/mirror"), Duration.ofSeconds(10));
+        RIRSource source = sources.get(1);
+        assertEquals(Duration.ofSeconds(10), source.getTimeout());
+
+        assertEquals(RIR_FILE, read(source));
+        assertEquals(RIR_FILE, read(source));
+        assertEquals(2, gzippedResponses.get());
+
+        RIRFileVersion version = source.fetchVersion();
+        assertNull(version.getMD5());
+        assertEquals(RIR_FILE.length(), version.getSize());
+        assertEquals(LAST_MODIFIED, version.getLastModified());
+
+        publishMD5 = true;
+        assertEquals(MD5, source.fetchVersion().getMD5());
+        assertThrows(IOException.class, () -> sources.get(0).open());
+    }
+
+    @Test
+    void testHttpSourceFallsBackWhenTheMD5RequestFails() throws IOException {
+        RIRSource source = HttpRIRSource.mirror(URI.create("http://127.0.0.1:" + server.getAddress().getPort()
+                + "/mirror"), Duration.ofSeconds(10)).get(1);
+        publishMD5 = true;
+        failMD5 = true;
+
+        // the connection is closed without a response, the version falls back to the HEAD request
+        RIRFileVersion version = source.fetchVersion();
+        assertNull(version.getMD5());
+        assertEquals(RIR_FILE.length(), version.getSize());
+        assertEquals(LAST_MODIFIED, version.getLastModified());
+    }
+
+    @Test
+    void testClasspathSource() throws IOException {
+        String content = read(new ClasspathRIRSource("/fixtures/rir/delegated-ripencc-latest"));
+        assertTrue(content.contains("ripencc|CH|ipv4|77.109.128.0|32768|20050125|allocated"));
+        assertThrows(FileNotFoundException.class, () -> new ClasspathRIRSource("fixtures/missing").open());
+        assertEquals(RIRFileVersion.UNKNOWN, new ClasspathRIRSource("fixtures/missing").fetchVersion());
+
+        List<RIRSource> directory = ClasspathRIRSource.directory("/fixtures/rir");
+        assertEquals("classpath:fixtures/rir/delegated-arin-extended-latest", directory.get(0).getName());
+        assertTrue(read(directory.get(1)).startsWith("2|ripencc|"));
+    }
+
+    @Test
+    void testVersionComparison() {
+        RIRFileVersion downloaded = new RIRFileVersion(MD5, RIR_FILE.length(), LAST_MODIFIED);
+        assertTrue(new RIRFileVersion(MD5.toUpperCase(), -1, 0).isSameFile(downloaded));
+        assertTrue(new RIRFileVersion(null, RIR_FILE.length(), LAST_MODIFIED).isSameFile(downloaded));
+        assertFalse(new RIRFileVersion(MD5.replace('0', '1'), RIR_FILE.length(), LAST_MODIFIED)
+                .isSameFile(downloaded));
+        assertFalse(new RIRFileVersion(null, RIR_FILE.length(), LAST_MODIFIED + 1).isSameFile(downloaded));
+        assertFalse(RIRFileVersion.UNKNOWN.isSameFile(downloaded));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith(".md5") && failMD5) {
+            // the server drops the connection without sending a response
+            throw new IOException("MD5 unavailable");
+        }
+        try (exchange) {
+            if (path.equals("/mirror/delegated-ripencc-latest.md5") && publishMD5) {
+                byte[] body = (MD5 + "  delegated-ripencc-latest\n").getBytes(StandardCharsets.US_ASCII);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            } else if (path.equals("/mirror/delegated-ripencc-latest")) {
+                byte[] body = RIR_FILE.getBytes(StandardCharsets.US_ASCII);
+                exchange.getResponseHeaders().set("Last-Modified", "Sun, 01 Oct 2023 10:00:00 GMT");
+                String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                if (exchange.getRequestMethod().equals("HEAD")) {
+                    exchange.getResponseHeaders().set("Content-Length", String.valueOf(body.length));
+                    exchange.sendResponseHeaders(200, -1);
+                } else if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                    ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+                    try (OutputStream gzip = new GZIPOutputStream(gzipped)) {
+                        gzip.write(body);
+                    }
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                    exchange.sendResponseHeaders(200, gzipped.size());
+                    exchange.getResponseBody().write(gzipped.toByteArray());
+                    gzippedResponses.incrementAndGet();
+                } else {
+                    exchange.sendResponseHeaders(200, body.length);
+                    exchange.getResponseBody().write(body);
+                }
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        }
+    }
+
+    private static String read(RIRSource source) throws IOException {
+        try (InputStream inputStream = source.open()) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.US_ASCII);
+        }
+    }
+
+}